@@ -0,0 +1,60 @@
+package aoop.asteroids;
+
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.online.Server;
+import aoop.asteroids.model.online.ServerConfig;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Main class of a dedicated Asteroids server.
+ *
+ * A dedicated server runs only the game model, the game engine and the server, without a window and without a local
+ * player, so that every player is a client that joined over the network. It never touches AWT or Swing, and can run
+ * on a headless machine with a small heap. It hosts any number of rooms, each with a game of its own, which are all
+ * ticked by a small pool of threads and share one socket.
+ *
+ * The server is configured with arguments of the form --key=value, see {@link ServerConfig}, for example:
+ *
+ * java -cp asteroids.jar aoop.asteroids.DedicatedServer --port=55554 --maxPlayers=8 --width=1600 --height=1200
+ *
+ * A fixed seed, given with --asteroids.seed=n, makes every run of the server the same for the same input.
+ */
+public class DedicatedServer {
+	/**
+	 * Main method, where the dedicated server starts.
+	 *
+	 * @param args The array of arguments passed to the program from the command line.
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		ServerConfig config;
+		try {
+			config = ServerConfig.fromArguments(args);
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Invalid configuration: " + e.getMessage());
+			System.out.println("Usage: DedicatedServer [--config=file] [--port=n] [--maxPlayers=n] [--tickRate=n] "
+					+ "[--width=n] [--height=n] [--asteroidsLimit=n] [--maxAsteroidsLimit=n] [--rooms=n] "
+					+ "[--tickThreads=n] [--interestRadius=n] [--encoderThreads=n] "
+					+ "[--asteroids.key=value]");
+			System.exit(1);
+			return;
+		}
+		Server server = new Server(config.getPort(), config.getMaxPlayers(), config.getTickThreads(),
+				config.getInterestRadius(), config.getEncoderThreads());
+		// With a fixed seed, every room gets a seed of its own derived from it, so rooms differ but runs do not.
+		Long seed = Long.getLong(Game.SEED_PROPERTY);
+		SplittableRandom seeds = seed == null ? null : new SplittableRandom(seed);
+		for (int i = 0; i < config.getRooms(); i++) {
+			Game game = new Game(config.getWorld(), true);
+			if (seeds != null) game.setSeed(seeds.nextLong());
+			game.setHost(true);
+			server.addRoom(game);
+		}
+		new Thread(server, "server").start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown));
+		System.out.println("Dedicated server listening on port " + config.getPort() + " with "
+				+ config.getRooms() + " room(s)");
+	}
+}
@@ -0,0 +1,57 @@
+package aoop.asteroids;
+
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.online.Client;
+import aoop.asteroids.model.online.Server;
+import aoop.asteroids.model.online.ServerConfig;
+
+import java.io.IOException;
+
+/**
+ * Main class of a spectator relay.
+ *
+ * A relay spectates a room of a server once, and sends the game on to any number of spectators of its own, so that the
+ * server sends every frame to the relay only, however many spectators watch. The relay keeps the snapshots it receives
+ * and encodes them again for each of its spectators, who acknowledge them as they would on the server, so a relay
+ * looks like a server to its spectators. Relays can therefore be chained, with a relay spectating another relay, to
+ * spread a large audience over several processes. Players cannot join a relay.
+ *
+ * A relay runs headless, like a dedicated server, and is configured with the same arguments, see {@link ServerConfig},
+ * plus the server to spectate, for example:
+ *
+ * java -cp asteroids.jar aoop.asteroids.SpectatorRelay --upstream=localhost:55554 --upstreamRoom=0 --port=55555
+ *
+ * The world size should match that of the server, so that the relay asks for the whole world.
+ */
+public class SpectatorRelay {
+
+	/**
+	 * Main method, where the relay starts.
+	 *
+	 * @param args The array of arguments passed to the program from the command line.
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		ServerConfig config;
+		try {
+			config = ServerConfig.fromArguments(args);
+			if (config.getUpstream() == null) throw new IllegalArgumentException("The server to spectate is missing");
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Invalid configuration: " + e.getMessage());
+			System.out.println("Usage: SpectatorRelay --upstream=host:port [--upstreamRoom=n] [--config=file] "
+					+ "[--port=n] [--tickRate=n] [--width=n] [--height=n]");
+			System.exit(1);
+			return;
+		}
+		Game game = new Game(config.getWorld(), true);
+		Server server = new Server(game, config.getPort(), 0);
+		Client client = new Client(game, config.getUpstreamRoom(), config.getUpstream(), true);
+		new Thread(server, "server").start();
+		new Thread(client, "relay").start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			client.stop();
+			server.shutdown();
+		}));
+		System.out.println("Spectator relay of " + config.getUpstream() + " listening on port " + config.getPort());
+	}
+}
@@ -0,0 +1,116 @@
+package aoop.asteroids.control;
+
+/**
+ * Keeps track of when a periodic step, like a game tick or a display frame, is due, using a fixed timestep and an
+ * accumulator of elapsed time. Time that is left over after a step is kept for the next one, so no fractions of a step
+ * are lost and the average rate stays exactly at the requested rate. If more steps are due than may be caught up with
+ * at once, for example after the machine was suspended, the surplus is skipped, so that a slow step cannot lead to an
+ * ever growing backlog of steps.
+ *
+ * The actual rate at which steps are taken and how late the last one was are measured, so that they can be monitored.
+ * All times are in nanoseconds as returned by {@link System#nanoTime()}, and are passed in by the caller.
+ */
+public class FixedTimestep {
+
+    /**
+     * The number of nanoseconds over which the actual step rate is measured.
+     */
+    private static final long RATE_WINDOW = 1_000_000_000L;
+
+    private final long nanosPerStep;
+    private final int maxCatchUpSteps;
+
+    private long previousTime;
+    private long accumulator;
+    private long skippedSteps;
+
+    private long windowStart;
+    private int windowSteps;
+    private volatile double measuredRate;
+    private volatile long lateness;
+
+    /**
+     * Constructor
+     * @param stepsPerSecond rate at which steps should be taken
+     * @param maxCatchUpSteps maximum number of steps that are due at once, any more are skipped
+     * @param now current time
+     */
+    public FixedTimestep(double stepsPerSecond, int maxCatchUpSteps, long now) {
+        this.nanosPerStep = (long) (1_000_000_000L / stepsPerSecond);
+        this.maxCatchUpSteps = maxCatchUpSteps;
+        previousTime = now;
+        accumulator = 0L;
+        skippedSteps = 0L;
+        windowStart = now;
+        windowSteps = 0;
+        measuredRate = stepsPerSecond;
+        lateness = 0L;
+    }
+
+    /**
+     * Adds the time passed since the previous call, and takes as many steps from it as are due.
+     * @param now current time
+     * @return the number of steps that should be taken now, at most maxCatchUpSteps
+     */
+    public int advance(long now) {
+        accumulator += now - previousTime;
+        previousTime = now;
+        long due = accumulator / nanosPerStep;
+        if (due > maxCatchUpSteps) {
+            skippedSteps += due - maxCatchUpSteps;
+            accumulator -= (due - maxCatchUpSteps) * nanosPerStep;
+            due = maxCatchUpSteps;
+        }
+        accumulator -= due * nanosPerStep;
+        if (due > 0) lateness = accumulator;
+        windowSteps += due;
+        if (now - windowStart >= RATE_WINDOW) {
+            measuredRate = windowSteps * 1_000_000_000.0 / (now - windowStart);
+            windowStart = now;
+            windowSteps = 0;
+        }
+        return (int) due;
+    }
+
+    /**
+     * @return nanoseconds until the next step is due, as of the last call to advance()
+     */
+    public long getNanosUntilNextStep() {
+        return nanosPerStep - accumulator;
+    }
+
+    /**
+     * @return nanoseconds that have passed since the last step was due, as of the last call to advance()
+     */
+    public long getNanosSinceLastStep() {
+        return accumulator;
+    }
+
+    /**
+     * @return nanoseconds between two steps
+     */
+    public long getNanosPerStep() {
+        return nanosPerStep;
+    }
+
+    /**
+     * @return the number of steps per second that were actually taken, measured over about the last second
+     */
+    public double getMeasuredRate() {
+        return measuredRate;
+    }
+
+    /**
+     * @return how many nanoseconds after it was due the most recent step was taken
+     */
+    public long getLateness() {
+        return lateness;
+    }
+
+    /**
+     * @return the total number of steps that were skipped because too many were due at once
+     */
+    public long getSkippedSteps() {
+        return skippedSteps;
+    }
+}
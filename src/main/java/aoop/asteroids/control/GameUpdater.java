@@ -1,11 +1,18 @@
 package aoop.asteroids.control;
 
+import aoop.asteroids.control.collision.Broadphase;
+import aoop.asteroids.control.collision.BroadphaseType;
 import aoop.asteroids.model.game.*;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 /**
  * A runnable object which, when started in a thread, runs the main game loop and periodically updates the game's model
@@ -21,20 +28,11 @@ public class GameUpdater implements Runnable {
     private static final int DISPLAY_FPS = 30;
 
     /**
-     * The rate at which the game ticks (how often physics updates are applied), in frames per second. Increasing this
-     * number speeds up everything in the game. Ships react faster to input, bullets fly faster, etc.
+     * The number of milliseconds in a game tick, in games that tick at the default rate. The rate at which a game
+     * ticks (how often physics updates are applied) is part of its world. Increasing it speeds up everything in the
+     * game. Ships react faster to input, bullets fly faster, etc.
      */
-    private static final int PHYSICS_FPS = 30;
-
-    /**
-     * The number of milliseconds in a game tick.
-     */
-    public static final double MILLISECONDS_PER_TICK = 1000.0 / PHYSICS_FPS;
-
-    /**
-     * The default maximum number of asteroids that may be present in the game when starting.
-     */
-    private static final int ASTEROIDS_LIMIT_DEFAULT = 7;
+    public static final double MILLISECONDS_PER_TICK = 1000.0 / WorldConfig.DEFAULT_TICK_RATE;
 
     /**
      * Set this to true to allow asteroids to collide with each other, potentially causing chain reactions of asteroid
@@ -42,6 +40,12 @@ public class GameUpdater implements Runnable {
      */
     private static final boolean KESSLER_SYNDROME = true;
 
+    /**
+     * The maximum number of ticks that are performed at once when the game has fallen behind. Any ticks beyond this are
+     * skipped, so that a game that cannot keep up does not fall further and further behind.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
     /**
      * The game that this updater works for.
      */
@@ -59,44 +63,153 @@ public class GameUpdater implements Runnable {
     private int asteroidsLimit;
 
     /**
-     * Constructs a new game updater with the given game.
+     * Counts the number of asteroids destroyed since the game started.
+     */
+    private int destroyedAsteroids;
+
+    /**
+     * Finds the pairs of objects that are close enough to each other to be checked for collisions.
+     */
+    private final Broadphase broadphase;
+
+    /**
+     * Receives candidate pairs from the broadphase. Kept in a field so that no new handler is created every tick.
+     */
+    private final BiConsumer<GameObject, GameObject> pairHandler;
+
+    /**
+     * All objects that take part in collision checks during the current tick. Reused every tick.
+     */
+    private final ArrayList<GameObject> collidables;
+
+    /**
+     * Successors of the asteroids destroyed during the current tick. Reused every tick.
+     */
+    private final ArrayList<Asteroid> spawnedAsteroids;
+
+    /**
+     * Filters that remove destroyed objects and release them into the pools. Kept in fields so that they are not
+     * created again every tick.
+     */
+    private final Predicate<Asteroid> asteroidRecycler;
+    private final Predicate<Bullet> bulletRecycler;
+
+    /**
+     * Keep track of when the next game tick and the next display refresh are due.
+     */
+    private volatile FixedTimestep physicsTimestep;
+    private volatile FixedTimestep displayTimestep;
+
+    /**
+     * Performs one update and schedules the next, when the game loop runs on an executor.
+     */
+    private Runnable scheduledUpdate;
+
+    /**
+     * Constructs a new game updater with the given game, using the broadphase selected at startup, sized to the game's
+     * world.
      * @param game The game that this updater will update when it's running.
      */
     public GameUpdater(Game game) {
+        this(game, BroadphaseType.getDefault().create(game.getWorld().getWidth(), game.getWorld().getHeight()));
+    }
+
+    /**
+     * Constructs a new game updater with the given game and broadphase.
+     * @param game The game that this updater will update when it's running.
+     * @param broadphase The broadphase used to find pairs of objects that might collide.
+     */
+    public GameUpdater(Game game, Broadphase broadphase) {
         this.game = game;
         updateCounter = 0;
-        asteroidsLimit = ASTEROIDS_LIMIT_DEFAULT;
+        asteroidsLimit = game.getWorld().getAsteroidsLimit();
+        destroyedAsteroids = 0;
+        this.broadphase = broadphase;
+        pairHandler = this::resolveCollision;
+        collidables = new ArrayList<>();
+        spawnedAsteroids = new ArrayList<>();
+        asteroidRecycler = this::recycleIfDestroyed;
+        bulletRecycler = this::recycleIfDestroyed;
     }
 
     /**
      * The main game loop.
      * Starts the game updater thread. This will run until the quit() method is called on this updater's game object.
+     * Between ticks and display frames the thread is parked, so that a waiting game does not keep a processor busy.
      */
     @Override
     public void run() {
-        long previousTime = System.currentTimeMillis();
-        long timeSinceLastTick = 0L;
-        long timeSinceLastDisplayFrame = 0L;
+        start(System.nanoTime());
+        while (game.isRunning() && !game.isGameOver()) {
+            long waitTime = update(System.nanoTime());
+            if (waitTime > 0) LockSupport.parkNanos(this, waitTime); // Game.quit() interrupts, which unparks the thread.
+        }
+    }
 
-        final double millisecondsPerDisplayFrame = 1000.0 / DISPLAY_FPS;
+    /**
+     * Runs the game loop on the given executor instead of in a thread of its own, so that one pool of threads can tick
+     * many games. After every update, the next one is scheduled for when the next tick or display refresh is due, until
+     * the game quits.
+     * @param executor The executor that ticks the game.
+     */
+    public void runOn(ScheduledExecutorService executor) {
+        start(System.nanoTime());
+        scheduledUpdate = () -> {
+            if (!game.isRunning() || game.isGameOver()) return;
+            long waitTime = update(System.nanoTime());
+            executor.schedule(scheduledUpdate, Math.max(waitTime, 0L), TimeUnit.NANOSECONDS);
+        };
+        executor.schedule(scheduledUpdate, physicsTimestep.getNanosUntilNextStep(), TimeUnit.NANOSECONDS);
+    }
 
-        while (game.isRunning() && !game.isGameOver()) {
-            long currentTime = System.currentTimeMillis();
-            long elapsedTime = currentTime - previousTime;
-            timeSinceLastTick += elapsedTime;
-            timeSinceLastDisplayFrame += elapsedTime;
-
-            if (timeSinceLastTick >= MILLISECONDS_PER_TICK) { // Check if enough time has passed to update the physics.
-                updatePhysics(); // Perform one 'step' in the game.
-                timeSinceLastTick = 0L;
-            }
-            if (timeSinceLastDisplayFrame >= millisecondsPerDisplayFrame) { // Check if enough time has passed to refresh the display.
-                game.notifyListeners(timeSinceLastTick); // Tell the asteroids panel that it should refresh.
-                timeSinceLastDisplayFrame = 0L;
-            }
+    /**
+     * Prepares the timesteps of this updater, so that the first tick is due one tick from now.
+     * @param now current time, in nanoseconds as returned by {@link System#nanoTime()}
+     */
+    public void start(long now) {
+        physicsTimestep = new FixedTimestep(game.getWorld().getTickRate(), MAX_CATCH_UP_TICKS, now);
+        displayTimestep = new FixedTimestep(DISPLAY_FPS, 1, now);
+    }
 
-            previousTime = currentTime;
+    /**
+     * Performs all game ticks and display refreshes that are due at the given time. If the game has fallen behind, at
+     * most MAX_CATCH_UP_TICKS ticks are performed at once, and the rest is skipped.
+     * @param now current time, in nanoseconds as returned by {@link System#nanoTime()}
+     * @return the number of nanoseconds until the next tick or display refresh is due
+     */
+    public long update(long now) {
+        for (int ticks = physicsTimestep.advance(now); ticks > 0; ticks--) {
+            updatePhysics(now); // Perform one 'step' in the game.
+        }
+        if (displayTimestep.advance(now) > 0) {
+            // Tell the asteroids panel that it should refresh, and how far it is into the current tick.
+            game.notifyListeners(TimeUnit.NANOSECONDS.toMillis(physicsTimestep.getNanosSinceLastStep()));
         }
+        return Math.min(physicsTimestep.getNanosUntilNextStep(), displayTimestep.getNanosUntilNextStep());
+    }
+
+    /**
+     * @return the number of game ticks per second that were actually performed recently
+     */
+    public double getTickRate() {
+        FixedTimestep timestep = physicsTimestep;
+        return timestep == null ? 0.0 : timestep.getMeasuredRate();
+    }
+
+    /**
+     * @return how many nanoseconds after it was due the most recent game tick was performed
+     */
+    public long getTickLateness() {
+        FixedTimestep timestep = physicsTimestep;
+        return timestep == null ? 0L : timestep.getLateness();
+    }
+
+    /**
+     * @return the number of game ticks that were skipped because the game had fallen too far behind
+     */
+    public long getSkippedTicks() {
+        FixedTimestep timestep = physicsTimestep;
+        return timestep == null ? 0L : timestep.getSkippedSteps();
     }
 
     /**
@@ -106,26 +219,36 @@ public class GameUpdater implements Runnable {
      * Then, once all objects' positions are updated, we check for any collisions between them.
      * And finally, any objects which are destroyed by collisions are removed from the game.
      * Also, every 200 game ticks, if possible, a new random asteroid is added to the game.
+     * Finally, a snapshot of the new state is published for the view and the network.
+     *
+     * A client only moves its own spaceship, to predict it between the snapshots of the server, which has all other
+     * objects. Its bullets are left to the server too. A client or spectator shows the snapshots it received from the
+     * server, interpolated to the given time.
+     * @param now current time, in nanoseconds as returned by {@link System#nanoTime()}
      */
-    private void updatePhysics() {
+    private void updatePhysics(long now) {
         Collection<Bullet> bullets = game.getBullets();
         Collection<Asteroid> asteroids = game.getAsteroids();
         Collection<Spaceship> spaceships = game.getSpaceships();
-        asteroids.forEach(GameObject::nextStep);
-        bullets.forEach(GameObject::nextStep);
+        boolean predicting = game.isClient() && game.getSpaceship() != null;
+        if (predicting) game.getPrediction().beforeStep(game);
+        step(asteroids);
+        step(bullets);
         if (!game.isAsteroidsOnly() && !game.isSpectate()) {
-            spaceships.forEach(ship -> {
-                ship.nextStep();
+            for (Spaceship ship: spaceships) {
+                ship.nextStep(game.getWorld());
                 if (ship.canFireWeapon()) {
                     double direction = ship.getDirection();
-                    bullets.add(new Bullet(
-                            ship.getLocation().getX(),
-                            ship.getLocation().getY(),
-                            ship.getVelocity().x + Math.sin(direction) * 15,
-                            ship.getVelocity().y - Math.cos(direction) * 15));
+                    if (!game.isClient()) {
+                        bullets.add(game.getBulletPool().acquire().reinitialise(
+                                ship.getLocation().getX(),
+                                ship.getLocation().getY(),
+                                ship.getVelocity().x + Math.sin(direction) * 15,
+                                ship.getVelocity().y - Math.cos(direction) * 15));
+                    }
                     ship.setFired();
                 }
-            });
+            }
         }
         if (!game.isSpectate()) {
             checkCollisions();
@@ -137,6 +260,20 @@ public class GameUpdater implements Runnable {
         }
         updateCounter++;
         game.setLastLocalTick(updateCounter);
+        if (game.isClient() || game.isSpectate()) game.getInterpolation().publish(game, now);
+        else game.getSnapshots().publish(game);
+    }
+
+    /**
+     * Moves all given objects one step. Objects in an entity store are moved by the store in one go.
+     * @param objects to be moved
+     */
+    private void step(Collection<? extends GameObject> objects) {
+        if (objects instanceof EntityStore) {
+            ((EntityStore<?>) objects).stepAll(game.getWorld());
+        } else {
+            for (GameObject object: objects) object.nextStep(game.getWorld());
+        }
     }
 
     /**
@@ -145,7 +282,7 @@ public class GameUpdater implements Runnable {
     private void addRandomAsteroid() {
         Point.Double newAsteroidLocation = findAsteroidPoint();
         if (newAsteroidLocation == null) return;
-        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        SplittableRandom rng = game.getRandom();
         double randomChance = rng.nextDouble();
         Point.Double randomVelocity = new Point.Double(rng.nextDouble() * 6 - 3, rng.nextDouble() * 6 - 3);
         AsteroidSize randomSize;
@@ -156,7 +293,8 @@ public class GameUpdater implements Runnable {
         } else { // And finally a 33% chance of spawning a small asteroid.
             randomSize = AsteroidSize.SMALL;
         }
-        game.getAsteroids().add(new Asteroid(newAsteroidLocation, randomVelocity, randomSize));
+        game.getAsteroids().add(game.getAsteroidPool().acquire().reinitialise(newAsteroidLocation.x,
+                newAsteroidLocation.y, randomVelocity.x, randomVelocity.y, randomSize));
     }
 
     /**
@@ -164,13 +302,14 @@ public class GameUpdater implements Runnable {
      * @return point where asteroid can spawn
      */
     private Point.Double findAsteroidPoint() {
-        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        SplittableRandom rng = game.getRandom();
         Point.Double newAsteroidLocation;
         double distanceX, distanceY;
         int i = 10;
         boolean success;
         while (i > 0) { // Iterate until a point is found that is far enough away from the player.
-            newAsteroidLocation = new Point.Double(rng.nextDouble(0.0, 800.0), rng.nextDouble(0.0, 800.0));
+            newAsteroidLocation = new Point.Double(rng.nextDouble(0.0, game.getWorld().getWidth()),
+                    rng.nextDouble(0.0, game.getWorld().getHeight()));
             success = true;
             for (Spaceship ship: game.getSpaceships()) {
                 distanceX = newAsteroidLocation.x - ship.getLocation().x;
@@ -190,52 +329,46 @@ public class GameUpdater implements Runnable {
     /**
      * Checks all objects for collisions and marks them as destroyed upon collision. All objects can collide with
      * objects of a different type, but not with objects of the same type. I.e. bullets cannot collide with bullets etc.
+     * The only exception are asteroids, which collide with each other if we allow kessler syndrome.
+     *
+     * Instead of testing every object against every other one, the broadphase only hands over pairs of objects that are
+     * close enough to each other to possibly collide.
      */
     private void checkCollisions() {
-        // First check collisions between bullets and other objects.
-        game.getBullets().forEach(bullet -> {
-            game.getAsteroids().forEach(asteroid -> { // Check collision with any of the asteroids.
-                if (asteroid.collides(bullet)) {
-                    asteroid.destroy();
-                    bullet.destroy();
-                }
-            });
-            if (!game.isAsteroidsOnly()) {
-                game.getSpaceships().forEach(ship -> {
-                    if (ship.collides(bullet)) { // Check collision with ships.
-                        bullet.destroy();
-                        ship.destroy();
-                    }
-                });
-            }
-        });
-        // Next check for collisions between asteroids and the spaceship.
-        game.getAsteroids().forEach(asteroid -> {
-            if (!game.isAsteroidsOnly()) {
-                game.getSpaceships().forEach(ship -> {
-                    if (asteroid.collides(ship)) { // Check collision with ships.
-                        asteroid.destroy();
-                        ship.destroy();
-                    }
-                });
-            }
-            if (KESSLER_SYNDROME) { // Only check for asteroid - asteroid collisions if we allow kessler syndrome.
-                game.getAsteroids().forEach(secondAsteroid -> {
-                    if (!asteroid.equals(secondAsteroid) && asteroid.collides(secondAsteroid)) {
-                        asteroid.destroy();
-                        secondAsteroid.destroy();
-                    }
-                });
-            }
-        });
+        collidables.clear();
+        for (Bullet bullet: game.getBullets()) collidables.add(bullet);
+        for (Asteroid asteroid: game.getAsteroids()) collidables.add(asteroid);
+        if (!game.isAsteroidsOnly()) {
+            for (Spaceship ship: game.getSpaceships()) collidables.add(ship);
+        }
+        broadphase.findPairs(collidables, pairHandler);
+        collidables.clear();
+    }
+
+    /**
+     * Destroys both objects of a candidate pair, if they are of types that can collide and they actually collide.
+     * @param first object of the pair
+     * @param second object of the pair
+     */
+    private void resolveCollision(GameObject first, GameObject second) {
+        if (first.getClass() == second.getClass()) {
+            // Only check for asteroid - asteroid collisions if we allow kessler syndrome.
+            if (!KESSLER_SYNDROME || !(first instanceof Asteroid)) return;
+        }
+        if (first.collides(second)) {
+            first.destroy();
+            second.destroy();
+        }
     }
 
     /**
-     * Increment the player's score, and for every five score points, the asteroids limit is incremented.
+     * Increment the player's score, if there is a local player, and for every five destroyed asteroids, the asteroids
+     * limit is incremented, up to the maximum limit of the game's world.
      */
     private void increaseScore() {
-        game.getSpaceship().increaseScore();
-        if (game.getSpaceship().getScore() % 5 == 0) {
+        if (game.getSpaceship() != null) game.getSpaceship().increaseScore();
+        destroyedAsteroids++;
+        if (destroyedAsteroids % 5 == 0 && asteroidsLimit < game.getWorld().getMaxAsteroidsLimit()) {
             asteroidsLimit++;
         }
     }
@@ -243,21 +376,44 @@ public class GameUpdater implements Runnable {
     /**
      * Removes all destroyed objects (those which have collided with another object).
      * When an asteroid is destroyed, it may spawn some smaller successor asteroids, and these are added to the game's
-     * list of asteroids.
+     * list of asteroids. Destroyed objects are released into the game's pools, from which new objects are taken.
      */
     private void removeDestroyedObjects() {
-        // Avoid reallocation and assume every asteroid spawns successors.
-        Collection<Asteroid> newAsteroids = new ArrayList<>(game.getAsteroids().size() * 2);
-        game.getAsteroids().forEach(asteroid -> {
+        for (Asteroid asteroid: game.getAsteroids()) {
             if (asteroid.isDestroyed()) {
                 increaseScore();
-                newAsteroids.addAll(asteroid.getSuccessors());
+                asteroid.addSuccessors(spawnedAsteroids, game.getAsteroidPool(), game.getRandom());
             }
-        });
-        game.getAsteroids().addAll(newAsteroids);
+        }
         // Remove all asteroids that are destroyed.
-        game.getAsteroids().removeIf(GameObject::isDestroyed);
+        game.getAsteroids().removeIf(asteroidRecycler);
+        for (int i = 0; i < spawnedAsteroids.size(); i++) {
+            game.getAsteroids().add(spawnedAsteroids.get(i));
+        }
+        spawnedAsteroids.clear();
         // Remove any bullets that are destroyed.
-        game.getBullets().removeIf(GameObject::isDestroyed);
+        game.getBullets().removeIf(bulletRecycler);
+    }
+
+    /**
+     * Releases an asteroid into the pool if it is destroyed.
+     * @param asteroid to be checked
+     * @return true if the asteroid is destroyed, and should be removed from the game
+     */
+    private boolean recycleIfDestroyed(Asteroid asteroid) {
+        if (!asteroid.isDestroyed()) return false;
+        game.getAsteroidPool().release(asteroid);
+        return true;
+    }
+
+    /**
+     * Releases a bullet into the pool if it is destroyed.
+     * @param bullet to be checked
+     * @return true if the bullet is destroyed, and should be removed from the game
+     */
+    private boolean recycleIfDestroyed(Bullet bullet) {
+        if (!bullet.isDestroyed()) return false;
+        game.getBulletPool().release(bullet);
+        return true;
     }
 }
@@ -0,0 +1,25 @@
+package aoop.asteroids.control.collision;
+
+import aoop.asteroids.model.game.GameObject;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The first phase of collision detection, which narrows all possible pairs of objects down to those that are close
+ * enough to each other to possibly collide. Whether such a pair really collides is decided by the caller, so any
+ * implementation may report more pairs than necessary, but never fewer.
+ *
+ * Implementations differ a lot in how well they deal with different amounts and densities of objects, which is why the
+ * game engine can be started with any of them, see {@link BroadphaseType}.
+ */
+public interface Broadphase {
+
+    /**
+     * Reports every pair of objects which are close enough to each other that they might collide. Every such pair is
+     * reported exactly once, and an object is never paired with itself.
+     * @param candidates objects to be checked, in no particular order
+     * @param handler called once for every candidate pair
+     */
+    void findPairs(List<? extends GameObject> candidates, BiConsumer<GameObject, GameObject> handler);
+}
@@ -0,0 +1,51 @@
+package aoop.asteroids.control.collision;
+
+/**
+ * This enumeration defines the different broadphase strategies that the game engine can be started with. Which one is
+ * the fastest depends on the game: few objects favour brute force, many evenly spread objects favour the grid, and the
+ * sweep works well for objects that are mostly spread out along the x-axis.
+ *
+ * The strategy is picked with the system property {@value #PROPERTY}, e.g. -Dasteroids.broadphase=SWEEP_AND_PRUNE.
+ */
+public enum BroadphaseType {
+
+    BRUTE_FORCE,
+    UNIFORM_GRID,
+    SWEEP_AND_PRUNE;
+
+    /**
+     * The system property that selects the broadphase.
+     */
+    public static final String PROPERTY = "asteroids.broadphase";
+
+    /**
+     * Creates a new broadphase of this type.
+     * @param worldWidth width of the world the broadphase is used in
+     * @param worldHeight height of the world the broadphase is used in
+     * @return new broadphase
+     */
+    public Broadphase create(double worldWidth, double worldHeight) {
+        switch (this) {
+            case BRUTE_FORCE:
+                return new BruteForceBroadphase();
+            case SWEEP_AND_PRUNE:
+                return new SweepAndPruneBroadphase();
+            default:
+                return new UniformGridBroadphase(worldWidth, worldHeight);
+        }
+    }
+
+    /**
+     * @return the broadphase selected by the system property, or the uniform grid if none or an unknown one is selected
+     */
+    public static BroadphaseType getDefault() {
+        String name = System.getProperty(PROPERTY);
+        if (name != null) {
+            for (BroadphaseType type: values()) {
+                if (type.name().equalsIgnoreCase(name.trim())) return type;
+            }
+            System.out.println("Unknown broadphase " + name + ", using " + UNIFORM_GRID);
+        }
+        return UNIFORM_GRID;
+    }
+}
@@ -0,0 +1,29 @@
+package aoop.asteroids.control.collision;
+
+import aoop.asteroids.model.game.GameObject;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The simplest possible broadphase, which reports every pair of objects. This has no overhead at all, which makes it the
+ * fastest option for games with only a handful of objects.
+ */
+public class BruteForceBroadphase implements Broadphase {
+
+    /**
+     * Reports all pairs of the given objects.
+     * @param candidates objects to be checked, in no particular order
+     * @param handler called once for every pair
+     */
+    @Override
+    public void findPairs(List<? extends GameObject> candidates, BiConsumer<GameObject, GameObject> handler) {
+        int count = candidates.size();
+        for (int i = 0; i < count; i++) {
+            GameObject first = candidates.get(i);
+            for (int j = i + 1; j < count; j++) {
+                handler.accept(first, candidates.get(j));
+            }
+        }
+    }
+}
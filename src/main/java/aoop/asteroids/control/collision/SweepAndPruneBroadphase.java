@@ -0,0 +1,149 @@
+package aoop.asteroids.control.collision;
+
+import aoop.asteroids.model.game.GameObject;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A broadphase that sorts all objects by the left edge of their bounding box and then sweeps along the x-axis, only
+ * reporting pairs whose bounding boxes overlap.
+ *
+ * The sorted order is kept from one call to the next. Objects move only a little bit every tick, so the order hardly
+ * changes, and an insertion sort brings it up to date again in nearly linear time. Objects that are new to this call are
+ * appended at the end and sorted into place, while objects that are no longer present are dropped.
+ *
+ * Bounding boxes are not wrapped around the edges of the world, in the same way that the collision test itself does not
+ * wrap around them.
+ */
+public class SweepAndPruneBroadphase implements Broadphase {
+
+    /**
+     * The objects sorted by the left edge of their bounding box, as of the last call.
+     */
+    private GameObject[] order;
+
+    /**
+     * The left and right edges of the bounding boxes, at the same positions as the objects in order.
+     */
+    private double[] minX;
+    private double[] maxX;
+
+    /**
+     * The number of objects in order.
+     */
+    private int size;
+
+    /**
+     * The objects of the current call, and those of the previous call which are still present. Both are reused.
+     */
+    private final Set<GameObject> present;
+    private final Set<GameObject> kept;
+
+    /**
+     * Constructs a new broadphase without any previous order.
+     */
+    public SweepAndPruneBroadphase() {
+        order = new GameObject[0];
+        minX = new double[0];
+        maxX = new double[0];
+        size = 0;
+        present = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Reports every pair of objects whose bounding boxes overlap.
+     * @param candidates objects to be checked, in no particular order
+     * @param handler called once for every candidate pair
+     */
+    @Override
+    public void findPairs(List<? extends GameObject> candidates, BiConsumer<GameObject, GameObject> handler) {
+        updateOrder(candidates);
+        sort();
+        for (int i = 0; i < size; i++) {
+            GameObject first = order[i];
+            for (int j = i + 1; j < size && minX[j] <= maxX[i]; j++) {
+                GameObject second = order[j];
+                double distanceY = Math.abs(first.getLocationY() - second.getLocationY());
+                if (distanceY <= first.getRadius() + second.getRadius()) {
+                    handler.accept(first, second);
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the list of objects up to date with the current candidates, keeping the previous order of the objects
+     * which are still there.
+     * @param candidates objects of the current call
+     */
+    private void updateOrder(List<? extends GameObject> candidates) {
+        int count = candidates.size();
+        present.clear();
+        for (int i = 0; i < count; i++) {
+            present.add(candidates.get(i));
+        }
+        kept.clear();
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (present.contains(order[i])) {
+                order[newSize++] = order[i];
+                kept.add(order[i]);
+            }
+        }
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            GameObject candidate = candidates.get(i);
+            if (kept.add(candidate)) order[newSize++] = candidate;
+        }
+        for (int i = newSize; i < size; i++) {
+            order[i] = null;
+        }
+        size = newSize;
+        present.clear();
+        kept.clear();
+    }
+
+    /**
+     * Recomputes the bounding boxes and sorts the objects by their left edge using an insertion sort, which is very fast
+     * for lists that are already almost sorted.
+     */
+    private void sort() {
+        for (int i = 0; i < size; i++) {
+            minX[i] = order[i].getLocationX() - order[i].getRadius();
+        }
+        for (int i = 1; i < size; i++) {
+            GameObject object = order[i];
+            double key = minX[i];
+            int j = i - 1;
+            while (j >= 0 && minX[j] > key) {
+                order[j + 1] = order[j];
+                minX[j + 1] = minX[j];
+                j--;
+            }
+            order[j + 1] = object;
+            minX[j + 1] = key;
+        }
+        for (int i = 0; i < size; i++) {
+            maxX[i] = order[i].getLocationX() + order[i].getRadius();
+        }
+    }
+
+    /**
+     * Grows the arrays so that they can hold at least the given number of objects, keeping the current order.
+     * @param count number of objects
+     */
+    private void ensureCapacity(int count) {
+        if (order.length >= count) return;
+        int capacity = Math.max(count, order.length * 2);
+        GameObject[] newOrder = new GameObject[capacity];
+        System.arraycopy(order, 0, newOrder, 0, order.length);
+        order = newOrder;
+        minX = new double[capacity];
+        maxX = new double[capacity];
+    }
+}
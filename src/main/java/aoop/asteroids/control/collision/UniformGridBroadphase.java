@@ -0,0 +1,210 @@
+package aoop.asteroids.control.collision;
+
+import aoop.asteroids.model.game.AsteroidSize;
+import aoop.asteroids.model.game.GameObject;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A broadphase that sorts all objects into a uniform grid laid over the (toroidal) world, and only reports pairs of
+ * objects that share a cell or lie in neighbouring cells. Cells are at least as wide as the largest possible sum of two
+ * radii, so any two objects that can collide are guaranteed to end up in the same or in adjacent cells.
+ *
+ * Objects wrap around the edges of the world in {@link GameObject#nextStep()}, so the grid wraps as well: the last
+ * column is a neighbour of the first one, and the same goes for rows. Every candidate pair is reported exactly once, and
+ * an object is never paired with itself. The actual collision test is left to the caller.
+ *
+ * All internal arrays are reused between calls, so once they have grown to fit the game, building the grid does not
+ * allocate any memory.
+ */
+public class UniformGridBroadphase implements Broadphase {
+
+    /**
+     * Offsets of the neighbouring cells that are visited from each cell. Only half of the eight neighbours are needed,
+     * since the other half visit this cell in turn, which is what makes every pair show up only once.
+     */
+    private static final int[][] HALF_NEIGHBOURHOOD = {{1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+
+    /**
+     * The smallest cell size that is used, which fits two of the largest asteroids touching each other.
+     */
+    private static final double MINIMUM_CELL_SIZE = 2 * largestAsteroidRadius();
+
+    private final double worldWidth;
+    private final double worldHeight;
+
+    private double layoutCellSize;
+    private int columns;
+    private int rows;
+    private double cellWidth;
+    private double cellHeight;
+
+    /**
+     * The objects of the current query, the cell that each of them is in, and the objects sorted by cell. cellStart[c]
+     * is the position in sortedObjects where the objects of cell c begin.
+     */
+    private GameObject[] objects;
+    private int[] objectCells;
+    private int[] sortedObjects;
+    private int[] cellStart;
+
+    /**
+     * Constructs a new grid for a world of the given size.
+     * @param worldWidth width of the world, after which objects wrap around to the left edge
+     * @param worldHeight height of the world, after which objects wrap around to the top edge
+     */
+    public UniformGridBroadphase(double worldWidth, double worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        objects = new GameObject[0];
+        objectCells = new int[0];
+        sortedObjects = new int[0];
+        cellStart = new int[0];
+        resize(MINIMUM_CELL_SIZE);
+    }
+
+    /**
+     * Reports every pair of objects that share a cell or lie in neighbouring cells.
+     * @param candidates objects to be checked, in no particular order
+     * @param handler called once for every candidate pair
+     */
+    @Override
+    public void findPairs(List<? extends GameObject> candidates, BiConsumer<GameObject, GameObject> handler) {
+        int count = candidates.size();
+        ensureCapacity(count);
+        double largestRadius = 0;
+        for (int i = 0; i < count; i++) {
+            objects[i] = candidates.get(i);
+            largestRadius = Math.max(largestRadius, objects[i].getRadius());
+        }
+        // Anything bigger than the largest asteroid needs coarser cells to keep the neighbourhood guarantee.
+        double requiredCellSize = Math.max(MINIMUM_CELL_SIZE, 2 * largestRadius);
+        if (requiredCellSize != layoutCellSize) resize(requiredCellSize);
+        sortIntoCells(count);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                reportPairsWithinCell(cell, handler);
+                if (columns == 1) continue;
+                for (int[] offset: HALF_NEIGHBOURHOOD) {
+                    int neighbour = Math.floorMod(row + offset[1], rows) * columns
+                            + Math.floorMod(column + offset[0], columns);
+                    reportPairsBetweenCells(cell, neighbour, handler);
+                }
+            }
+        }
+        // Don't keep objects alive that may already have been removed from the game.
+        for (int i = 0; i < count; i++) {
+            objects[i] = null;
+        }
+    }
+
+    /**
+     * Sorts the first count objects by their cell, using a counting sort.
+     * @param count number of objects to sort
+     */
+    private void sortIntoCells(int count) {
+        int cells = columns * rows;
+        for (int c = 0; c <= cells; c++) {
+            cellStart[c] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            objectCells[i] = cellOf(objects[i]);
+            cellStart[objectCells[i] + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        // Fill each cell from its end backwards, so cellStart ends up pointing at the first object of each cell again.
+        for (int c = 0; c < cells; c++) {
+            cellStart[c] = cellStart[c + 1];
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            sortedObjects[--cellStart[objectCells[i]]] = i;
+        }
+        cellStart[cells] = count;
+    }
+
+    /**
+     * Reports all pairs of objects that are both in the given cell.
+     * @param cell index of the cell
+     * @param handler receiver of the pairs
+     */
+    private void reportPairsWithinCell(int cell, BiConsumer<GameObject, GameObject> handler) {
+        int end = cellStart[cell + 1];
+        for (int i = cellStart[cell]; i < end; i++) {
+            for (int j = i + 1; j < end; j++) {
+                handler.accept(objects[sortedObjects[i]], objects[sortedObjects[j]]);
+            }
+        }
+    }
+
+    /**
+     * Reports all pairs of objects of which one is in the first cell and the other in the second one.
+     * @param first index of the first cell
+     * @param second index of the second cell
+     * @param handler receiver of the pairs
+     */
+    private void reportPairsBetweenCells(int first, int second, BiConsumer<GameObject, GameObject> handler) {
+        int firstEnd = cellStart[first + 1];
+        int secondEnd = cellStart[second + 1];
+        for (int i = cellStart[first]; i < firstEnd; i++) {
+            for (int j = cellStart[second]; j < secondEnd; j++) {
+                handler.accept(objects[sortedObjects[i]], objects[sortedObjects[j]]);
+            }
+        }
+    }
+
+    /**
+     * Finds the cell of an object. Locations outside of the world are wrapped around the same way nextStep() does.
+     * @param object to be located
+     * @return index of the cell the object is in
+     */
+    private int cellOf(GameObject object) {
+        int column = Math.floorMod((int) Math.floor(object.getLocationX() / cellWidth), columns);
+        int row = Math.floorMod((int) Math.floor(object.getLocationY() / cellHeight), rows);
+        return row * columns + column;
+    }
+
+    /**
+     * Splits the world into as many cells as possible, with each cell being at least the given size. With fewer than
+     * three cells along an axis the neighbourhoods would overlap, so such grids fall back to a single cell.
+     * @param minimumCellSize smallest allowed width and height of a cell
+     */
+    private void resize(double minimumCellSize) {
+        layoutCellSize = minimumCellSize;
+        columns = Math.max(1, (int) (worldWidth / minimumCellSize));
+        rows = Math.max(1, (int) (worldHeight / minimumCellSize));
+        if (columns < 3 || rows < 3) {
+            columns = 1;
+            rows = 1;
+        }
+        cellWidth = worldWidth / columns;
+        cellHeight = worldHeight / rows;
+        if (cellStart.length < columns * rows + 1) cellStart = new int[columns * rows + 1];
+    }
+
+    /**
+     * Grows the per-object arrays so that they can hold at least the given number of objects.
+     * @param count number of objects
+     */
+    private void ensureCapacity(int count) {
+        if (objects.length >= count) return;
+        int capacity = Math.max(count, objects.length * 2);
+        objects = new GameObject[capacity];
+        objectCells = new int[capacity];
+        sortedObjects = new int[capacity];
+    }
+
+    /**
+     * @return radius of the largest asteroid size
+     */
+    private static double largestAsteroidRadius() {
+        double radius = 0;
+        for (AsteroidSize size: AsteroidSize.values()) {
+            radius = Math.max(radius, size.getRadius());
+        }
+        return radius;
+    }
+}
@@ -50,6 +50,8 @@ public abstract class ObservableGame {
 	 *                          actual physics update has been done by the game engine.
 	 */
 	public void notifyListeners(long timeSinceLastTick) {
-		listeners.forEach(listener -> listener.onGameUpdated(timeSinceLastTick));
+		for (int i = 0; i < listeners.size(); i++) { // A plain loop, since a lambda would be created on every call.
+			listeners.get(i).onGameUpdated(timeSinceLastTick);
+		}
 	}
 }
@@ -0,0 +1,105 @@
+package aoop.asteroids.model.game;
+
+/**
+ * The part of the world that a client of a large world is sent, which is either a circle around its spaceship or, for a
+ * spectator, a fixed rectangle of the world that it chose to watch. The objects in the area are selected from an
+ * {@link InterestGrid} into a snapshot of their own, which the server sends to the client instead of the whole world.
+ * Objects that come into the area show up in the difference with the previous selection as new objects, and objects
+ * that leave it as removed ones.
+ *
+ * An area is used by one thread at a time, which is the thread that ticks the game of its room or a thread that it
+ * handed the area to.
+ */
+public class AreaOfInterest {
+
+	/**
+	 * The id of the spaceship that the area follows, or -1 if the area does not move.
+	 */
+	private final int shipID;
+
+	/**
+	 * Half the size of the area along each axis, or its radius along both if it is round.
+	 */
+	private final double halfWidth;
+	private final double halfHeight;
+	private final boolean round;
+
+	/**
+	 * The centre of the area, which is where the spaceship was last seen if the area follows one.
+	 */
+	private double centreX;
+	private double centreY;
+
+	/**
+	 * The objects selected last, reused for every selection.
+	 */
+	private final WorldSnapshot selection;
+
+	/**
+	 * The indices of the objects found by the last selection, so that areas can be selected from the same grid at the
+	 * same time.
+	 */
+	private int[] found;
+
+	/**
+	 * Constructs a new area around a spaceship.
+	 * @param shipID The id of the spaceship.
+	 * @param radius The distance from the spaceship up to which objects are selected.
+	 */
+	public AreaOfInterest(int shipID, double radius) {
+		this(shipID, 0.0, 0.0, radius, radius, true);
+	}
+
+	/**
+	 * Constructs a new area of a fixed part of the world.
+	 * @param left The left of the area.
+	 * @param top The top of the area.
+	 * @param width The width of the area.
+	 * @param height The height of the area.
+	 */
+	public AreaOfInterest(double left, double top, double width, double height) {
+		this(-1, left + width / 2, top + height / 2, width / 2, height / 2, false);
+	}
+
+	/**
+	 * Constructs a new area.
+	 * @param shipID The id of the spaceship that the area follows, or -1.
+	 * @param centreX The x coordinate of the centre of the area.
+	 * @param centreY The y coordinate of the centre of the area.
+	 * @param halfWidth Half the width of the area, or its radius if it is round.
+	 * @param halfHeight Half the height of the area, or its radius if it is round.
+	 * @param round Whether the area is a circle.
+	 */
+	private AreaOfInterest(int shipID, double centreX, double centreY, double halfWidth, double halfHeight,
+						   boolean round) {
+		if (halfWidth < 0 || halfHeight < 0) throw new IllegalArgumentException("The area must not be negative");
+		this.shipID = shipID;
+		this.centreX = centreX;
+		this.centreY = centreY;
+		this.halfWidth = halfWidth;
+		this.halfHeight = halfHeight;
+		this.round = round;
+		selection = new WorldSnapshot();
+		found = new int[0];
+	}
+
+	/**
+	 * Selects the objects in the area from the snapshot that a grid was built from, after moving the area to where the
+	 * spaceship it follows is in that snapshot.
+	 * @param grid The grid, built from the newest snapshot.
+	 * @return A snapshot with only the selected objects, which is overwritten by the next selection.
+	 */
+	public WorldSnapshot select(InterestGrid grid) {
+		WorldSnapshot snapshot = grid.getSnapshot();
+		if (shipID >= 0) {
+			int i = snapshot.indexOfShip(shipID);
+			if (i >= 0) {
+				centreX = snapshot.getShipX(i);
+				centreY = snapshot.getShipY(i);
+			}
+		}
+		if (found.length < grid.getLargestCount()) found = new int[grid.getLargestCount()];
+		grid.select(centreX, centreY, halfWidth, halfHeight, round, selection, found);
+		return selection;
+	}
+}
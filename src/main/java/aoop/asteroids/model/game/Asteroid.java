@@ -1,9 +1,11 @@
 package aoop.asteroids.model.game;
 
+import aoop.asteroids.util.ObjectPool;
+
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 /**
  * An asteroid is the object which can be destroyed by bullets, but also will destroy a player's ship if the two
@@ -21,7 +23,7 @@ public class Asteroid extends GameObject {
 	/**
 	 * The size of this asteroid.
 	 */
-	private final AsteroidSize size;
+	private AsteroidSize size;
 
     /**
      * Constructs a new asteroid at the specified location, with specified velocities in both X and Y direction and the
@@ -60,32 +62,82 @@ public class Asteroid extends GameObject {
 		}
 	}
 
+	/**
+	 * Reinitialises a reused asteroid with the given location, velocity and size.
+	 * @param locationX The location of this asteroid on the x-axis.
+	 * @param locationY The location of this asteroid on the y-axis.
+	 * @param velocityX velocity of the asteroid as projected on the X-axis.
+	 * @param velocityY velocity of the asteroid as projected on the Y-axis.
+	 * @param size The size of the asteroid.
+	 * @return this asteroid
+	 */
+	public Asteroid reinitialise(double locationX, double locationY, double velocityX, double velocityY,
+								 AsteroidSize size) {
+		reinitialise(locationX, locationY, velocityX, velocityY, (int) size.getRadius());
+		this.size = size;
+		return this;
+	}
+
 	/**
 	 * Generates some asteroids that spawn as a result of the destruction of this asteroid. Some sizes of asteroids may
 	 * not produce any successors because they're too small.
+	 * @param rng The generator of the game, from which the random speed adjustments are taken.
 	 * @return A collection of the successors.
 	 */
-	public Collection<Asteroid> getSuccessors() {
+	public Collection<Asteroid> getSuccessors(SplittableRandom rng) {
 		Collection<Asteroid> successors = new ArrayList<>(2); // Initialize the array to a fixed capacity to improve performance.
 		AsteroidSize successorSize = size.getSuccessorSize();
 		if (successorSize != null) {
-			successors.add(generateSuccessor());
-			successors.add(generateSuccessor());
+			successors.add(generateSuccessor(rng));
+			successors.add(generateSuccessor(rng));
 		}
 		return successors;
 	}
 
+	/**
+	 * Like {@link #getSuccessors(SplittableRandom)}, but takes the successors from a pool and adds them to the given
+	 * collection, so that no new objects are needed.
+	 * @param successors The collection that the successors are added to.
+	 * @param pool The pool that the successors are taken from.
+	 * @param rng The generator of the game, from which the random speed adjustments are taken.
+	 */
+	public void addSuccessors(Collection<Asteroid> successors, ObjectPool<Asteroid> pool, SplittableRandom rng) {
+		AsteroidSize successorSize = size.getSuccessorSize();
+		if (successorSize != null) {
+			successors.add(generateSuccessor(pool.acquire(), rng));
+			successors.add(generateSuccessor(pool.acquire(), rng));
+		}
+	}
+
+	/**
+	 * Reinitialises the given asteroid as a successor of this one. The successor is at the same location as the current
+	 * one, and is one size smaller. Its velocity is set to the current asteroid's velocity, with some random speed
+	 * adjustments.
+	 * @param successor The asteroid to be reinitialised, which must not be this asteroid itself.
+	 * @param rng The generator from which the random speed adjustments are taken.
+	 * @return The successor.
+	 */
+	private Asteroid generateSuccessor(Asteroid successor, SplittableRandom rng) {
+		return successor.reinitialise(
+				getLocation().getX(),
+				getLocation().getY(),
+				getVelocity().getX() + rng.nextDouble(-SUCCESSOR_VELOCITY_DIFFERENCE, SUCCESSOR_VELOCITY_DIFFERENCE),
+				getVelocity().getY() + rng.nextDouble(-SUCCESSOR_VELOCITY_DIFFERENCE, SUCCESSOR_VELOCITY_DIFFERENCE),
+				size.getSuccessorSize()
+		);
+	}
+
 	/**
 	 * Generates a new asteroid that should be spawned when this one is destroyed.
 	 * The asteroid is created at the same location as the current one, and is one size smaller. The new asteroid's
 	 * velocity is set to the current asteroid's velocity, with some random speed adjustments.
+	 * @param rng The generator from which the random speed adjustments are taken.
 	 * @return A newly created asteroid, if the size of this asteroid allows for successors. Otherwise null.
 	 */
-	private Asteroid generateSuccessor() {
+	private Asteroid generateSuccessor(SplittableRandom rng) {
 		if (size.getSuccessorSize() == null) {
 			return null;
 		}
-		ThreadLocalRandom rng = ThreadLocalRandom.current();
 		return new Asteroid(
 				getLocation(),
 				new Point.Double(
@@ -96,6 +148,13 @@ public class Asteroid extends GameObject {
 		);
 	}
 
+	/**
+	 * @return The size of this asteroid.
+	 */
+	public AsteroidSize getSize() {
+		return size;
+	}
+
 	/**
 	 * @return The number of steps, or game ticks, for which this object is immune from collisions.
 	 */
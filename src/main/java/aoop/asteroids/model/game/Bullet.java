@@ -60,14 +60,30 @@ public class Bullet extends GameObject {
 		this.stepsLeft = stepsLeft;
 	}
 
+	/**
+	 * Reinitialises a reused bullet with the given location and velocity, and the default number of steps until the
+	 * bullet is destroyed.
+	 * @param locationX The location of this bullet on the x-axis.
+	 * @param locationY The location of this bullet on the y-axis.
+	 * @param velocityX velocity of the bullet as projected on the X-axis.
+	 * @param velocityY velocity of the bullet as projected on the Y-axis.
+	 * @return this bullet
+	 */
+	public Bullet reinitialise(double locationX, double locationY, double velocityX, double velocityY) {
+		reinitialise(locationX, locationY, velocityX, velocityY, 0);
+		stepsLeft = DEFAULT_BULLET_STEP_LIFETIME;
+		return this;
+	}
+
 	/**
 	 * Updates the bullet. First calls the parent's nextStep() method to update the object's location, and specifically
 	 * for the bullet class, there is a lifetime to the bullet, indicated by the number of steps left until it should be
 	 * destroyed. At each step, this value is decremented, and once it reaches zero, the bullet is destroyed.
 	 */
 	@Override
-	public void nextStep () {
-		super.nextStep();
+	public void nextStep(WorldConfig world) {
+		super.nextStep(world);
+		if (isStored()) return; // The entity store keeps track of the lifetime of stored bullets.
 		stepsLeft--;
 		if (stepsLeft <= 0) {
 			destroy();
@@ -86,6 +102,27 @@ public class Bullet extends GameObject {
 	 * @return stepsLeft
 	 */
 	public int getStepsLeft() {
+		if (isStored()) return getStore().stepsLeft[getSlot()];
 		return stepsLeft;
 	}
+
+	/**
+	 * Also hands the number of steps left over to the entity store.
+	 * @param store the store that this bullet is added to
+	 * @param slot position of this bullet in the store
+	 */
+	@Override
+	void attach(EntityStore<?> store, int slot) {
+		super.attach(store, slot);
+		store.stepsLeft[slot] = stepsLeft;
+	}
+
+	/**
+	 * Also takes the number of steps left back from the entity store.
+	 */
+	@Override
+	void detach() {
+		stepsLeft = getStepsLeft();
+		super.detach();
+	}
 }
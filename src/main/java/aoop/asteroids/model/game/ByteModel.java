@@ -11,8 +11,12 @@ public class ByteModel {
 
     private static final int SIZE_BYTE = 1;
 
+    private static final int SIZE_SHORT = 2;
+
     private static final int SIZE_INT = 4;
 
+    private static final int SIZE_FLOAT = 4;
+
     private static final int SIZE_DOUBLE = 8;
 
     private static final int SIZE_GAME_OBJECT = 5 * SIZE_DOUBLE + SIZE_INT;
@@ -25,10 +29,72 @@ public class ByteModel {
 
     private static final int DEFAULT_ARRAY_SIZE = 0;
 
+    /**
+     * Largest number of objects of one kind in a whole game. Old clients read the counts as signed bytes, so any more
+     * objects are left out of it. Deltas have no such limit.
+     */
+    private static final int MAX_GAME_COUNT = Byte.MAX_VALUE;
+
+    /**
+     * Flags of the fields of an object that are sent in a delta, because they changed since the baseline
+     */
+    private static final int DELTA_X = 1;
+    private static final int DELTA_Y = 1 << 1;
+    private static final int DELTA_VELOCITY_X = 1 << 2;
+    private static final int DELTA_VELOCITY_Y = 1 << 3;
+    private static final int DELTA_RADIUS = 1 << 4;
+    private static final int DELTA_STEPS = 1 << 5;
+    private static final int DELTA_EXTRA = 1 << 6;
+    private static final int DELTA_INPUT = 1 << 7;
+
+    /**
+     * Kinds of objects, which differ in the field they send in addition to the fields of every object: the direction of
+     * spaceships and the steps left of bullets. Asteroids send no extra field, and send their radius as their size in
+     * the compact format.
+     */
+    private static final int SHIPS = 0;
+    private static final int ASTEROIDS = 1;
+    private static final int BULLETS = 2;
+
+    /**
+     * Number of fields of an object in a delta, the last one being the input sequence that only spaceships send
+     */
+    private static final int DELTA_FIELDS = 8;
+
+    /**
+     * Scales of the fixed point fields of the compact format: positions are a fraction of the world size, velocities
+     * have a precision of 1/512 pixel per tick up to 64 pixels per tick, and directions are a fraction of a turn.
+     */
+    private static final double POSITION_SCALE = 65536.0;
+    private static final double VELOCITY_SCALE = 512.0;
+    private static final double DIRECTION_SCALE = 65536.0 / (2 * Math.PI);
+
+    /**
+     * Largest size of an object in a delta: id, flags and all fields
+     */
+    private static final int SIZE_DELTA_OBJECT = SIZE_INT + SIZE_BYTE + 6 * SIZE_DOUBLE + 3 * SIZE_INT;
+
+    /**
+     * Sizes of asteroids by their ordinal, kept since every call to values() makes a new array
+     */
+    private static final AsteroidSize[] ASTEROID_SIZES = AsteroidSize.values();
+
     private byte[] bytes;
     private int read;
     private int write;
 
+    /**
+     * View of the byte array for reading and writing numbers, made again only when the array is replaced
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Quantized fields of an object and of its baseline, kept for every compact delta that this model writes. A model
+     * is used by one thread at a time, so they are made once, the first time a compact delta is written.
+     */
+    private int[] fields;
+    private int[] oldFields;
+
     /**
      * Constructor sets default values for all fields
      */
@@ -43,9 +109,28 @@ public class ByteModel {
      * @param bytes array of bytes
      */
     public ByteModel(byte[] bytes) {
+        this(bytes, bytes.length);
+    }
+
+    /**
+     * This constructor uses the first bytes of an array of bytes as its basis
+     * @param bytes array of bytes
+     * @param length number of bytes used
+     */
+    public ByteModel(byte[] bytes, int length) {
+        reset(bytes, length);
+    }
+
+    /**
+     * uses the first bytes of another array of bytes as the basis, to be read from the start, so that one model can
+     * read packet after packet
+     * @param bytes array of bytes
+     * @param length number of bytes used
+     */
+    public void reset(byte[] bytes, int length) {
         this.bytes = bytes;
         read = 0;
-        write = bytes.length;
+        write = length;
     }
 
     /**
@@ -74,7 +159,7 @@ public class ByteModel {
      */
     public void add(int value) {
         if (!possibleToWrite(SIZE_INT)) increaseArraySize(SIZE_INT);
-        ByteBuffer.wrap(bytes).putInt(write, value);
+        buffer().putInt(write, value);
         incrementWrite(SIZE_INT);
     }
 
@@ -84,7 +169,7 @@ public class ByteModel {
      */
     public void add(double value) {
         if (!possibleToWrite(SIZE_DOUBLE)) increaseArraySize(SIZE_DOUBLE);
-        ByteBuffer.wrap(bytes).putDouble(write, value);
+        buffer().putDouble(write, value);
         incrementWrite(SIZE_DOUBLE);
     }
 
@@ -123,24 +208,323 @@ public class ByteModel {
      * @param game to be added
      */
     public void add(Game game) {
-        int as = game.getAsteroids().size();
-        int bs = game.getBullets().size();
-        int ss = game.getSpaceships().size();
+        int as = Math.min(game.getAsteroids().size(), MAX_GAME_COUNT);
+        int bs = Math.min(game.getBullets().size(), MAX_GAME_COUNT);
+        int ss = Math.min(game.getSpaceships().size(), MAX_GAME_COUNT);
         int totalSize = 3 * SIZE_BYTE + as * SIZE_ASTEROID + bs * SIZE_BULLET + ss * SIZE_SPACESHIP + SIZE_INT;
         if (!possibleToWrite(totalSize)) increaseArraySize(totalSize);
         add(game.getLastLocalTick());
-        add((byte) game.getSpaceships().size());
-        for (Spaceship ship: game.getSpaceships()) {
-            add(ship);
+        add((byte) ss);
+        for (int i = 0; i < ss; i++) {
+            add(game.getSpaceships().get(i));
+        }
+        add((byte) as);
+        if (game.getAsteroids() instanceof EntityStore) {
+            addStored((EntityStore<?>) game.getAsteroids(), false, as);
+        } else {
+            int added = 0;
+            for (Asteroid asteroid: game.getAsteroids()) {
+                if (added++ == as) break;
+                add(asteroid);
+            }
+        }
+        add((byte) bs);
+        if (game.getBullets() instanceof EntityStore) {
+            addStored((EntityStore<?>) game.getBullets(), true, bs);
+        } else {
+            int added = 0;
+            for (Bullet bullet: game.getBullets()) {
+                if (added++ == bs) break;
+                add(bullet);
+            }
+        }
+    }
+
+    /**
+     * adds a snapshot of a game at the end of the byte array. The layout is the same as when adding the game itself.
+     * @param snapshot to be added
+     */
+    public void add(WorldSnapshot snapshot) {
+        int as = Math.min(snapshot.getAsteroidCount(), MAX_GAME_COUNT);
+        int bs = Math.min(snapshot.getBulletCount(), MAX_GAME_COUNT);
+        int ss = Math.min(snapshot.getShipCount(), MAX_GAME_COUNT);
+        int totalSize = 3 * SIZE_BYTE + as * SIZE_ASTEROID + bs * SIZE_BULLET + ss * SIZE_SPACESHIP + SIZE_INT;
+        if (!possibleToWrite(totalSize)) increaseArraySize(totalSize);
+        ByteBuffer buffer = buffer();
+        buffer.position(write);
+        buffer.putInt(snapshot.getTick());
+        buffer.put((byte) ss);
+        for (int i = 0; i < ss; i++) {
+            buffer.putDouble(snapshot.getShipX(i));
+            buffer.putDouble(snapshot.getShipY(i));
+            buffer.putDouble(snapshot.getShipVelocityX(i));
+            buffer.putDouble(snapshot.getShipVelocityY(i));
+            buffer.putDouble(snapshot.getShipRadius(i));
+            buffer.putInt(snapshot.getShipStepsUntilCollisionPossible(i));
+            buffer.putInt(snapshot.getShipId(i));
+            buffer.putDouble(snapshot.getShipDirection(i));
+        }
+        buffer.put((byte) as);
+        for (int i = 0; i < as; i++) {
+            buffer.putDouble(snapshot.getAsteroidX(i));
+            buffer.putDouble(snapshot.getAsteroidY(i));
+            buffer.putDouble(snapshot.getAsteroidVelocityX(i));
+            buffer.putDouble(snapshot.getAsteroidVelocityY(i));
+            buffer.putDouble(snapshot.getAsteroidRadius(i));
+            buffer.putInt(snapshot.getAsteroidStepsUntilCollisionPossible(i));
+        }
+        buffer.put((byte) bs);
+        for (int i = 0; i < bs; i++) {
+            buffer.putDouble(snapshot.getBulletX(i));
+            buffer.putDouble(snapshot.getBulletY(i));
+            buffer.putDouble(snapshot.getBulletVelocityX(i));
+            buffer.putDouble(snapshot.getBulletVelocityY(i));
+            buffer.putDouble(snapshot.getBulletRadius(i));
+            buffer.putInt(snapshot.getBulletStepsUntilCollisionPossible(i));
+            buffer.putInt(snapshot.getBulletStepsLeft(i));
+        }
+        write = buffer.position();
+    }
+
+    /**
+     * adds the difference between a snapshot and an older one that the receiver has at the end of the byte array.
+     * For each kind of object, the ids of the objects that are gone are written first, and then each object that is
+     * new or changed, with its id, flags telling which of its fields changed, and those fields. Objects that did not
+     * change are left out completely. Without a baseline, all objects are written as new ones.
+     * @param format in which to write the fields, its version is written first
+     * @param baseline snapshot that the receiver has, or null if it has none
+     * @param snapshot to be added
+     */
+    public void addDelta(WireFormat format, WorldSnapshot baseline, WorldSnapshot snapshot) {
+        int maxSize = SIZE_BYTE + 2 * SIZE_INT + 2 * SIZE_FLOAT + 6 * SIZE_SHORT
+                + (snapshot.ships.count + snapshot.asteroids.count + snapshot.bullets.count) * SIZE_DELTA_OBJECT;
+        if (baseline != null) {
+            maxSize += (baseline.ships.count + baseline.asteroids.count + baseline.bullets.count) * SIZE_INT;
+        }
+        if (!possibleToWrite(maxSize)) increaseArraySize(write + maxSize - bytes.length);
+        ByteBuffer buffer = buffer();
+        buffer.position(write);
+        buffer.put((byte) format.getVersion());
+        buffer.putInt(snapshot.getTick());
+        buffer.putInt(baseline == null ? SnapshotHistory.NO_TICK : baseline.getTick());
+        if (format == WireFormat.V1) {
+            addTableDelta(buffer, baseline == null ? null : baseline.ships, snapshot.ships, SHIPS);
+            addTableDelta(buffer, baseline == null ? null : baseline.asteroids, snapshot.asteroids, ASTEROIDS);
+            addTableDelta(buffer, baseline == null ? null : baseline.bullets, snapshot.bullets, BULLETS);
+        } else {
+            float width = (float) snapshot.getWorldWidth();
+            float height = (float) snapshot.getWorldHeight();
+            boolean withInput = format.getVersion() >= WireFormat.V3.getVersion();
+            buffer.putFloat(width);
+            buffer.putFloat(height);
+            addCompactTableDelta(buffer, baseline == null ? null : baseline.ships, snapshot.ships, SHIPS, width,
+                    height, withInput);
+            addCompactTableDelta(buffer, baseline == null ? null : baseline.asteroids, snapshot.asteroids, ASTEROIDS,
+                    width, height, false);
+            addCompactTableDelta(buffer, baseline == null ? null : baseline.bullets, snapshot.bullets, BULLETS, width,
+                    height, false);
+        }
+        write = buffer.position();
+    }
+
+    /**
+     * writes the ids of the objects in the baseline that are not in the table anymore, after their number
+     * @param buffer to write to
+     * @param baseline table that the receiver has, or null if it has none
+     * @param table to be written
+     */
+    private void addRemoved(ByteBuffer buffer, WorldSnapshot.Table baseline, WorldSnapshot.Table table) {
+        int countPosition = buffer.position();
+        buffer.putShort((short) 0);
+        if (baseline == null) return;
+        int removed = 0;
+        int hint = 0;
+        for (int i = 0; i < baseline.count; i++) {
+            int index = table.indexOf(baseline.id[i], hint);
+            if (index < 0) {
+                buffer.putInt(baseline.id[i]);
+                removed++;
+            } else {
+                hint = index + 1;
+            }
+        }
+        buffer.putShort(countPosition, (short) removed);
+    }
+
+    /**
+     * writes the difference between two tables of objects of the same kind, with all fields as doubles and ints
+     * @param buffer to write to
+     * @param baseline table that the receiver has, or null if it has none
+     * @param table to be written
+     * @param kind of the objects in the table
+     */
+    private void addTableDelta(ByteBuffer buffer, WorldSnapshot.Table baseline, WorldSnapshot.Table table, int kind) {
+        addRemoved(buffer, baseline, table);
+        int countPosition = buffer.position();
+        buffer.putShort((short) 0);
+        int changed = 0;
+        int hint = 0;
+        for (int i = 0; i < table.count; i++) {
+            int old = baseline == null ? -1 : baseline.indexOf(table.id[i], hint);
+            int flags = DELTA_X | DELTA_Y | DELTA_VELOCITY_X | DELTA_VELOCITY_Y | DELTA_RADIUS | DELTA_STEPS
+                    | (kind == ASTEROIDS ? 0 : DELTA_EXTRA);
+            if (old >= 0) {
+                hint = old + 1;
+                if (table.x[i] == baseline.x[old]) flags &= ~DELTA_X;
+                if (table.y[i] == baseline.y[old]) flags &= ~DELTA_Y;
+                if (table.velocityX[i] == baseline.velocityX[old]) flags &= ~DELTA_VELOCITY_X;
+                if (table.velocityY[i] == baseline.velocityY[old]) flags &= ~DELTA_VELOCITY_Y;
+                if (table.radius[i] == baseline.radius[old]) flags &= ~DELTA_RADIUS;
+                if (table.steps[i] == baseline.steps[old]) flags &= ~DELTA_STEPS;
+                if (kind == SHIPS && table.direction[i] == baseline.direction[old]) flags &= ~DELTA_EXTRA;
+                if (kind == BULLETS && table.stepsLeft[i] == baseline.stepsLeft[old]) flags &= ~DELTA_EXTRA;
+                if (flags == 0) continue;
+            }
+            buffer.putInt(table.id[i]);
+            buffer.put((byte) flags);
+            if ((flags & DELTA_X) != 0) buffer.putDouble(table.x[i]);
+            if ((flags & DELTA_Y) != 0) buffer.putDouble(table.y[i]);
+            if ((flags & DELTA_VELOCITY_X) != 0) buffer.putDouble(table.velocityX[i]);
+            if ((flags & DELTA_VELOCITY_Y) != 0) buffer.putDouble(table.velocityY[i]);
+            if ((flags & DELTA_RADIUS) != 0) buffer.putDouble(table.radius[i]);
+            if ((flags & DELTA_STEPS) != 0) buffer.putInt(table.steps[i]);
+            if ((flags & DELTA_EXTRA) != 0) {
+                if (kind == SHIPS) buffer.putDouble(table.direction[i]);
+                else buffer.putInt(table.stepsLeft[i]);
+            }
+            changed++;
+        }
+        buffer.putShort(countPosition, (short) changed);
+    }
+
+    /**
+     * writes the difference between two tables of objects of the same kind, with all fields in fixed point. Fields are
+     * compared after rounding, so changes too small to be seen by the receiver are not sent.
+     * @param buffer to write to
+     * @param baseline table that the receiver has, or null if it has none
+     * @param table to be written
+     * @param kind of the objects in the table
+     * @param width of the world
+     * @param height of the world
+     * @param withInput true if the input sequence of the objects should be written, as for spaceships from version 3
+     */
+    private void addCompactTableDelta(ByteBuffer buffer, WorldSnapshot.Table baseline, WorldSnapshot.Table table,
+                                      int kind, float width, float height, boolean withInput) {
+        addRemoved(buffer, baseline, table);
+        int countPosition = buffer.position();
+        buffer.putShort((short) 0);
+        if (fields == null) {
+            fields = new int[DELTA_FIELDS];
+            oldFields = new int[DELTA_FIELDS];
         }
-        add((byte) game.getAsteroids().size());
-        for (Asteroid asteroid: game.getAsteroids()) {
-            add(asteroid);
+        int[] fields = this.fields;
+        int[] oldFields = this.oldFields;
+        int changed = 0;
+        int hint = 0;
+        for (int i = 0; i < table.count; i++) {
+            int old = baseline == null ? -1 : baseline.indexOf(table.id[i], hint);
+            quantize(table, i, kind, width, height, fields);
+            int flags = DELTA_X | DELTA_Y | DELTA_VELOCITY_X | DELTA_VELOCITY_Y | DELTA_RADIUS | DELTA_STEPS
+                    | (kind == ASTEROIDS ? 0 : DELTA_EXTRA) | (withInput ? DELTA_INPUT : 0);
+            if (old >= 0) {
+                hint = old + 1;
+                quantize(baseline, old, kind, width, height, oldFields);
+                for (int field = 0; field < DELTA_FIELDS; field++) {
+                    if (fields[field] == oldFields[field]) flags &= ~(1 << field);
+                }
+                if (flags == 0) continue;
+            }
+            buffer.putInt(table.id[i]);
+            buffer.put((byte) flags);
+            if ((flags & DELTA_X) != 0) buffer.putShort((short) fields[0]);
+            if ((flags & DELTA_Y) != 0) buffer.putShort((short) fields[1]);
+            if ((flags & DELTA_VELOCITY_X) != 0) buffer.putShort((short) fields[2]);
+            if ((flags & DELTA_VELOCITY_Y) != 0) buffer.putShort((short) fields[3]);
+            if ((flags & DELTA_RADIUS) != 0) buffer.put((byte) fields[4]);
+            if ((flags & DELTA_STEPS) != 0) buffer.put((byte) fields[5]);
+            if ((flags & DELTA_EXTRA) != 0) {
+                if (kind == SHIPS) buffer.putShort((short) fields[6]);
+                else buffer.put((byte) fields[6]);
+            }
+            if ((flags & DELTA_INPUT) != 0) buffer.putInt(fields[7]);
+            changed++;
         }
-        add((byte) game.getBullets().size());
-        for (Bullet bullet: game.getBullets()) {
-            add(bullet);
+        buffer.putShort(countPosition, (short) changed);
+    }
+
+    /**
+     * rounds the fields of an object to the fixed point values of the compact format
+     * @param table of the object
+     * @param i index of the object in the table
+     * @param kind of the object
+     * @param width of the world
+     * @param height of the world
+     * @param fields array to store the values in, in the order of the delta flags
+     */
+    private static void quantize(WorldSnapshot.Table table, int i, int kind, float width, float height, int[] fields) {
+        fields[0] = (int) Math.round(table.x[i] / width * POSITION_SCALE) & 0xFFFF;
+        fields[1] = (int) Math.round(table.y[i] / height * POSITION_SCALE) & 0xFFFF;
+        fields[2] = quantizeVelocity(table.velocityX[i]);
+        fields[3] = quantizeVelocity(table.velocityY[i]);
+        fields[4] = kind == ASTEROIDS ? toAsteroidSize(table.radius[i]).ordinal() : toUnsignedByte(table.radius[i]);
+        fields[5] = toUnsignedByte(table.steps[i]);
+        if (kind == SHIPS) fields[6] = (int) Math.round(table.direction[i] * DIRECTION_SCALE) & 0xFFFF;
+        else if (kind == BULLETS) fields[6] = toUnsignedByte(table.stepsLeft[i]);
+        else fields[6] = 0;
+        fields[7] = kind == SHIPS ? table.inputSequence[i] : 0;
+    }
+
+    /**
+     * @param velocity to be rounded
+     * @return velocity in 1/512 pixel per tick, limited to what fits in a short
+     */
+    private static int quantizeVelocity(double velocity) {
+        long value = Math.round(velocity * VELOCITY_SCALE);
+        return (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    /**
+     * @param value to be rounded
+     * @return value rounded to a whole number from 0 to 255
+     */
+    private static int toUnsignedByte(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * @param radius of an asteroid
+     * @return size of asteroid with the closest radius
+     */
+    private static AsteroidSize toAsteroidSize(double radius) {
+        AsteroidSize closest = AsteroidSize.SMALL;
+        for (AsteroidSize size: ASTEROID_SIZES) {
+            if (Math.abs(size.getRadius() - radius) < Math.abs(closest.getRadius() - radius)) closest = size;
         }
+        return closest;
+    }
+
+    /**
+     * adds the first objects of an entity store at the end of the byte array, reading their state straight from the
+     * store's arrays. The layout is the same as when adding the objects one by one.
+     * @param store to be added
+     * @param withStepsLeft true if the steps left should be added after each object, as for bullets
+     * @param count number of objects to be added
+     */
+    private void addStored(EntityStore<?> store, boolean withStepsLeft, int count) {
+        int objectSize = withStepsLeft ? SIZE_BULLET : SIZE_ASTEROID;
+        if (!possibleToWrite(count * objectSize)) increaseArraySize(count * objectSize);
+        ByteBuffer buffer = buffer();
+        buffer.position(write);
+        for (int i = 0; i < count; i++) {
+            buffer.putDouble(store.getLocationX(i));
+            buffer.putDouble(store.getLocationY(i));
+            buffer.putDouble(store.getVelocityX(i));
+            buffer.putDouble(store.getVelocityY(i));
+            buffer.putDouble(store.getRadius(i));
+            buffer.putInt(store.getStepsUntilCollisionPossible(i));
+            if (withStepsLeft) buffer.putInt(store.getStepsLeft(i));
+        }
+        write = buffer.position();
     }
 
     /**
@@ -183,11 +567,29 @@ public class ByteModel {
         return b;
     }
 
+    /**
+     * @return short at the current read pointer
+     */
+    public short getShort() {
+        short x = buffer().getShort(read);
+        incrementRead(SIZE_SHORT);
+        return x;
+    }
+
+    /**
+     * @return float at the current read pointer
+     */
+    public float getFloat() {
+        float x = buffer().getFloat(read);
+        incrementRead(SIZE_FLOAT);
+        return x;
+    }
+
     /**
      * @return int at the current read pointer
      */
     public int getInt() {
-        int x = ByteBuffer.wrap(bytes).getInt(read);
+        int x = buffer().getInt(read);
         incrementRead(SIZE_INT);
         return x;
     }
@@ -196,62 +598,190 @@ public class ByteModel {
      * @return double at the current read pointer
      */
     public double getDouble() {
-        double x = ByteBuffer.wrap(bytes).getDouble(read);
+        double x = buffer().getDouble(read);
         incrementRead(SIZE_DOUBLE);
         return x;
     }
 
     /**
-     * @return spaceship at the current read pointer
+     * loads a game sent by the server from the byte array, and publishes it as the latest received snapshot of the
+     * given game, stamped with the time it arrived. The objects of the game itself are left alone, a client or
+     * spectator keeps running its game to show the received snapshots smoothly, see SnapshotInterpolation.
+     * @param game to be loaded into
+     * @return true if the snapshot was loaded, false if it is outdated
      */
-    public Spaceship getSpaceship() {
-        return new Spaceship(getDouble(), getDouble(), getDouble(), getDouble(), getDouble(), getInt(),
-                getInt(), getDouble());
+    public boolean loadSnapshot(Game game) {
+        int tickID = getInt();
+        if (tickID < game.getLastReceivedTick()) return false;
+        else game.setLastReceivedTick(tickID);
+        SnapshotPublisher publisher = game.getReceivedSnapshots();
+        WorldSnapshot snapshot = publisher.claim();
+        snapshot.setTick(tickID);
+        snapshot.setTimestamp(System.nanoTime());
+        int length = getByte() & 0xFF;
+        snapshot.ships.clear(length);
+        for (int i = 0; i < length; i++) {
+            double x = getDouble(), y = getDouble(), vx = getDouble(), vy = getDouble(), radius = getDouble();
+            int steps = getInt();
+            int slot = snapshot.ships.add(getInt(), x, y, vx, vy, radius, steps);
+            snapshot.ships.direction[slot] = getDouble();
+        }
+        length = getByte() & 0xFF;
+        snapshot.asteroids.clear(length);
+        for (int i = 0; i < length; i++) {
+            snapshot.asteroids.add(i, getDouble(), getDouble(), getDouble(), getDouble(), getDouble(), getInt());
+        }
+        length = getByte() & 0xFF;
+        snapshot.bullets.clear(length);
+        for (int i = 0; i < length; i++) {
+            int slot = snapshot.bullets.add(i, getDouble(), getDouble(), getDouble(), getDouble(), getDouble(),
+                    getInt());
+            snapshot.bullets.stepsLeft[slot] = getInt();
+        }
+        publisher.publish(snapshot);
+        return true;
     }
 
     /**
-     * @return asteroid at the current read pointer
+     * loads the difference with an older snapshot sent by the server from the byte array. The older snapshot is taken
+     * from the history, and the result is kept in the history and published as the latest received snapshot of the
+     * game, as in loadSnapshot().
+     * @param game to be loaded into
+     * @param history of the snapshots received before
+     * @return true if the snapshot was loaded, false if its format is unknown, it is outdated or its baseline is not
+     * in the history anymore
      */
-    public Asteroid getAsteroid() {
-        return new Asteroid(getDouble(), getDouble(), getDouble(), getDouble(), getDouble(), getInt());
+    public boolean loadDelta(Game game, SnapshotHistory history) {
+        WireFormat format = WireFormat.fromVersion(getByte());
+        if (format == null) return false;
+        int tickID = getInt();
+        int baselineTick = getInt();
+        if (tickID < game.getLastReceivedTick()) return false;
+        WorldSnapshot baseline = history.get(baselineTick);
+        if (baseline == null && baselineTick != SnapshotHistory.NO_TICK) return false;
+        game.setLastReceivedTick(tickID);
+        SnapshotPublisher publisher = game.getReceivedSnapshots();
+        WorldSnapshot snapshot = publisher.claim();
+        snapshot.copyFrom(baseline);
+        snapshot.setTick(tickID);
+        snapshot.setTimestamp(System.nanoTime());
+        if (format == WireFormat.V1) {
+            if (baseline == null) snapshot.setWorldSize(game.getWorld().getWidth(), game.getWorld().getHeight());
+            loadTableDelta(snapshot.ships, SHIPS);
+            loadTableDelta(snapshot.asteroids, ASTEROIDS);
+            loadTableDelta(snapshot.bullets, BULLETS);
+        } else {
+            float width = getFloat();
+            float height = getFloat();
+            snapshot.setWorldSize(width, height);
+            loadCompactTableDelta(snapshot.ships, SHIPS, width, height);
+            loadCompactTableDelta(snapshot.asteroids, ASTEROIDS, width, height);
+            loadCompactTableDelta(snapshot.bullets, BULLETS, width, height);
+        }
+        history.record(snapshot);
+        publisher.publish(snapshot);
+        return true;
     }
 
     /**
-     * @return bullet at the current read pointer
+     * removes the objects whose ids are read from the byte array, after their number, from the table
+     * @param table to be changed
      */
-    public Bullet getBullet() {
-        return new Bullet(getDouble(), getDouble(), getDouble(), getDouble(), getDouble(), getInt(), getInt());
+    private void loadRemoved(WorldSnapshot.Table table) {
+        int removed = getShort() & 0xFFFF;
+        int hint = 0;
+        for (int i = 0; i < removed; i++) {
+            int index = table.indexOf(getInt(), hint);
+            if (index >= 0) {
+                table.remove(index);
+                hint = index;
+            }
+        }
     }
 
     /**
-     * loads game from byte array
-     * @param game to be loaded into
+     * reads the id of a new or changed object, and looks it up in the table, adding it if it is new
+     * @param table to look in
+     * @param hint index where the object is expected
+     * @return index of the object in the table
      */
-    public void loadGame(Game game) {
-        int tickID = getInt();
-        if (tickID < game.getLastReceivedTick()) return;
-        else game.setLastReceivedTick(tickID);
-        game.quit();
-        Spaceship spaceship;
-        if (game.getSpaceship() != null && game.getSpaceships().size() > 0) spaceship = game.getSpaceship();
-        else spaceship = new Spaceship();
-        game.resetLists();
-        game.getSpaceships().add(spaceship);
-        int length = getByte();
-        for (int i = 0; i < length; i++) {
-            Spaceship newShip = getSpaceship();
-            if (newShip.getID() != spaceship.getID()) game.getSpaceships().add(newShip);
-        }
-        length = getByte();
-        for (int i = 0; i < length; i++) {
-            game.getAsteroids().add(getAsteroid());
+    private int loadChangedObject(WorldSnapshot.Table table, int hint) {
+        int id = getInt();
+        int index = table.indexOf(id, hint);
+        if (index < 0) index = table.add(id, 0.0, 0.0, 0.0, 0.0, 0.0, 0);
+        return index;
+    }
+
+    /**
+     * applies the difference with a table of objects of one kind, read from the byte array, to that table
+     * @param table to be changed
+     * @param kind of the objects in the table
+     */
+    private void loadTableDelta(WorldSnapshot.Table table, int kind) {
+        loadRemoved(table);
+        int changed = getShort() & 0xFFFF;
+        int hint = 0;
+        for (int i = 0; i < changed; i++) {
+            int index = loadChangedObject(table, hint);
+            int flags = getByte() & 0xFF;
+            hint = index + 1;
+            if ((flags & DELTA_X) != 0) table.x[index] = getDouble();
+            if ((flags & DELTA_Y) != 0) table.y[index] = getDouble();
+            if ((flags & DELTA_VELOCITY_X) != 0) table.velocityX[index] = getDouble();
+            if ((flags & DELTA_VELOCITY_Y) != 0) table.velocityY[index] = getDouble();
+            if ((flags & DELTA_RADIUS) != 0) table.radius[index] = getDouble();
+            if ((flags & DELTA_STEPS) != 0) table.steps[index] = getInt();
+            if ((flags & DELTA_EXTRA) != 0) {
+                if (kind == SHIPS) table.direction[index] = getDouble();
+                else table.stepsLeft[index] = getInt();
+            }
         }
-        length = getByte();
-        for (int i = 0; i < length; i++) {
-            game.getBullets().add(getBullet());
+    }
+
+    /**
+     * applies the difference with a table of objects of one kind, read from the byte array in fixed point, to that
+     * table
+     * @param table to be changed
+     * @param kind of the objects in the table
+     * @param width of the world
+     * @param height of the world
+     */
+    private void loadCompactTableDelta(WorldSnapshot.Table table, int kind, float width, float height) {
+        loadRemoved(table);
+        int changed = getShort() & 0xFFFF;
+        int hint = 0;
+        for (int i = 0; i < changed; i++) {
+            int index = loadChangedObject(table, hint);
+            int flags = getByte() & 0xFF;
+            hint = index + 1;
+            if ((flags & DELTA_X) != 0) table.x[index] = (getShort() & 0xFFFF) * width / POSITION_SCALE;
+            if ((flags & DELTA_Y) != 0) table.y[index] = (getShort() & 0xFFFF) * height / POSITION_SCALE;
+            if ((flags & DELTA_VELOCITY_X) != 0) table.velocityX[index] = getShort() / VELOCITY_SCALE;
+            if ((flags & DELTA_VELOCITY_Y) != 0) table.velocityY[index] = getShort() / VELOCITY_SCALE;
+            if ((flags & DELTA_RADIUS) != 0) {
+                int radius = getByte() & 0xFF;
+                if (kind == ASTEROIDS) {
+                    radius = (int) ASTEROID_SIZES[Math.min(radius, ASTEROID_SIZES.length - 1)].getRadius();
+                }
+                table.radius[index] = radius;
+            }
+            if ((flags & DELTA_STEPS) != 0) table.steps[index] = getByte() & 0xFF;
+            if ((flags & DELTA_EXTRA) != 0) {
+                if (kind == SHIPS) table.direction[index] = (getShort() & 0xFFFF) / DIRECTION_SCALE;
+                else table.stepsLeft[index] = getByte() & 0xFF;
+            }
+            if ((flags & DELTA_INPUT) != 0) table.inputSequence[index] = getInt();
         }
     }
 
+    /**
+     * @return view of the byte array, with its position free to be moved
+     */
+    private ByteBuffer buffer() {
+        if (buffer == null || buffer.array() != bytes) buffer = ByteBuffer.wrap(bytes);
+        return buffer;
+    }
+
     /**
      * increases the array size
      * @param length to be increase by
@@ -278,6 +808,13 @@ public class ByteModel {
         write += value;
     }
 
+    /**
+     * @return number of bytes written
+     */
+    public int getLength() {
+        return write;
+    }
+
     /**
      * @return byte array
      */
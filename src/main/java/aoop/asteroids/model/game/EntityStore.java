@@ -0,0 +1,331 @@
+package aoop.asteroids.model.game;
+
+import java.util.AbstractCollection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * A collection of game objects that keeps the state of its objects in parallel arrays of primitives (a structure of
+ * arrays), instead of in the objects themselves. Moving all objects one step then becomes a single loop over a few
+ * arrays of doubles, instead of following pointers to each object and its points all over the heap.
+ *
+ * Objects that are added to the store are attached to it: their location, velocity and counters are read from and
+ * written to the arrays from then on, so they can still be used like any other game object, for example by the view.
+ * Objects that are removed from the store get their state copied back, and behave like normal objects again.
+ *
+ * Objects keep the order in which they were added, also when some of them are removed.
+ *
+ * @param <T> The type of game object stored.
+ */
+public class EntityStore<T extends GameObject> extends AbstractCollection<T> {
+
+	/**
+	 * The initial number of objects that the arrays can hold.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Whether objects in this store only live for a limited number of steps, like bullets do.
+	 */
+	private final boolean limitedLifetime;
+
+	/**
+	 * The stored objects, at the same position as their state in the arrays.
+	 */
+	private GameObject[] objects;
+
+	/**
+	 * The state of the stored objects.
+	 */
+	double[] locationX;
+	double[] locationY;
+	double[] velocityX;
+	double[] velocityY;
+	double[] radius;
+	int[] stepsUntilCollisionPossible;
+	int[] stepsLeft;
+
+	/**
+	 * The number of stored objects.
+	 */
+	private int size;
+
+	/**
+	 * Counts structural changes, so that iterators can detect changes made while iterating.
+	 */
+	private int modCount;
+
+	/**
+	 * Constructs a new, empty store.
+	 * @param limitedLifetime true if the objects in this store are destroyed once they run out of steps left
+	 */
+	public EntityStore(boolean limitedLifetime) {
+		this.limitedLifetime = limitedLifetime;
+		allocate(DEFAULT_CAPACITY);
+		size = 0;
+	}
+
+	/**
+	 * Adds the object to the end of the store and attaches it to the store.
+	 * @param object to be added
+	 * @return true, since the store always changes
+	 */
+	@Override
+	public boolean add(T object) {
+		if (object.isStored()) throw new IllegalArgumentException("Object is already stored");
+		if (size == objects.length) allocate(objects.length * 2);
+		objects[size] = object;
+		stepsLeft[size] = 0;
+		object.attach(this, size);
+		size++;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Moves every stored object one step through the default world.
+	 */
+	public void stepAll() {
+		stepAll(WorldConfig.DEFAULT);
+	}
+
+	/**
+	 * Moves every stored object one step, in the same way as {@link GameObject#nextStep(WorldConfig)} does for a
+	 * single object.
+	 * @param world The world of the game that the objects are in.
+	 */
+	public void stepAll(WorldConfig world) {
+		double width = world.getWidth();
+		double height = world.getHeight();
+		for (int i = 0; i < size; i++) {
+			locationX[i] = (width + locationX[i] + velocityX[i]) % width;
+			locationY[i] = (height + locationY[i] + velocityY[i]) % height;
+			if (stepsUntilCollisionPossible[i] > 0) stepsUntilCollisionPossible[i]--;
+		}
+		if (limitedLifetime) {
+			for (int i = 0; i < size; i++) {
+				if (--stepsLeft[i] <= 0) objects[i].destroy();
+			}
+		}
+	}
+
+	/**
+	 * Moves a single stored object one step.
+	 * @param slot position of the object in the store
+	 * @param world The world of the game that the object is in.
+	 */
+	void step(int slot, WorldConfig world) {
+		double width = world.getWidth();
+		double height = world.getHeight();
+		locationX[slot] = (width + locationX[slot] + velocityX[slot]) % width;
+		locationY[slot] = (height + locationY[slot] + velocityY[slot]) % height;
+		if (stepsUntilCollisionPossible[slot] > 0) stepsUntilCollisionPossible[slot]--;
+		if (limitedLifetime && --stepsLeft[slot] <= 0) objects[slot].destroy();
+	}
+
+	/**
+	 * Removes all objects that satisfy the filter, keeping the order of the others, in a single pass over the arrays.
+	 * @param filter returns true for objects to be removed
+	 * @return true if any objects were removed
+	 */
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			T object = get(i);
+			if (filter.test(object)) {
+				object.detach();
+			} else {
+				if (kept != i) move(i, kept);
+				kept++;
+			}
+		}
+		boolean removed = kept != size;
+		for (int i = kept; i < size; i++) {
+			objects[i] = null;
+		}
+		size = kept;
+		if (removed) modCount++;
+		return removed;
+	}
+
+	/**
+	 * Removes and detaches all objects.
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			objects[i].detach();
+			objects[i] = null;
+		}
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * @return iterator over the stored objects, in the order they were added
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private int cursor = 0;
+			private int last = -1;
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < size;
+			}
+
+			@Override
+			public T next() {
+				if (modCount != expectedModCount) throw new ConcurrentModificationException();
+				if (cursor >= size) throw new NoSuchElementException();
+				last = cursor++;
+				return get(last);
+			}
+
+			@Override
+			public void remove() {
+				if (last < 0) throw new IllegalStateException();
+				if (modCount != expectedModCount) throw new ConcurrentModificationException();
+				removeAt(last);
+				cursor = last;
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+
+	/**
+	 * @return number of stored objects
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return the object at the given position
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int slot) {
+		return (T) objects[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return location of the object on the x-axis
+	 */
+	public double getLocationX(int slot) {
+		return locationX[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return location of the object on the y-axis
+	 */
+	public double getLocationY(int slot) {
+		return locationY[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return velocity of the object along the x-axis
+	 */
+	public double getVelocityX(int slot) {
+		return velocityX[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return velocity of the object along the y-axis
+	 */
+	public double getVelocityY(int slot) {
+		return velocityY[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return radius of the object
+	 */
+	public double getRadius(int slot) {
+		return radius[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return number of steps for which the object is still immune to collisions
+	 */
+	public int getStepsUntilCollisionPossible(int slot) {
+		return stepsUntilCollisionPossible[slot];
+	}
+
+	/**
+	 * @param slot position in the store
+	 * @return number of steps the object has left to live, only meaningful for stores with a limited lifetime
+	 */
+	public int getStepsLeft(int slot) {
+		return stepsLeft[slot];
+	}
+
+	/**
+	 * Removes the object at the given position, shifting all later objects one position forward.
+	 * @param slot position of the object to be removed
+	 */
+	private void removeAt(int slot) {
+		objects[slot].detach();
+		for (int i = slot + 1; i < size; i++) {
+			move(i, i - 1);
+		}
+		objects[--size] = null;
+		modCount++;
+	}
+
+	/**
+	 * Moves an object and its state to another position in the store.
+	 * @param from current position of the object
+	 * @param to new position of the object
+	 */
+	private void move(int from, int to) {
+		objects[to] = objects[from];
+		locationX[to] = locationX[from];
+		locationY[to] = locationY[from];
+		velocityX[to] = velocityX[from];
+		velocityY[to] = velocityY[from];
+		radius[to] = radius[from];
+		stepsUntilCollisionPossible[to] = stepsUntilCollisionPossible[from];
+		stepsLeft[to] = stepsLeft[from];
+		objects[to].moveSlot(to);
+	}
+
+	/**
+	 * (Re)allocates all arrays with the given capacity, keeping the current contents.
+	 * @param capacity new capacity of the arrays
+	 */
+	private void allocate(int capacity) {
+		objects = copyOf(objects, new GameObject[capacity]);
+		locationX = copyOf(locationX, new double[capacity]);
+		locationY = copyOf(locationY, new double[capacity]);
+		velocityX = copyOf(velocityX, new double[capacity]);
+		velocityY = copyOf(velocityY, new double[capacity]);
+		radius = copyOf(radius, new double[capacity]);
+		stepsUntilCollisionPossible = copyOf(stepsUntilCollisionPossible, new int[capacity]);
+		stepsLeft = copyOf(stepsLeft, new int[capacity]);
+	}
+
+	/**
+	 * Copies the stored part of an array into a new array.
+	 * @param from array to copy from, may be null if there is nothing to copy yet
+	 * @param to array to copy into
+	 * @param <A> type of the array
+	 * @return the array copied into
+	 */
+	private <A> A copyOf(A from, A to) {
+		if (from != null) System.arraycopy(from, 0, to, 0, size);
+		return to;
+	}
+}
@@ -2,12 +2,19 @@ package aoop.asteroids.model.game;
 
 import aoop.asteroids.control.GameUpdater;
 import aoop.asteroids.game_observer.ObservableGame;
+import aoop.asteroids.util.IntObjectMap;
+import aoop.asteroids.util.ObjectPool;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is the main model for the Asteroids game. It contains all game objects, and has methods to start and stop
@@ -20,6 +27,21 @@ public class Game extends ObservableGame {
 
 	public static final String PLAYER_NAME = "Player";
 
+	/**
+	 * The system property that makes new games keep their asteroids and bullets in entity stores.
+	 */
+	public static final String ENTITY_STORE_PROPERTY = "asteroids.entityStore";
+
+	/**
+	 * The system property that gives new games a fixed seed, so that every run with the same input is the same.
+	 */
+	public static final String SEED_PROPERTY = "asteroids.seed";
+
+	/**
+	 * The system property that sets how far behind the server, in milliseconds, a client shows the other objects.
+	 */
+	public static final String INTERPOLATION_DELAY_PROPERTY = "asteroids.interpolationDelay";
+
 	/**
 	 * The list of all bullets currently active in the game.
 	 */
@@ -31,9 +53,46 @@ public class Game extends ObservableGame {
 	private Collection<Asteroid> asteroids;
 
 	/**
-	 * The list of all spaceships. First one is the player, next are other players
+	 * The list of all spaceships. First one is the player, next are other players. Players join from the network
+	 * thread while the game is ticking, so the list is copied on every change, which is rare, and can be iterated by
+	 * the game updater at the same time.
+	 */
+	private List<Spaceship> spaceships;
+
+	/**
+	 * The spaceships by their id, which the network thread looks up the spaceship of every packet in.
+	 */
+	private volatile IntObjectMap<Spaceship> spaceshipsById;
+
+	/**
+	 * The maximum number of free bullets and asteroids that are kept around for reuse.
+	 */
+	private static final int POOL_SIZE = 1024;
+
+	/**
+	 * Destroyed bullets, which are reused for new bullets.
 	 */
-	private ArrayList<Spaceship> spaceships;
+	private final ObjectPool<Bullet> bulletPool;
+
+	/**
+	 * Destroyed asteroids, which are reused for new asteroids.
+	 */
+	private final ObjectPool<Asteroid> asteroidPool;
+
+	/**
+	 * The world in which this game takes place.
+	 */
+	private final WorldConfig world;
+
+	/**
+	 * Indicates if the game runs on a dedicated server, where there is no local player and so no local spaceship
+	 */
+	private final boolean dedicated;
+
+	/**
+	 * Indicates if asteroids and bullets are kept in entity stores, which hold their state in arrays of primitives
+	 */
+	private boolean entityStoreEnabled;
 
 	/**
 	 * Indicates whether or not the game is running. Setting this to false causes the game to exit its loop and quit.
@@ -76,28 +135,114 @@ public class Game extends ObservableGame {
 	private Thread gameUpdaterThread;
 
 	/**
-	 * Constructs a new game, with a new spaceship and all other model data in its default starting state.
+	 * The game updater that runs in the game updater thread, or null if the game is not running.
+	 */
+	private GameUpdater gameUpdater;
+
+	/**
+	 * The seed that every new round of this game starts with, or null if every round gets a new random seed.
+	 */
+	private Long fixedSeed;
+
+	/**
+	 * The seed that the current round of this game started with.
+	 */
+	private long seed;
+
+	/**
+	 * The generator that all randomness in the game is taken from, so that the game can be reproduced from its seed.
+	 */
+	private SplittableRandom random;
+
+	/**
+	 * The generator that the locations of joining spaceships are taken from. It is split from the generator of the
+	 * game whenever that starts over, and is used only by the thread that adds spaceships, so that joins neither race
+	 * with the tick for the generator of the game nor change the sequence that the tick draws from it.
+	 */
+	private SplittableRandom spawnRandom;
+
+	/**
+	 * Publishes a snapshot of this game after every tick, for the view and the network to read without locking.
+	 */
+	private final SnapshotPublisher snapshots;
+
+	/**
+	 * Publishes the snapshots that a client receives from the server, before its own spaceship is predicted in them.
+	 */
+	private final SnapshotPublisher receivedSnapshots;
+
+	/**
+	 * Predicts the spaceship of a client between the snapshots it receives.
+	 */
+	private final ShipPrediction prediction;
+
+	/**
+	 * Shows the snapshots that a client or spectator receives smoothly, a little behind the server.
+	 */
+	private final SnapshotInterpolation interpolation;
+
+	/**
+	 * Constructs a new game in the default world, with a new spaceship and all other model data in its default
+	 * starting state.
 	 */
 	public Game() {
+		this(WorldConfig.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new game in the given world, with a new spaceship and all other model data in its default starting
+	 * state.
+	 * @param world The world in which the game takes place.
+	 */
+	public Game(WorldConfig world) {
+		this(world, false);
+	}
+
+	/**
+	 * Constructs a new game in the given world, with all model data in its default starting state.
+	 * @param world The world in which the game takes place.
+	 * @param dedicated True if the game runs on a dedicated server, in which case it has no local spaceship, and only
+	 *                  the spaceships of players that join.
+	 */
+	public Game(WorldConfig world, boolean dedicated) {
+		this.world = world;
+		this.dedicated = dedicated;
+		bulletPool = new ObjectPool<>(() -> new Bullet(0, 0, 0, 0), POOL_SIZE);
+		asteroidPool = new ObjectPool<>(() -> new Asteroid(0, 0, 0, 0, AsteroidSize.SMALL.getRadius(), 0), POOL_SIZE);
+		entityStoreEnabled = Boolean.getBoolean(ENTITY_STORE_PROPERTY);
+		fixedSeed = Long.getLong(SEED_PROPERTY);
+		snapshots = new SnapshotPublisher();
+		receivedSnapshots = new SnapshotPublisher();
+		prediction = new ShipPrediction();
+		interpolation = new SnapshotInterpolation(world.getTickRate(), TimeUnit.MILLISECONDS.toNanos(
+				Long.getLong(INTERPOLATION_DELAY_PROPERTY, SnapshotInterpolation.DEFAULT_DELAY_MILLIS)));
 		initializeGameData();
 	}
 
 	/**
 	 * Initializes all of the model objects used by the game. Can also be used to reset the game's state back to a
-	 * default starting state before beginning a new game.
+	 * default starting state before beginning a new game. The random generator starts over from the seed.
 	 */
 	public void initializeGameData() {
+		seed = fixedSeed != null ? fixedSeed : ThreadLocalRandom.current().nextLong();
+		random = new SplittableRandom(seed);
+		spawnRandom = random.split();
+		if (dedicated) {
+			resetLists();
+			return;
+		}
 		Spaceship spaceship;
 		//saving spaceship not to lose player key listener
 		if (spaceships != null && spaceships.size() > 0) {
 			spaceship = spaceships.get(0);
-			spaceship.reset();
+			spaceship.reset(world);
 		}
 		else {
-			spaceship = new Spaceship();
+			spaceship = new Spaceship(world);
 		}
 		resetLists();
 		spaceships.add(spaceship);
+		spaceshipsById.put(spaceship.getID(), spaceship);
 	}
 
 	/**
@@ -117,9 +262,15 @@ public class Game extends ObservableGame {
 	 * resets collections for game objects
 	 */
 	public void resetLists() {
-		bullets = new ArrayList<>();
-		asteroids = new ArrayList<>();
-		spaceships = new ArrayList<>();
+		if (entityStoreEnabled) {
+			bullets = new EntityStore<>(true);
+			asteroids = new EntityStore<>(false);
+		} else {
+			bullets = new ArrayList<>();
+			asteroids = new ArrayList<>();
+		}
+		spaceships = new CopyOnWriteArrayList<>();
+		spaceshipsById = new IntObjectMap<>();
 	}
 
 	/**
@@ -131,6 +282,7 @@ public class Game extends ObservableGame {
 		if (freeLocation == null) return - 1;
 		Spaceship spaceship = new Spaceship(freeLocation);
 		spaceships.add(spaceship);
+		spaceshipsById.put(spaceship.getID(), spaceship);
 		return spaceship.getID();
 	}
 
@@ -141,19 +293,35 @@ public class Game extends ObservableGame {
 	public void start() {
 		if (!running) {
 			running = true;
-			gameUpdaterThread = new Thread(new GameUpdater(this));
+			gameUpdater = new GameUpdater(this);
+			gameUpdaterThread = new Thread(gameUpdater);
 			gameUpdaterThread.start();
 		}
 	}
 
+	/**
+	 * Like {@link #start()}, but instead of spooling up a thread of its own, the game is ticked by the given executor,
+	 * which may tick many other games as well. Only if the game isn't currently running, that is.
+	 * @param ticker The executor that ticks the game.
+	 */
+	public void start(ScheduledExecutorService ticker) {
+		if (!running) {
+			running = true;
+			gameUpdater = new GameUpdater(this);
+			gameUpdater.runOn(ticker);
+		}
+	}
+
 	/**
 	 * Tries to quit the game, if it is running.
 	 */
 	public void quit() {
 		if (running) {
 			running = false;
-			gameUpdaterThread.interrupt();
+			// A game ticked by an executor has no thread of its own, it simply isn't ticked again.
+			if (gameUpdaterThread != null) gameUpdaterThread.interrupt();
 			gameUpdaterThread = null; // Throw away the game updater thread and let the GC remove it.
+			gameUpdater = null;
 		}
 	}
 
@@ -167,40 +335,66 @@ public class Game extends ObservableGame {
 	}
 
 	/**
-	 * finds free location for the spaceship
+	 * finds free location for the spaceship. In a world too crowded to have a free location, as with many players in
+	 * a small world, the location furthest away from all other objects of the ones tried is taken.
+	 *
+	 * Spaceships join from the network thread of a server while the game ticks, so the asteroids are taken from the
+	 * latest published snapshot instead of the collection that the tick changes, and the spaceships from their list,
+	 * which may be read while spaceships are added.
 	 * @return free location as Point2D.Double
 	 */
 	private Point2D.Double findFreeLocation() {
-		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		SplittableRandom rng = spawnRandom;
 		Point.Double newLocation;
-		double distanceX, distanceY;
+		Point.Double bestLocation = null;
+		double bestDistance = -1.0;
 		int i = 100;
-		ArrayList<GameObject> objects = new ArrayList<>();
-		objects.addAll(asteroids);
-		objects.addAll(spaceships);
-		while (i > 0) { // Iterate until a point is found that is far enough away from the player.
-			newLocation = new Point.Double(rng.nextDouble(0.0, 800.0), rng.nextDouble(0.0, 800.0));
-			boolean success = true;
-			for (GameObject obj: objects) {
-				distanceX = newLocation.x - obj.getLocation().x;
-				distanceY = newLocation.y - obj.getLocation().y;
-				// Pythagorean theorem for distance between two points.
-				if (distanceX * distanceX + distanceY * distanceY < 50 * 50) {
-					success = false;
-					break;
+		WorldSnapshot snapshot = snapshots.acquire();
+		try {
+			while (i > 0) { // Iterate until a point is found that is far enough away from the player.
+				newLocation = new Point.Double(rng.nextDouble(0.0, world.getWidth()),
+						rng.nextDouble(0.0, world.getHeight()));
+				double nearest = Double.MAX_VALUE;
+				if (snapshot != null) {
+					for (int j = 0; j < snapshot.getAsteroidCount(); j++) {
+						nearest = Math.min(nearest, distanceSquared(newLocation, snapshot.getAsteroidX(j),
+								snapshot.getAsteroidY(j)));
+					}
+				}
+				for (Spaceship ship: spaceships) {
+					Point.Double location = ship.getLocation();
+					nearest = Math.min(nearest, distanceSquared(newLocation, location.x, location.y));
+				}
+				if (nearest >= 50 * 50) return newLocation;
+				if (nearest > bestDistance) {
+					bestDistance = nearest;
+					bestLocation = newLocation;
 				}
+				i--;
 			}
-			if (success) return newLocation;
-			i--;
+		} finally {
+			if (snapshot != null) snapshot.release();
 		}
-		return null;
+		return bestLocation;
+	}
+
+	/**
+	 * @param location A point.
+	 * @param x The x coordinate of another point.
+	 * @param y The y coordinate of another point.
+	 * @return The squared distance between the two points, by the Pythagorean theorem.
+	 */
+	private static double distanceSquared(Point.Double location, double x, double y) {
+		double distanceX = location.x - x;
+		double distanceY = location.y - y;
+		return distanceX * distanceX + distanceY * distanceY;
 	}
 
 	/**
-	 * @return The game's spaceship.
+	 * @return The game's spaceship, which is the local player's, or null if there is no local player.
 	 */
 	public Spaceship getSpaceship() {
-		if (spaceships.size() > 0) return spaceships.get(0);
+		if (!dedicated && spaceships.size() > 0) return spaceships.get(0);
 		return null;
 	}
 
@@ -218,13 +412,36 @@ public class Game extends ObservableGame {
 		return bullets;
 	}
 
+	/**
+	 * @return pool of bullets that can be reused
+	 */
+	public ObjectPool<Bullet> getBulletPool() {
+		return bulletPool;
+	}
+
+	/**
+	 * @return pool of asteroids that can be reused
+	 */
+	public ObjectPool<Asteroid> getAsteroidPool() {
+		return asteroidPool;
+	}
+
 	/**
 	 * @return spaceships
 	 */
-	public ArrayList<Spaceship> getSpaceships() {
+	public List<Spaceship> getSpaceships() {
 		return spaceships;
 	}
 
+	/**
+	 * Looks up a spaceship that was added to this game, in the same time for any number of spaceships.
+	 * @param id The id of the spaceship.
+	 * @return The spaceship with the given id, or null if there is none.
+	 */
+	public Spaceship getSpaceship(int id) {
+		return spaceshipsById.get(id);
+	}
+
 	/**
 	 * @return asteroidsOnly
 	 */
@@ -253,6 +470,13 @@ public class Game extends ObservableGame {
 		return client;
 	}
 
+	/**
+	 * @return dedicated
+	 */
+	public boolean isDedicated() {
+		return dedicated;
+	}
+
 	/**
 	 * setter for asteroidsOnly
 	 * @param asteroidsOnly to be set
@@ -285,6 +509,21 @@ public class Game extends ObservableGame {
 		this.client = client;
 	}
 
+	/**
+	 * @return true if asteroids and bullets are kept in entity stores
+	 */
+	public boolean isEntityStoreEnabled() {
+		return entityStoreEnabled;
+	}
+
+	/**
+	 * setter for entityStoreEnabled, which takes effect the next time the lists are reset
+	 * @param entityStoreEnabled to be set
+	 */
+	public void setEntityStoreEnabled(boolean entityStoreEnabled) {
+		this.entityStoreEnabled = entityStoreEnabled;
+	}
+
 	/**
 	 * @return Whether or not the game is running.
 	 */
@@ -300,6 +539,76 @@ public class Game extends ObservableGame {
 		return getSpaceship().isDestroyed();
 	}
 
+	/**
+	 * @return The generator that all randomness in the game should be taken from. It is not thread safe, so it should
+	 * be used by one thread at a time.
+	 */
+	public SplittableRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * @return The seed that the current round of this game started with.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Fixes the seed of the game, and starts the random generator over from it. Every following round of the game
+	 * starts with the same seed as well, so that with the same input, every round is exactly the same.
+	 * @param seed The seed to be used.
+	 */
+	public void setSeed(long seed) {
+		fixedSeed = seed;
+		this.seed = seed;
+		random = new SplittableRandom(seed);
+		spawnRandom = random.split();
+	}
+
+	/**
+	 * @return The world in which this game takes place.
+	 */
+	public WorldConfig getWorld() {
+		return world;
+	}
+
+	/**
+	 * @return The publisher of the snapshots of this game.
+	 */
+	public SnapshotPublisher getSnapshots() {
+		return snapshots;
+	}
+
+	/**
+	 * @return The publisher that snapshots received from a server go to. In a client or spectator, the game updater
+	 * shows them through the interpolation, in any other game they are shown as they are.
+	 */
+	public SnapshotPublisher getReceivedSnapshots() {
+		return client || spectate ? receivedSnapshots : snapshots;
+	}
+
+	/**
+	 * @return The prediction of the spaceship of this game, when it is a client.
+	 */
+	public ShipPrediction getPrediction() {
+		return prediction;
+	}
+
+	/**
+	 * @return The interpolation of the snapshots received by this game, when it is a client or spectator.
+	 */
+	public SnapshotInterpolation getInterpolation() {
+		return interpolation;
+	}
+
+	/**
+	 * @return the game updater of the running game, which reports the actual tick rate, or null if not running
+	 */
+	public GameUpdater getGameUpdater() {
+		return gameUpdater;
+	}
+
 	/**
 	 * @return lastLocalTick
 	 */
@@ -1,8 +1,7 @@
 package aoop.asteroids.model.game;
 
-import aoop.asteroids.view.AsteroidsFrame;
-
 import java.awt.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents any object that is present in a game, such as a bullet, asteroid, or a player's ship. As an
@@ -11,6 +10,18 @@ import java.awt.*;
  */
 public abstract class GameObject {
 
+	/**
+	 * The id that the next game object gets. Game objects of all games share it, and it is atomic since the games of a
+	 * dedicated server are ticked by several threads.
+	 */
+	private static final AtomicInteger nextEntityId = new AtomicInteger();
+
+	/**
+	 * An id that tells this object apart from the other objects in its game, also across ticks. A reused object gets a
+	 * new id, since it is a new object as far as the game is concerned.
+	 */
+	private int entityId;
+
 	/**
 	 * An x and y value pair indicating the object's current location.
 	 */
@@ -22,7 +33,7 @@ public abstract class GameObject {
 	private final Point.Double velocity;
 
 	/** Radius of the object. */
-	private final double radius;
+	private double radius;
 
 	/**
 	 * A flag that is set when this object collides with another. This tells the game engine that this object should be
@@ -36,6 +47,16 @@ public abstract class GameObject {
 	 */
 	private int stepsUntilCollisionPossible;
 
+	/**
+	 * The entity store which holds the state of this object, or null if the object holds its own state.
+	 */
+	private EntityStore<?> store;
+
+	/**
+	 * The position of this object in its entity store.
+	 */
+	private int slot;
+
 	/**
 	 * Constructs a new game object with the specified location, velocity and radius.
 	 * @param locationX The object's location on the x-axis.
@@ -49,6 +70,7 @@ public abstract class GameObject {
 		velocity = new Point.Double(velocityX, velocityY);
 		this.radius = radius;
 		stepsUntilCollisionPossible = getDefaultStepsUntilCollisionPossible();
+		entityId = nextEntityId.getAndIncrement();
 	}
 
 	/**
@@ -75,14 +97,52 @@ public abstract class GameObject {
 		stepsUntilCollisionPossible = steps;
 	}
 
+	/**
+	 * Reinitialises a reused object with a new location, velocity and radius, as if it was just constructed. The
+	 * existing points are reused, so this does not allocate anything.
+	 * @param locationX The object's location on the x-axis.
+	 * @param locationY The object's location on the y-axis.
+	 * @param velocityX Velocity in X direction.
+	 * @param velocityY Velocity in Y direction.
+	 * @param radius Radius of the object.
+	 */
+	protected void reinitialise(double locationX, double locationY, double velocityX, double velocityY, double radius) {
+		if (store != null) throw new IllegalStateException("Cannot reinitialise an object that is in an entity store");
+		location.x = locationX;
+		location.y = locationY;
+		velocity.x = velocityX;
+		velocity.y = velocityY;
+		this.radius = radius;
+		destroyed = false;
+		stepsUntilCollisionPossible = getDefaultStepsUntilCollisionPossible();
+		entityId = nextEntityId.getAndIncrement();
+	}
+
 	/**
 	 * Child classes should implement this method to define what happens to an object when the game advances by one game
 	 * tick in the main loop. The amount of time that passes with each step should be the same, so that movement is
 	 * uniform even when performance may suffer.
+	 *
+	 * Objects move through the default world, see {@link #nextStep(WorldConfig)} for games of other sizes.
+	 */
+	public final void nextStep() {
+		nextStep(WorldConfig.DEFAULT);
+	}
+
+	/**
+	 * Advances this object by one game tick in the given world. Objects that leave the world on one side come back on
+	 * the other side.
+	 * @param world The world of the game that this object is in.
 	 */
-	public void nextStep() {
-		location.x = (AsteroidsFrame.WINDOW_SIZE.width + location.x + velocity.x) % AsteroidsFrame.WINDOW_SIZE.width;
-		location.y = (AsteroidsFrame.WINDOW_SIZE.height + location.y + velocity.y) % AsteroidsFrame.WINDOW_SIZE.height;
+	public void nextStep(WorldConfig world) {
+		if (store != null) {
+			store.step(slot, world);
+			return;
+		}
+		double width = world.getWidth();
+		double height = world.getHeight();
+		location.x = (width + location.x + velocity.x) % width;
+		location.y = (height + location.y + velocity.y) % height;
 		if (stepsUntilCollisionPossible > 0) {
 			stepsUntilCollisionPossible--;
 		}
@@ -100,31 +160,75 @@ public abstract class GameObject {
 	 */
 	public double getRadius()
 	{
+		if (store != null) return store.radius[slot];
 		return radius;
 	}
 
 	/**
-	 * @return The current location of this object.
+	 * @return The current location of this object. For an object in an entity store, the point is refreshed from the
+	 * store on every call, and changes made to it are not written back; use setLocation() instead.
 	 */
 	public Point.Double getLocation() {
+		if (store != null) {
+			location.x = store.locationX[slot];
+			location.y = store.locationY[slot];
+		}
 		return location;
 	}
 
+	/**
+	 * @return The location of this object on the x-axis. For an object in an entity store, this is read straight from
+	 * the store, without refreshing the point that getLocation() returns.
+	 */
+	public double getLocationX() {
+		return store != null ? store.locationX[slot] : location.x;
+	}
+
+	/**
+	 * @return The location of this object on the y-axis, read in the same way as getLocationX().
+	 */
+	public double getLocationY() {
+		return store != null ? store.locationY[slot] : location.y;
+	}
+
 	/**
 	 * setter for location
 	 * @param location to be set
 	 */
 	public void setLocation(Point.Double location) {
 		this.location = location;
+		if (store != null) {
+			store.locationX[slot] = location.x;
+			store.locationY[slot] = location.y;
+		}
 	}
 
 	/**
-	 * @return The current velocity of this object.
+	 * @return The current velocity of this object. Like the location, it is refreshed from the entity store on every
+	 * call if the object is in one, and changes made to it are then not written back; use setVelocity() instead.
 	 */
 	public Point.Double getVelocity() {
+		if (store != null) {
+			velocity.x = store.velocityX[slot];
+			velocity.y = store.velocityY[slot];
+		}
 		return velocity;
 	}
 
+	/**
+	 * Sets the velocity of this object, also if it is in an entity store.
+	 * @param velocityX Velocity in X direction.
+	 * @param velocityY Velocity in Y direction.
+	 */
+	public void setVelocity(double velocityX, double velocityY) {
+		velocity.x = velocityX;
+		velocity.y = velocityY;
+		if (store != null) {
+			store.velocityX[slot] = velocityX;
+			store.velocityY[slot] = velocityY;
+		}
+	}
+
 	/**
 	 * @return The speed of the object, as a scalar value combining the x- and y-velocities.
 	 */
@@ -133,9 +237,26 @@ public abstract class GameObject {
 	}
 
 	public int getStepsUntilCollisionPossible() {
+		if (store != null) return store.stepsUntilCollisionPossible[slot];
 		return stepsUntilCollisionPossible;
 	}
 
+	/**
+	 * Sets the number of steps for which this object is immune from collisions.
+	 * @param steps The number of steps.
+	 */
+	void setStepsUntilCollisionPossible(int steps) {
+		if (store != null) store.stepsUntilCollisionPossible[slot] = steps;
+		stepsUntilCollisionPossible = steps;
+	}
+
+	/**
+	 * @return The id that tells this object apart from the other objects in its game.
+	 */
+	public int getEntityId() {
+		return entityId;
+	}
+
 	/**
 	 * @return true if the object is destroyed, false otherwise.
 	 */
@@ -152,15 +273,72 @@ public abstract class GameObject {
 	 * @return True if object collides with given object, false otherwise.
 	 */
 	public boolean collides(GameObject other) {
-		return getLocation().distance(other.getLocation()) < getRadius() + other.getRadius()
-				&& canCollide() && other.canCollide();
+		double distanceX = getLocationX() - other.getLocationX();
+		double distanceY = getLocationY() - other.getLocationY();
+		double radii = getRadius() + other.getRadius();
+		return distanceX * distanceX + distanceY * distanceY < radii * radii && canCollide() && other.canCollide();
 	}
 
 	/**
 	 * @return Whether or not this object is immune from collisions.
 	 */
 	private boolean canCollide() {
-		return stepsUntilCollisionPossible <= 0;
+		return getStepsUntilCollisionPossible() <= 0;
+	}
+
+	/**
+	 * @return true if this object's state is held by an entity store.
+	 */
+	public boolean isStored() {
+		return store != null;
+	}
+
+	/**
+	 * Hands the state of this object over to an entity store, which holds it from now on.
+	 * @param store the store that this object is added to
+	 * @param slot position of this object in the store
+	 */
+	void attach(EntityStore<?> store, int slot) {
+		store.locationX[slot] = location.x;
+		store.locationY[slot] = location.y;
+		store.velocityX[slot] = velocity.x;
+		store.velocityY[slot] = velocity.y;
+		store.radius[slot] = radius;
+		store.stepsUntilCollisionPossible[slot] = stepsUntilCollisionPossible;
+		this.store = store;
+		this.slot = slot;
+	}
+
+	/**
+	 * Takes the state of this object back from its entity store, just before it is removed from the store.
+	 */
+	void detach() {
+		getLocation();
+		getVelocity();
+		stepsUntilCollisionPossible = store.stepsUntilCollisionPossible[slot];
+		store = null;
+	}
+
+	/**
+	 * Called by the entity store when it moves this object to another position.
+	 * @param slot new position of this object in the store
+	 */
+	void moveSlot(int slot) {
+		this.slot = slot;
+	}
+
+	/**
+	 * @return The entity store holding this object's state, or null if there is none.
+	 */
+	EntityStore<?> getStore() {
+		return store;
+	}
+
+	/**
+	 * @return The position of this object in its entity store.
+	 */
+	int getSlot() {
+		return slot;
 	}
 
 	/**
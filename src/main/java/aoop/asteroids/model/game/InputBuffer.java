@@ -0,0 +1,96 @@
+package aoop.asteroids.model.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the inputs that the client of a spaceship sent to the server until the spaceship takes them, one per tick, in
+ * the order of their sequence numbers. A client sends its latest few inputs in every packet, so an input that was in a
+ * lost packet usually arrives with one of the next packets, and every input is still taken exactly once, at the tick
+ * that it is its turn.
+ *
+ * An input that is still missing when a newer input is there was in every packet that could have carried it, so it is
+ * skipped. When no input is there in time, the spaceship keeps the keys of its last input, and from then on the buffer
+ * stays an input behind, which covers the next lost packet without waiting. Inputs that pile up, for instance after a
+ * burst of delayed packets, are dropped from the oldest on, so that the input of a client is never taken much later
+ * than it was sent.
+ *
+ * Inputs are offered by the network thread of the server and taken by the thread that ticks the game, without locking.
+ */
+public class InputBuffer {
+
+	/**
+	 * Stands for no input at all.
+	 */
+	public static final long NONE = 0L;
+
+	/**
+	 * The number of inputs that are kept, which must be a power of two.
+	 */
+	private static final int CAPACITY = 32;
+
+	/**
+	 * The largest number of inputs that may wait to be taken, about a fifth of a second at the default tick rate.
+	 */
+	private static final int MAX_WAITING = 6;
+
+	/**
+	 * The kept inputs, each with its sequence number in the high half, at the index of its sequence number modulo the
+	 * capacity.
+	 */
+	private final AtomicLongArray inputs;
+
+	/**
+	 * The sequence number of the newest offered input, 0 if none was offered yet.
+	 */
+	private volatile int newest;
+
+	/**
+	 * The sequence number of the last taken input, 0 if none was taken yet.
+	 */
+	private int taken;
+
+	/**
+	 * Constructs a new, empty buffer.
+	 */
+	public InputBuffer() {
+		inputs = new AtomicLongArray(CAPACITY);
+	}
+
+	/**
+	 * Keeps an input that arrived, unless it was kept before or a newer input took its place.
+	 * @param sequence The sequence number of the input, from 1 on.
+	 * @param input The input, as returned by {@link Spaceship#getInputValue()}.
+	 */
+	public void offer(int sequence, int input) {
+		if (sequence <= 0) return;
+		int index = sequence & (CAPACITY - 1);
+		if ((int) (inputs.get(index) >>> 32) >= sequence) return;
+		inputs.set(index, (long) sequence << 32 | (input & 0xFFFFFFFFL));
+		if (sequence > newest) newest = sequence;
+	}
+
+	/**
+	 * Takes the next input, skipping inputs that are lost for good and inputs that waited too long.
+	 * @return The input with its sequence number in the high 32 bits, or {@link #NONE} if the next input is not there.
+	 */
+	public long poll() {
+		int newest = this.newest;
+		if (newest <= taken) return NONE;
+		int wanted = taken == 0 ? newest : Math.max(taken + 1, newest - MAX_WAITING + 1);
+		for (; wanted <= newest; wanted++) {
+			long input = inputs.get(wanted & (CAPACITY - 1));
+			if ((int) (input >>> 32) == wanted) {
+				taken = wanted;
+				return input;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * @return The number of inputs that arrived and were not taken yet.
+	 */
+	int getWaiting() {
+		return Math.max(newest - taken, 0);
+	}
+}
@@ -0,0 +1,237 @@
+package aoop.asteroids.model.game;
+
+import java.util.Arrays;
+
+/**
+ * An index of the objects in a snapshot by where they are in the world, so that the objects in an area of interest can
+ * be found without looking at every object in the world. The world is split into a grid of equal cells, and the objects
+ * of each kind are sorted by the cell that their centre is in. An area then only looks at the objects in the cells it
+ * overlaps, so the cost of selecting the objects for a client depends on how many objects are near it, not on how large
+ * the world is.
+ *
+ * The grid is built again from the newest snapshot every tick, into arrays that are kept from tick to tick, by the
+ * thread that ticks the game of its room. Once it is built, any number of threads may select from it at the same time,
+ * as a selection only reads the grid.
+ */
+public class InterestGrid {
+
+	/**
+	 * The maximum number of cells along each axis of the world, which limits the memory used by the grid.
+	 */
+	private static final int MAX_CELLS = 256;
+
+	/**
+	 * The preferred size of a cell, which is about the size of an area of interest.
+	 */
+	private final double cellSize;
+
+	/**
+	 * The snapshot that the grid was built from.
+	 */
+	private WorldSnapshot snapshot;
+
+	/**
+	 * The number of cells along each axis, and the size of a cell along each axis.
+	 */
+	private int columns;
+	private int rows;
+	private double cellWidth;
+	private double cellHeight;
+
+	/**
+	 * The objects of each kind, sorted by cell.
+	 */
+	private final Cells ships;
+	private final Cells asteroids;
+	private final Cells bullets;
+
+	/**
+	 * Constructs a new, empty grid.
+	 * @param cellSize The preferred size of a cell, which should be about the size of the areas that are selected.
+	 */
+	public InterestGrid(double cellSize) {
+		if (!(cellSize > 0)) throw new IllegalArgumentException("The size of a cell must be positive");
+		this.cellSize = cellSize;
+		ships = new Cells();
+		asteroids = new Cells();
+		bullets = new Cells();
+	}
+
+	/**
+	 * Sorts the objects of a snapshot into the cells of the grid.
+	 * @param snapshot The snapshot, which must be held for as long as the grid is used.
+	 */
+	public void build(WorldSnapshot snapshot) {
+		this.snapshot = snapshot;
+		columns = getCellCount(snapshot.getWorldWidth());
+		rows = getCellCount(snapshot.getWorldHeight());
+		cellWidth = snapshot.getWorldWidth() / columns;
+		cellHeight = snapshot.getWorldHeight() / rows;
+		ships.build(snapshot.ships);
+		asteroids.build(snapshot.asteroids);
+		bullets.build(snapshot.bullets);
+	}
+
+	/**
+	 * Writes the objects of the snapshot that the grid was built from that overlap an area into another snapshot, in
+	 * the same order as they have in the snapshot. The area is measured across the edges of the world, as objects move
+	 * across them.
+	 * @param centreX The x coordinate of the centre of the area.
+	 * @param centreY The y coordinate of the centre of the area.
+	 * @param halfWidth Half the width of the area, or its radius if it is round.
+	 * @param halfHeight Half the height of the area, which is ignored if it is round.
+	 * @param round Whether the area is a circle instead of a rectangle.
+	 * @param target The snapshot to write into.
+	 * @param found An array of at least {@link #getLargestCount()} ints, to hold the indices of the found objects.
+	 */
+	void select(double centreX, double centreY, double halfWidth, double halfHeight, boolean round,
+				WorldSnapshot target, int[] found) {
+		if (round) halfHeight = halfWidth;
+		target.copyHeaderFrom(snapshot);
+		ships.select(snapshot.ships, centreX, centreY, halfWidth, halfHeight, round, target.ships, found);
+		asteroids.select(snapshot.asteroids, centreX, centreY, halfWidth, halfHeight, round, target.asteroids, found);
+		bullets.select(snapshot.bullets, centreX, centreY, halfWidth, halfHeight, round, target.bullets, found);
+	}
+
+	/**
+	 * @return The largest number of objects of one kind in the snapshot that the grid was built from.
+	 */
+	int getLargestCount() {
+		return Math.max(snapshot.ships.count, Math.max(snapshot.asteroids.count, snapshot.bullets.count));
+	}
+
+	/**
+	 * @return The snapshot that the grid was built from, or null if it was not built yet.
+	 */
+	public WorldSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @param size The size of the world along an axis.
+	 * @return The number of cells along that axis.
+	 */
+	private int getCellCount(double size) {
+		return (int) Math.max(1, Math.min(MAX_CELLS, Math.ceil(size / cellSize)));
+	}
+
+	/**
+	 * @param coordinate A coordinate along an axis of the world.
+	 * @param size The size of a cell along that axis.
+	 * @param count The number of cells along that axis.
+	 * @return The cell along that axis that the coordinate is in, wrapped around the edges of the world.
+	 */
+	private static int toCell(double coordinate, double size, int count) {
+		return Math.floorMod((int) Math.floor(coordinate / size), count);
+	}
+
+	/**
+	 * The objects of one kind, sorted by the cell they are in.
+	 */
+	private final class Cells {
+
+		/**
+		 * The index in items of the first object of each cell, followed by the number of objects.
+		 */
+		private int[] starts;
+
+		/**
+		 * The indices of the objects in the table, cell after cell.
+		 */
+		private int[] items;
+
+		/**
+		 * The cell of each object in the table.
+		 */
+		private int[] cellOf;
+
+		/**
+		 * The radius of the largest object, by which an area is widened to find objects that stick into it.
+		 */
+		private double maxRadius;
+
+		/**
+		 * Constructs empty cells.
+		 */
+		private Cells() {
+			starts = new int[1];
+			items = new int[0];
+			cellOf = new int[0];
+		}
+
+		/**
+		 * Sorts the objects of a table by cell, with a counting sort.
+		 * @param table The objects.
+		 */
+		private void build(WorldSnapshot.Table table) {
+			int cells = columns * rows;
+			if (starts.length < cells + 1) starts = new int[cells + 1];
+			else Arrays.fill(starts, 0, cells + 1, 0);
+			if (items.length < table.count) {
+				items = new int[table.count];
+				cellOf = new int[table.count];
+			}
+			maxRadius = 0.0;
+			for (int i = 0; i < table.count; i++) {
+				int cell = toCell(table.y[i], cellHeight, rows) * columns + toCell(table.x[i], cellWidth, columns);
+				cellOf[i] = cell;
+				starts[cell]++;
+				maxRadius = Math.max(maxRadius, table.radius[i]);
+			}
+			// Each start holds the end of its cell first, and is moved back to its start as the cell is filled.
+			for (int cell = 1; cell < cells; cell++) {
+				starts[cell] += starts[cell - 1];
+			}
+			starts[cells] = table.count;
+			for (int i = table.count - 1; i >= 0; i--) {
+				items[--starts[cellOf[i]]] = i;
+			}
+		}
+
+		/**
+		 * Copies the objects that overlap an area into another table, see
+		 * {@link InterestGrid#select(double, double, double, double, boolean, WorldSnapshot, int[])}.
+		 * @param table The objects that were sorted.
+		 * @param target The table to copy into.
+		 * @param found The array to hold the indices of the found objects in.
+		 */
+		private void select(WorldSnapshot.Table table, double centreX, double centreY, double halfWidth,
+							double halfHeight, boolean round, WorldSnapshot.Table target, int[] found) {
+			double width = columns * cellWidth;
+			double height = rows * cellHeight;
+			int firstColumn = (int) Math.floor((centreX - halfWidth - maxRadius) / cellWidth);
+			int lastColumn = (int) Math.floor((centreX + halfWidth + maxRadius) / cellWidth);
+			if (lastColumn - firstColumn >= columns) {
+				firstColumn = 0;
+				lastColumn = columns - 1;
+			}
+			int firstRow = (int) Math.floor((centreY - halfHeight - maxRadius) / cellHeight);
+			int lastRow = (int) Math.floor((centreY + halfHeight + maxRadius) / cellHeight);
+			if (lastRow - firstRow >= rows) {
+				firstRow = 0;
+				lastRow = rows - 1;
+			}
+			int count = 0;
+			for (int row = firstRow; row <= lastRow; row++) {
+				int rowStart = Math.floorMod(row, rows) * columns;
+				for (int column = firstColumn; column <= lastColumn; column++) {
+					int cell = rowStart + Math.floorMod(column, columns);
+					for (int k = starts[cell]; k < starts[cell + 1]; k++) {
+						int i = items[k];
+						double dx = Math.abs(WorldSnapshot.Table.shortest(table.x[i] - centreX, width));
+						double dy = Math.abs(WorldSnapshot.Table.shortest(table.y[i] - centreY, height));
+						double reach = halfWidth + table.radius[i];
+						boolean inside = round ? dx * dx + dy * dy <= reach * reach
+								: dx <= reach && dy <= halfHeight + table.radius[i];
+						if (inside) found[count++] = i;
+					}
+				}
+			}
+			Arrays.sort(found, 0, count);
+			target.clear(count);
+			for (int k = 0; k < count; k++) {
+				target.addFrom(table, found[k]);
+			}
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package aoop.asteroids.model.game;
+
+/**
+ * Predicts the spaceship of a client, so that the player sees it react to input in the next frame instead of after a
+ * round trip to the server. The client keeps running its own game with only its own spaceship in it, and records the
+ * input of every tick under a growing sequence number, which is sent to the server along with the input.
+ *
+ * The server tells in every snapshot up to which input each spaceship has moved. When a new snapshot arrives, the
+ * spaceship of the client is put back where the server has it, and all inputs that the server did not take into account
+ * yet are replayed on top of it. The server does not send the energy and weapon cooldown of spaceships, so those are
+ * put back to what the client had before the first replayed input. What is shown are the snapshots of the server, with
+ * the spaceship of the client where the prediction has it.
+ *
+ * All methods are called by the game updater thread of the client, except {@link #getLatestInput()} and
+ * {@link #getInput(int)}, which the network thread reads.
+ */
+public class ShipPrediction {
+
+	/**
+	 * The default number of inputs that are kept, about four seconds of a game at the default tick rate.
+	 */
+	public static final int DEFAULT_CAPACITY = 128;
+
+	/**
+	 * The recorded inputs, each at the index of its sequence number modulo the capacity.
+	 */
+	private final int[] inputs;
+
+	/**
+	 * The energy and weapon cooldown of the spaceship before each recorded input, at the same index as the input.
+	 */
+	private final double[] energies;
+	private final int[] cooldowns;
+
+	/**
+	 * The sequence number of the latest recorded input, 0 if none was recorded yet.
+	 */
+	private int sequence;
+
+	/**
+	 * The latest recorded input, with its sequence number in the high half, so that both are read at once.
+	 */
+	private volatile long latestInput;
+
+	/**
+	 * The tick of the last received snapshot that the spaceship was put back to.
+	 */
+	private int reconciledTick;
+
+	/**
+	 * Constructs a new prediction that keeps the default number of inputs.
+	 */
+	public ShipPrediction() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new prediction.
+	 * @param capacity The number of inputs to keep, which should cover the longest expected round trip.
+	 */
+	public ShipPrediction(int capacity) {
+		inputs = new int[capacity];
+		energies = new double[capacity];
+		cooldowns = new int[capacity];
+		reconciledTick = SnapshotHistory.NO_TICK;
+	}
+
+	/**
+	 * Called at the start of every tick of the client. Puts the spaceship back to the latest received snapshot if a new
+	 * one arrived, and then records the input of this tick.
+	 * @param game The game of the client.
+	 */
+	public void beforeStep(Game game) {
+		Spaceship ship = game.getSpaceship();
+		WorldSnapshot received = game.getReceivedSnapshots().acquire();
+		if (received != null) {
+			try {
+				if (received.getTick() != reconciledTick) {
+					reconciledTick = received.getTick();
+					reconcile(ship, received, game.getWorld());
+				}
+			} finally {
+				received.release();
+			}
+		}
+		record(ship);
+	}
+
+	/**
+	 * Puts the predicted spaceship into a snapshot that is about to be shown, unless the server does not tell which
+	 * input it took into account, in which case the spaceship cannot be predicted and is shown as the server has it.
+	 * @param snapshot The snapshot to be shown, made from the snapshots received from the server.
+	 * @param ship The spaceship of the client.
+	 */
+	public void place(WorldSnapshot snapshot, Spaceship ship) {
+		int i = snapshot.indexOfShip(ship.getID());
+		if (i >= 0 && snapshot.getShipInputSequence(i) > 0) snapshot.placeShip(ship);
+	}
+
+	/**
+	 * Records the input of the next tick, which are the keys pressed now, and the energy and weapon cooldown that the
+	 * spaceship starts the tick with.
+	 * @param ship The spaceship of the client.
+	 * @return The sequence number of the input.
+	 */
+	int record(Spaceship ship) {
+		int input = ship.getInputValue();
+		sequence++;
+		int index = sequence % inputs.length;
+		inputs[index] = input;
+		energies[index] = ship.getEnergy();
+		cooldowns[index] = ship.getWeaponCooldownRemaining();
+		latestInput = (long) sequence << 32 | (input & 0xFFFFFFFFL);
+		return sequence;
+	}
+
+	/**
+	 * Puts the spaceship back where a snapshot has it, and replays all inputs recorded after the latest input that the
+	 * server took into account.
+	 * @param ship The spaceship of the client.
+	 * @param snapshot The snapshot received from the server.
+	 * @param world The world of the game.
+	 * @return True if the spaceship was put back, false if the snapshot does not tell which input it took into account,
+	 * or the inputs after it are not kept anymore.
+	 */
+	boolean reconcile(Spaceship ship, WorldSnapshot snapshot, WorldConfig world) {
+		int i = snapshot.indexOfShip(ship.getID());
+		if (i < 0) return false;
+		int acknowledged = snapshot.getShipInputSequence(i);
+		if (acknowledged <= 0 || acknowledged > sequence || sequence - acknowledged >= inputs.length) return false;
+		ship.loadState(snapshot, i);
+		if (acknowledged < sequence) {
+			int first = (acknowledged + 1) % inputs.length;
+			ship.restoreWeapon(energies[first], cooldowns[first]);
+		}
+		for (int replayed = acknowledged + 1; replayed <= sequence; replayed++) {
+			ship.replayStep(world, inputs[replayed % inputs.length]);
+		}
+		return true;
+	}
+
+	/**
+	 * @return The latest recorded input, with its sequence number in the high 32 bits and the input in the low 32 bits,
+	 * or 0 if none was recorded yet.
+	 */
+	public long getLatestInput() {
+		return latestInput;
+	}
+
+	/**
+	 * Looks up one of the latest recorded inputs, which are sent along with every newer input in case they got lost.
+	 * An input is only recorded before the latest input is, so any input up to the sequence number of the latest input
+	 * read before can be looked up from another thread, as long as it is much newer than the number of kept inputs.
+	 * @param sequence The sequence number of the input.
+	 * @return The input, or 0 if it is not kept.
+	 */
+	public int getInput(int sequence) {
+		if (sequence <= 0 || sequence > this.sequence || this.sequence - sequence >= inputs.length) return 0;
+		return inputs[sequence % inputs.length];
+	}
+}
@@ -0,0 +1,85 @@
+package aoop.asteroids.model.game;
+
+/**
+ * Keeps copies of the snapshots of the last few ticks of a game, so that a new snapshot can be sent as the difference
+ * with an older one that the receiver is known to have. The server keeps the snapshots it sent, and the client keeps
+ * the snapshots it received, so both sides can look up the same older snapshot by its tick.
+ *
+ * A history is used by one thread only.
+ */
+public class SnapshotHistory {
+
+	/**
+	 * The tick that stands for no snapshot at all.
+	 */
+	public static final int NO_TICK = -1;
+
+	/**
+	 * The default number of ticks that are kept, a second of a game at the default tick rate.
+	 */
+	public static final int DEFAULT_CAPACITY = 32;
+
+	/**
+	 * The kept snapshots, each at the index of its tick modulo the capacity.
+	 */
+	private final WorldSnapshot[] snapshots;
+
+	/**
+	 * Whether the snapshot at the same index holds a recorded tick.
+	 */
+	private final boolean[] recorded;
+
+	/**
+	 * The newest tick that was recorded.
+	 */
+	private int newestTick;
+
+	/**
+	 * Constructs a new, empty history of the default capacity.
+	 */
+	public SnapshotHistory() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new, empty history.
+	 * @param capacity The number of ticks to keep.
+	 */
+	public SnapshotHistory(int capacity) {
+		snapshots = new WorldSnapshot[capacity];
+		recorded = new boolean[capacity];
+		for (int i = 0; i < capacity; i++) snapshots[i] = new WorldSnapshot();
+		newestTick = NO_TICK;
+	}
+
+	/**
+	 * Keeps a copy of the given snapshot, replacing the one that was kept for the tick one capacity earlier.
+	 * @param snapshot The snapshot to keep.
+	 */
+	public void record(WorldSnapshot snapshot) {
+		int tick = snapshot.getTick();
+		int index = Math.floorMod(tick, snapshots.length);
+		if (recorded[index] && snapshots[index].getTick() == tick) return;
+		snapshots[index].copyFrom(snapshot);
+		recorded[index] = true;
+		if (tick > newestTick) newestTick = tick;
+	}
+
+	/**
+	 * @param tick The tick of the snapshot.
+	 * @return The kept snapshot of the given tick, or null if it is not kept (anymore).
+	 */
+	public WorldSnapshot get(int tick) {
+		if (tick == NO_TICK) return null;
+		int index = Math.floorMod(tick, snapshots.length);
+		if (!recorded[index] || snapshots[index].getTick() != tick) return null;
+		return snapshots[index];
+	}
+
+	/**
+	 * @return The newest tick that was recorded, or {@link #NO_TICK} if none was.
+	 */
+	public int getNewestTick() {
+		return newestTick;
+	}
+}
@@ -0,0 +1,165 @@
+package aoop.asteroids.model.game;
+
+/**
+ * Shows the snapshots that a client receives from the server a little later than they arrive, so that there is
+ * always a newer snapshot to move towards. Snapshots do not arrive as evenly as the server sends them, and showing each
+ * one as soon as it arrives makes the objects on the screen stutter along with the network. Instead, the last few
+ * received snapshots are kept, and every tick of the client shows where the objects were a fixed delay ago on the clock
+ * of the server, in between the two snapshots around that time.
+ *
+ * The clock of the server is estimated from the times at which snapshots arrive. A snapshot can arrive late, but never
+ * earlier than the network allows, so the estimate follows the earliest arrivals right away, and later ones only
+ * slowly, in case the network got slower for good.
+ *
+ * The kept snapshots are copies in buffers that are reused, so receiving and showing snapshots does not allocate
+ * anything in a steady state. An interpolation is used by the game updater thread of the client only.
+ */
+public class SnapshotInterpolation {
+
+	/**
+	 * The default delay, in milliseconds, which covers a late snapshot or two at the default tick rate.
+	 */
+	public static final long DEFAULT_DELAY_MILLIS = 100L;
+
+	/**
+	 * The default number of snapshots that are kept.
+	 */
+	public static final int DEFAULT_CAPACITY = 8;
+
+	/**
+	 * How much of the difference with a later arrival than expected is taken into the estimated clock of the server,
+	 * as a power of two.
+	 */
+	private static final int CLOCK_DRIFT_SHIFT = 6;
+
+	/**
+	 * The kept snapshots, from old to new, of which the first count are used.
+	 */
+	private final WorldSnapshot[] snapshots;
+	private int count;
+
+	/**
+	 * The length of a tick of the server, in nanoseconds.
+	 */
+	private final double tickNanos;
+
+	/**
+	 * How long ago, in nanoseconds, the moment shown was on the clock of the server.
+	 */
+	private final long delayNanos;
+
+	/**
+	 * The estimated time, as returned by {@link System#nanoTime()}, at which a snapshot of tick 0 would arrive.
+	 */
+	private long clockOffset;
+
+	/**
+	 * Constructs a new interpolation that keeps the default number of snapshots.
+	 * @param tickRate The rate at which the server ticks, in ticks per second.
+	 * @param delayNanos How long ago, in nanoseconds, the moment shown is on the clock of the server.
+	 */
+	public SnapshotInterpolation(double tickRate, long delayNanos) {
+		this(tickRate, delayNanos, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new interpolation.
+	 * @param tickRate The rate at which the server ticks, in ticks per second.
+	 * @param delayNanos How long ago, in nanoseconds, the moment shown is on the clock of the server.
+	 * @param capacity The number of snapshots to keep, which should cover the delay and some more.
+	 */
+	public SnapshotInterpolation(double tickRate, long delayNanos, int capacity) {
+		tickNanos = 1e9 / tickRate;
+		this.delayNanos = delayNanos;
+		snapshots = new WorldSnapshot[capacity];
+		for (int i = 0; i < capacity; i++) snapshots[i] = new WorldSnapshot();
+	}
+
+	/**
+	 * Called at the end of every tick of the client. Keeps the latest received snapshot, and publishes the moment that
+	 * is to be shown now, with the predicted spaceship of a client in it. Until anything is received, the game of the
+	 * client itself is published.
+	 * @param game The game of the client.
+	 * @param now The current time, as returned by {@link System#nanoTime()}.
+	 */
+	public void publish(Game game, long now) {
+		WorldSnapshot received = game.getReceivedSnapshots().acquire();
+		if (received != null) {
+			try {
+				offer(received);
+			} finally {
+				received.release();
+			}
+		}
+		SnapshotPublisher publisher = game.getSnapshots();
+		WorldSnapshot snapshot = publisher.claim();
+		if (!interpolate(snapshot, now)) {
+			snapshot.capture(game);
+		} else if (game.isClient() && game.getSpaceship() != null) {
+			game.getPrediction().place(snapshot, game.getSpaceship());
+		}
+		publisher.publish(snapshot);
+	}
+
+	/**
+	 * Keeps a copy of a received snapshot, if it is newer than the kept ones. A snapshot that is older means that the
+	 * game started over, so all kept snapshots are dropped.
+	 * @param received The received snapshot.
+	 */
+	void offer(WorldSnapshot received) {
+		if (count > 0) {
+			int newestTick = snapshots[count - 1].getTick();
+			if (received.getTick() == newestTick) return;
+			if (received.getTick() < newestTick) count = 0;
+		}
+		long offset = received.getTimestamp() - Math.round(received.getTick() * tickNanos);
+		if (count == 0 || offset < clockOffset) clockOffset = offset;
+		else clockOffset += (offset - clockOffset) >> CLOCK_DRIFT_SHIFT;
+		if (count == snapshots.length) {
+			// The oldest buffer is reused for the newest snapshot.
+			WorldSnapshot oldest = snapshots[0];
+			System.arraycopy(snapshots, 1, snapshots, 0, count - 1);
+			snapshots[--count] = oldest;
+		}
+		snapshots[count++].copyFrom(received);
+	}
+
+	/**
+	 * Writes the moment that is to be shown at the given time into a snapshot. Before the oldest kept snapshot the
+	 * oldest is shown, and after the newest the newest, until a newer one arrives.
+	 * @param target The snapshot to write into.
+	 * @param now The current time, as returned by {@link System#nanoTime()}.
+	 * @return True if the snapshot was written, false if no snapshot was received yet.
+	 */
+	boolean interpolate(WorldSnapshot target, long now) {
+		if (count == 0) return false;
+		double tick = getRenderTick(now);
+		int next = 0;
+		while (next < count && snapshots[next].getTick() <= tick) next++;
+		if (next == 0) {
+			target.copyFrom(snapshots[0]);
+		} else if (next == count) {
+			target.copyFrom(snapshots[count - 1]);
+		} else {
+			WorldSnapshot from = snapshots[next - 1];
+			WorldSnapshot to = snapshots[next];
+			target.interpolate(from, to, (tick - from.getTick()) / (to.getTick() - from.getTick()));
+		}
+		return true;
+	}
+
+	/**
+	 * @param now The current time, as returned by {@link System#nanoTime()}.
+	 * @return The tick of the server, with the fraction of a tick, that is to be shown at the given time.
+	 */
+	double getRenderTick(long now) {
+		return (now - delayNanos - clockOffset) / tickNanos;
+	}
+
+	/**
+	 * @return The number of kept snapshots.
+	 */
+	int getCount() {
+		return count;
+	}
+}
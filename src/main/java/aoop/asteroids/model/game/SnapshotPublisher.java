@@ -0,0 +1,92 @@
+package aoop.asteroids.model.game;
+
+import java.util.Arrays;
+
+/**
+ * Publishes the snapshots of a game. The game engine writes a snapshot at the end of each tick into one of a few
+ * reusable buffers, and then makes it the latest snapshot with a single volatile write. Readers, such as the view and
+ * the server, acquire the latest snapshot without locking, and release it when they are done. A buffer is only written
+ * again once all of its readers released it, so no snapshot changes while it is read, and in a steady state no
+ * snapshot is allocated at all.
+ */
+public class SnapshotPublisher {
+
+	/**
+	 * The number of buffers to start with: one being written, one latest, and one still held by a slow reader.
+	 */
+	private static final int DEFAULT_BUFFERS = 3;
+
+	/**
+	 * The buffers that snapshots are written into.
+	 */
+	private WorldSnapshot[] buffers;
+
+	/**
+	 * The latest published snapshot, or null if nothing was published yet.
+	 */
+	private volatile WorldSnapshot latest;
+
+	/**
+	 * Constructs a new publisher, which has not published anything yet.
+	 */
+	public SnapshotPublisher() {
+		buffers = new WorldSnapshot[DEFAULT_BUFFERS];
+		for (int i = 0; i < buffers.length; i++) buffers[i] = new WorldSnapshot();
+	}
+
+	/**
+	 * Takes a snapshot of the given game and publishes it.
+	 * @param game The game of which to take a snapshot.
+	 */
+	public void publish(Game game) {
+		WorldSnapshot snapshot = claim();
+		snapshot.capture(game);
+		publish(snapshot);
+	}
+
+	/**
+	 * Claims a free buffer to write a snapshot into. If readers hold all of the buffers, a new one is added. Only one
+	 * thread at a time can claim and publish snapshots.
+	 * @return A snapshot which no one else uses, to be passed to {@link #publish(WorldSnapshot)} once written.
+	 */
+	synchronized WorldSnapshot claim() {
+		for (WorldSnapshot buffer: buffers) {
+			if (buffer.tryClaim()) return buffer;
+		}
+		WorldSnapshot buffer = new WorldSnapshot();
+		buffer.tryClaim();
+		buffers = Arrays.copyOf(buffers, buffers.length + 1);
+		buffers[buffers.length - 1] = buffer;
+		return buffer;
+	}
+
+	/**
+	 * Makes the given, claimed snapshot the latest one, and lets go of the previous one.
+	 * @param snapshot The snapshot to publish.
+	 */
+	synchronized void publish(WorldSnapshot snapshot) {
+		WorldSnapshot previous = latest;
+		snapshot.markPublished();
+		latest = snapshot;
+		if (previous != null) previous.release();
+	}
+
+	/**
+	 * Acquires the latest snapshot. The caller must release it when done, and must not use it afterwards.
+	 * @return The latest snapshot, or null if nothing was published yet.
+	 */
+	public WorldSnapshot acquire() {
+		while (true) {
+			WorldSnapshot snapshot = latest;
+			if (snapshot == null) return null;
+			if (snapshot.tryRetain()) return snapshot;
+		}
+	}
+
+	/**
+	 * @return The number of buffers that snapshots are written into.
+	 */
+	synchronized int getBufferCount() {
+		return buffers.length;
+	}
+}
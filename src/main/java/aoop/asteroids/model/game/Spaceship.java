@@ -1,7 +1,5 @@
 package aoop.asteroids.model.game;
 
-import aoop.asteroids.view.AsteroidsFrame;
-
 import java.awt.*;
 
 /**
@@ -113,15 +111,40 @@ public class Spaceship extends GameObject {
 	private boolean turnLeftKeyPressed;
 
 	/**
-	 * Constructs a new spaceship with default values. It starts in the middle of the window, facing directly upwards,
-	 * with no velocity.
+	 * The sequence number of the latest input of the client of this spaceship whose keys are pressed, set on the server
+	 * whenever an input is taken from the input buffer or its keys are pressed right away.
+	 */
+	private volatile int inputSequence;
+
+	/**
+	 * The sequence number of the latest input that was taken into account by a step of this spaceship, which tells its
+	 * client up to which input the spaceship in a snapshot has moved.
+	 */
+	private int processedInputSequence;
+
+	/**
+	 * The inputs that the client of this spaceship sent to the server, which the spaceship takes one per step.
+	 */
+	private final InputBuffer inputBuffer = new InputBuffer();
+
+	/**
+	 * Constructs a new spaceship with default values. It starts in the middle of the default world, facing directly
+	 * upwards, with no velocity.
 	 */
 	public Spaceship() {
-		super(AsteroidsFrame.WINDOW_SIZE.width / 2.0,AsteroidsFrame.WINDOW_SIZE.height / 2.0,
-				0, 0, RADIUS);
+		this(WorldConfig.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new spaceship with default values. It starts in the middle of the given world, facing directly
+	 * upwards, with no velocity.
+	 * @param world The world of the game that the spaceship is in.
+	 */
+	public Spaceship(WorldConfig world) {
+		super(world.getWidth() / 2.0, world.getHeight() / 2.0, 0, 0, RADIUS);
 		ID = counterID;
 		counterID++;
-		reset();
+		reset(world);
 	}
 
 	/**
@@ -130,6 +153,8 @@ public class Spaceship extends GameObject {
 	 */
 	public Spaceship(Point.Double location) {
 		super(location.x, location.y, 0, 0, RADIUS);
+		ID = counterID;
+		counterID++;
 	}
 
 	/**
@@ -152,11 +177,20 @@ public class Spaceship extends GameObject {
 	}
 
 	/**
-	 * Resets all parameters to default values, so a new game can be started.
+	 * Resets all parameters to default values, so a new game can be started in the default world.
 	 */
 	public void reset() {
-		getLocation().x = AsteroidsFrame.WINDOW_SIZE.width / 2.0;
-		getLocation().y = AsteroidsFrame.WINDOW_SIZE.height / 2.0;
+		reset(WorldConfig.DEFAULT);
+	}
+
+	/**
+	 * Resets all parameters to default values, so a new game can be started. The ship is put in the middle of the
+	 * given world.
+	 * @param world The world of the game that the spaceship is in.
+	 */
+	public void reset(WorldConfig world) {
+		getLocation().x = world.getWidth() / 2.0;
+		getLocation().y = world.getHeight() / 2.0;
 		getVelocity().x = 0;
 		getVelocity().y = 0;
 		direction = 0;
@@ -179,18 +213,57 @@ public class Spaceship extends GameObject {
 
 	/**
 	 * Defines how the spaceship moves. This includes rotating the ship if the user is pressing the key to turn the
-	 * ship, or accelerating the ship, or firing the weapon.
+	 * ship, or accelerating the ship, or firing the weapon. On the server, the next input that the client sent is taken
+	 * first, see {@link InputBuffer}.
 	 */
 	@Override 
-	public void nextStep() {
-		super.nextStep();
-		attemptToTurn();
-		attemptToAccelerate();
+	public void nextStep(WorldConfig world) {
+		long input = inputBuffer.poll();
+		if (input != InputBuffer.NONE) {
+			setInput((int) input);
+			inputSequence = (int) (input >>> 32);
+		}
+		processedInputSequence = inputSequence;
+		step(world, turnLeftKeyPressed, turnRightKeyPressed, accelerateKeyPressed);
+	}
+
+	/**
+	 * Moves the spaceship one step as it would have with an input it had before, without touching the keys that are
+	 * pressed now. Firing only takes its energy and cools down the weapon, no bullet is added. A client uses this to
+	 * replay its inputs on top of a spaceship it received from the server.
+	 * @param world The world of the game that this spaceship is in.
+	 * @param input The input, as returned by {@link #getInputValue()}.
+	 */
+	void replayStep(WorldConfig world, int input) {
+		step(world, isPressed(input, 0), isPressed(input, 8), isPressed(input, 16));
+		if (isPressed(input, 24) && weaponCooldownRemaining == 0 && energy >= WEAPON_ENERGY_COST) setFired();
+	}
+
+	/**
+	 * Moves the spaceship one step with the given keys pressed.
+	 * @param world The world of the game that this spaceship is in.
+	 * @param turnLeft Whether the turn left key is pressed.
+	 * @param turnRight Whether the turn right key is pressed.
+	 * @param accelerate Whether the accelerate key is pressed.
+	 */
+	private void step(WorldConfig world, boolean turnLeft, boolean turnRight, boolean accelerate) {
+		super.nextStep(world);
+		attemptToTurn(turnLeft, turnRight);
+		attemptToAccelerate(accelerate);
 		dampenVelocity();
 		restWeapon();
 		rechargeEnergy();
 	}
 
+	/**
+	 * @param input An input, as returned by {@link #getInputValue()}.
+	 * @param shift The position of the byte of the key in the input.
+	 * @return Whether the key is pressed in the input.
+	 */
+	private static boolean isPressed(int input, int shift) {
+		return (input >>> shift & 0xFF) == 1;
+	}
+
 	/**
 	 * Recharges the ship's energy during a game tick. The energy is renewable, in case you were wondering.
 	 */
@@ -221,9 +294,10 @@ public class Spaceship extends GameObject {
 	 * Attempts to accelerate the spaceship. If all of the criteria for accelerating the ship are met, then it will
 	 * accelerate. For a ship to be able to accelerate, the user must be pressing the key to do so, and the ship must
 	 * have enough energy, and finally, the ship must not exceed its maximum set speed.
+	 * @param accelerate Whether the accelerate key is pressed.
 	 */
-	private void attemptToAccelerate() {
-		if (accelerateKeyPressed && energy >= ACCELERATION_ENERGY_COST && getSpeed() < MAXIMUM_SPEED) {
+	private void attemptToAccelerate(boolean accelerate) {
+		if (accelerate && energy >= ACCELERATION_ENERGY_COST && getSpeed() < MAXIMUM_SPEED) {
 			getVelocity().x += Math.sin(direction) * ACCELERATION_PER_TICK;
 			// Note that we subtract here, because the y-axis on the screen is flipped, compared to normal math.
 			getVelocity().y -= Math.cos(direction) * ACCELERATION_PER_TICK;
@@ -235,15 +309,17 @@ public class Spaceship extends GameObject {
 	 * Attempts to turn the spaceship. If all of the criteria for turning the ship are met, then it will rotate.
 	 * For a ship to be able to rotate, the user must be pressing the key to turn it either left or right, and the ship
 	 * must have enough energy to rotate.
+	 * @param turnLeft Whether the turn left key is pressed.
+	 * @param turnRight Whether the turn right key is pressed.
 	 */
-	private void attemptToTurn() {
+	private void attemptToTurn(boolean turnLeft, boolean turnRight) {
 		if (energy >= TURNING_ENERGY_COST) {
 			boolean didTurn = false;
-			if (turnLeftKeyPressed) {
+			if (turnLeft) {
 				direction -= ROTATION_PER_TICK;
 				didTurn = true;
 			}
-			if (turnRightKeyPressed) {
+			if (turnRight) {
 				direction += ROTATION_PER_TICK;
 				didTurn = true;
 			}
@@ -283,6 +359,17 @@ public class Spaceship extends GameObject {
 		return b.getInt();
 	}
 
+	/**
+	 * Presses the keys of an input.
+	 * @param input The input, as returned by {@link #getInputValue()}.
+	 */
+	public void setInput(int input) {
+		isFiring = isPressed(input, 24);
+		accelerateKeyPressed = isPressed(input, 16);
+		turnRightKeyPressed = isPressed(input, 8);
+		turnLeftKeyPressed = isPressed(input, 0);
+	}
+
 	/**
 	 *	Sets the isFiring field to the specified value.
 	 *	@param b new value of the field.
@@ -365,6 +452,69 @@ public class Spaceship extends GameObject {
 		return ID;
 	}
 
+	/**
+	 * Sets the sequence number of the latest input that arrived for this spaceship. It is taken into account from the
+	 * next step on.
+	 * @param inputSequence The sequence number of the input.
+	 */
+	public void setInputSequence(int inputSequence) {
+		this.inputSequence = inputSequence;
+	}
+
+	/**
+	 * @return The inputs that arrived for this spaceship and were not taken yet.
+	 */
+	public InputBuffer getInputBuffer() {
+		return inputBuffer;
+	}
+
+	/**
+	 * @return The sequence number of the latest input that was taken into account by a step of this spaceship, or 0 if
+	 * none was.
+	 */
+	public int getProcessedInputSequence() {
+		return processedInputSequence;
+	}
+
+	/**
+	 * @return The energy of this spaceship.
+	 */
+	double getEnergy() {
+		return energy;
+	}
+
+	/**
+	 * @return The number of ticks left until the weapon can be fired again.
+	 */
+	int getWeaponCooldownRemaining() {
+		return weaponCooldownRemaining;
+	}
+
+	/**
+	 * Puts back the energy and the weapon cooldown that this spaceship had before.
+	 * @param energy The energy.
+	 * @param weaponCooldownRemaining The number of ticks left until the weapon can be fired again.
+	 */
+	void restoreWeapon(double energy, int weaponCooldownRemaining) {
+		this.energy = energy;
+		this.weaponCooldownRemaining = weaponCooldownRemaining;
+	}
+
+	/**
+	 * Moves this spaceship to where a snapshot says it is, with the velocity and direction it has there. The energy
+	 * and score are not part of a snapshot sent by the server, so they are left as they are.
+	 * @param snapshot The snapshot.
+	 * @param i The index of the spaceship in the snapshot.
+	 */
+	void loadState(WorldSnapshot snapshot, int i) {
+		getLocation().x = snapshot.getShipX(i);
+		getLocation().y = snapshot.getShipY(i);
+		getVelocity().x = snapshot.getShipVelocityX(i);
+		getVelocity().y = snapshot.getShipVelocityY(i);
+		direction = snapshot.getShipDirection(i);
+		setStepsUntilCollisionPossible(snapshot.getShipStepsUntilCollisionPossible(i));
+	}
+
 	/**
 	 *	Sets ID to the specified value.
 	 *	@param ID new value of ID.
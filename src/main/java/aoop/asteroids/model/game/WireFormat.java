@@ -0,0 +1,78 @@
+package aoop.asteroids.model.game;
+
+/**
+ * This enumeration defines the versions of the format in which snapshots are sent as differences with an older one.
+ * Every such packet starts with the version byte of its format, and clients tell the server the newest version they can
+ * read, so that newer servers keep working with older clients.
+ */
+public enum WireFormat {
+
+	/**
+	 * All fields as full doubles and ints.
+	 */
+	V1(1),
+
+	/**
+	 * Positions as 16-bit fixed point over the world bounds, velocities and directions in 16 bits, the radius of
+	 * asteroids as their size, and counters in a byte. A moving asteroid takes 8 bytes for its position and velocity.
+	 */
+	V2(2),
+
+	/**
+	 * As V2, and each spaceship also has the sequence number of the latest input of its client that it took into
+	 * account, so that the client can replay its later inputs on top of it.
+	 */
+	V3(3);
+
+	/**
+	 * The newest version, which clients of this build ask for.
+	 */
+	public static final WireFormat LATEST = V3;
+
+	/**
+	 * All formats, kept since every call to values() makes a new array.
+	 */
+	private static final WireFormat[] FORMATS = values();
+
+	/**
+	 * The version byte of this format.
+	 */
+	private final int version;
+
+	/**
+	 * @param version The version byte of the format.
+	 */
+	WireFormat(int version) {
+		this.version = version;
+	}
+
+	/**
+	 * @return The version byte of this format.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param version A version byte.
+	 * @return The format with the given version, or null if it is unknown.
+	 */
+	public static WireFormat fromVersion(int version) {
+		for (WireFormat format: FORMATS) {
+			if (format.version == version) return format;
+		}
+		return null;
+	}
+
+	/**
+	 * @param version The newest version that the other side can read.
+	 * @return The newest format that both sides can read.
+	 */
+	public static WireFormat negotiate(int version) {
+		WireFormat result = V1;
+		for (WireFormat format: FORMATS) {
+			if (format.version <= version && format.version > result.version) result = format;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,114 @@
+package aoop.asteroids.model.game;
+
+/**
+ * The size and the rules of the world in which a game takes place. Objects that leave the world on one side come back
+ * on the other side. Every game has its own world, so that games of different sizes can be simulated side by side,
+ * without anything depending on the size of the window that shows them.
+ */
+public class WorldConfig {
+
+	/**
+	 * The default rate at which games tick, in ticks per second.
+	 */
+	public static final double DEFAULT_TICK_RATE = 30.0;
+
+	/**
+	 * The default maximum number of asteroids that may be present in a game when starting.
+	 */
+	public static final int DEFAULT_ASTEROIDS_LIMIT = 7;
+
+	/**
+	 * The world used by games for which no other world is given. It has the same size as the game window.
+	 */
+	public static final WorldConfig DEFAULT = new WorldConfig(800.0, 800.0);
+
+	/**
+	 * The width of the world, in pixels.
+	 */
+	private final double width;
+
+	/**
+	 * The height of the world, in pixels.
+	 */
+	private final double height;
+
+	/**
+	 * The rate at which the game ticks, in ticks per second.
+	 */
+	private final double tickRate;
+
+	/**
+	 * The maximum number of asteroids that may be present when the game starts. It grows as asteroids are destroyed.
+	 */
+	private final int asteroidsLimit;
+
+	/**
+	 * The value beyond which the asteroids limit does not grow any further.
+	 */
+	private final int maxAsteroidsLimit;
+
+	/**
+	 * Constructs a new world of the given size, with the default rules.
+	 * @param width The width of the world, in pixels.
+	 * @param height The height of the world, in pixels.
+	 */
+	public WorldConfig(double width, double height) {
+		this(width, height, DEFAULT_TICK_RATE, DEFAULT_ASTEROIDS_LIMIT, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs a new world of the given size and with the given rules.
+	 * @param width The width of the world, in pixels.
+	 * @param height The height of the world, in pixels.
+	 * @param tickRate The rate at which the game ticks, in ticks per second.
+	 * @param asteroidsLimit The maximum number of asteroids that may be present when the game starts.
+	 * @param maxAsteroidsLimit The value beyond which the asteroids limit does not grow any further.
+	 */
+	public WorldConfig(double width, double height, double tickRate, int asteroidsLimit, int maxAsteroidsLimit) {
+		if (width <= 0 || height <= 0) throw new IllegalArgumentException("World size must be positive");
+		if (tickRate <= 0) throw new IllegalArgumentException("Tick rate must be positive");
+		if (asteroidsLimit < 0 || maxAsteroidsLimit < asteroidsLimit) {
+			throw new IllegalArgumentException("Asteroids limits must satisfy 0 <= limit <= maximum limit");
+		}
+		this.width = width;
+		this.height = height;
+		this.tickRate = tickRate;
+		this.asteroidsLimit = asteroidsLimit;
+		this.maxAsteroidsLimit = maxAsteroidsLimit;
+	}
+
+	/**
+	 * @return The width of the world, in pixels.
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return The height of the world, in pixels.
+	 */
+	public double getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return The rate at which the game ticks, in ticks per second.
+	 */
+	public double getTickRate() {
+		return tickRate;
+	}
+
+	/**
+	 * @return The maximum number of asteroids that may be present when the game starts.
+	 */
+	public int getAsteroidsLimit() {
+		return asteroidsLimit;
+	}
+
+	/**
+	 * @return The value beyond which the asteroids limit does not grow any further.
+	 */
+	public int getMaxAsteroidsLimit() {
+		return maxAsteroidsLimit;
+	}
+}
@@ -0,0 +1,655 @@
+package aoop.asteroids.model.game;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A compact copy of the state of all objects in a game at the end of one tick, kept in arrays of primitives. Once it is
+ * published by a {@link SnapshotPublisher}, a snapshot does not change anymore, so the view and the network can read it
+ * from their own threads without locking the game, while the game engine is already working on the next tick.
+ *
+ * Snapshots are reused, so a reader must release a snapshot once it is done with it, and must not use it after that.
+ * A snapshot counts its readers, and is only written again once none are left.
+ *
+ * Every object in a snapshot has the id of the object it was copied from, so that two snapshots of the same game can
+ * be compared object by object.
+ */
+public class WorldSnapshot {
+
+	/**
+	 * The number of readers holding this snapshot, plus one while it is the latest published snapshot. It is -1 while
+	 * the snapshot is being written, and 0 when it is free to be written.
+	 */
+	private final AtomicInteger references;
+
+	/**
+	 * The tick of the game at which this snapshot was taken.
+	 */
+	private int tick;
+
+	/**
+	 * The time at which this snapshot was taken, or received from the server, as returned by {@link System#nanoTime()}.
+	 */
+	private long timestamp;
+
+	/**
+	 * The size of the world of the game.
+	 */
+	private double worldWidth;
+	private double worldHeight;
+
+	/**
+	 * The state of the spaceships, asteroids and bullets.
+	 */
+	final Table ships;
+	final Table asteroids;
+	final Table bullets;
+
+	/**
+	 * Constructs a new, empty snapshot, which is free to be written.
+	 */
+	WorldSnapshot() {
+		references = new AtomicInteger(0);
+		ships = new Table();
+		asteroids = new Table();
+		bullets = new Table();
+	}
+
+	/**
+	 * Copies the state of all objects in the game into this snapshot. Objects in entity stores are copied straight from
+	 * the store's arrays. A spectator's own spaceship is not part of the game it watches, so it is left out.
+	 * @param game The game to be copied.
+	 */
+	void capture(Game game) {
+		tick = game.getLastLocalTick();
+		timestamp = System.nanoTime();
+		worldWidth = game.getWorld().getWidth();
+		worldHeight = game.getWorld().getHeight();
+		List<Spaceship> spaceships = game.getSpaceships();
+		int firstShip = game.isSpectate() && !spaceships.isEmpty() ? 1 : 0;
+		ships.clear(spaceships.size() - firstShip);
+		for (int i = firstShip; i < spaceships.size(); i++) {
+			Spaceship ship = spaceships.get(i);
+			int slot = ships.add(ship.getID(), ship.getLocation().x, ship.getLocation().y, ship.getVelocity().x,
+					ship.getVelocity().y, ship.getRadius(), ship.getStepsUntilCollisionPossible());
+			ships.direction[slot] = ship.getDirection();
+			ships.accelerating[slot] = ship.isAccelerating();
+			ships.destroyed[slot] = ship.isDestroyed();
+			ships.score[slot] = ship.getScore();
+			ships.energyPercentage[slot] = ship.getEnergyPercentage();
+			ships.inputSequence[slot] = ship.getProcessedInputSequence();
+		}
+		asteroids.capture(game.getAsteroids());
+		bullets.capture(game.getBullets());
+	}
+
+	/**
+	 * Makes this snapshot a mix of two older ones, with every object that is in both somewhere on the way from where
+	 * the first one has it to where the second one has it, taking the shortest way around the edges of the world. All
+	 * other fields, and the objects that are not in the first one, are taken from the second one, as are objects that
+	 * moved further than their speed allows, since those were put somewhere else rather than moved.
+	 * @param from The older snapshot.
+	 * @param to The newer snapshot.
+	 * @param alpha How far on the way from the older to the newer snapshot, from 0 to 1.
+	 */
+	void interpolate(WorldSnapshot from, WorldSnapshot to, double alpha) {
+		copyFrom(to);
+		int ticks = Math.max(to.tick - from.tick, 1);
+		ships.interpolateFrom(from.ships, alpha, ticks, worldWidth, worldHeight, true);
+		asteroids.interpolateFrom(from.asteroids, alpha, ticks, worldWidth, worldHeight, false);
+		bullets.interpolateFrom(from.bullets, alpha, ticks, worldWidth, worldHeight, false);
+	}
+
+	/**
+	 * Puts the given spaceship in the place of the spaceship with the same id, as a client predicts its own spaceship.
+	 * @param ship The spaceship, which is left out if this snapshot has no spaceship with its id.
+	 */
+	void placeShip(Spaceship ship) {
+		int slot = ships.indexOf(ship.getID(), 0);
+		if (slot < 0) return;
+		ships.x[slot] = ship.getLocation().x;
+		ships.y[slot] = ship.getLocation().y;
+		ships.velocityX[slot] = ship.getVelocity().x;
+		ships.velocityY[slot] = ship.getVelocity().y;
+		ships.steps[slot] = ship.getStepsUntilCollisionPossible();
+		ships.direction[slot] = ship.getDirection();
+		ships.accelerating[slot] = ship.isAccelerating();
+		ships.score[slot] = ship.getScore();
+		ships.energyPercentage[slot] = ship.getEnergyPercentage();
+	}
+
+	/**
+	 * Makes this snapshot a copy of another one.
+	 * @param other The snapshot to copy, or null to make this snapshot empty.
+	 */
+	void copyFrom(WorldSnapshot other) {
+		if (other == null) {
+			ships.clear(0);
+			asteroids.clear(0);
+			bullets.clear(0);
+			return;
+		}
+		tick = other.tick;
+		timestamp = other.timestamp;
+		worldWidth = other.worldWidth;
+		worldHeight = other.worldHeight;
+		ships.copyFrom(other.ships);
+		asteroids.copyFrom(other.asteroids);
+		bullets.copyFrom(other.bullets);
+	}
+
+	/**
+	 * Makes this snapshot an empty copy of another one, with the same tick, time and world, but without any objects.
+	 * @param other The snapshot to copy.
+	 */
+	void copyHeaderFrom(WorldSnapshot other) {
+		tick = other.tick;
+		timestamp = other.timestamp;
+		worldWidth = other.worldWidth;
+		worldHeight = other.worldHeight;
+		ships.clear(0);
+		asteroids.clear(0);
+		bullets.clear(0);
+	}
+
+	/**
+	 * Sets the tick of the game at which this snapshot was taken.
+	 * @param tick The tick.
+	 */
+	void setTick(int tick) {
+		this.tick = tick;
+	}
+
+	/**
+	 * Sets the time at which this snapshot was taken or received.
+	 * @param timestamp The time, as returned by {@link System#nanoTime()}.
+	 */
+	void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Sets the size of the world of the game.
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 */
+	void setWorldSize(double width, double height) {
+		worldWidth = width;
+		worldHeight = height;
+	}
+
+	/**
+	 * Tries to register a new reader of this snapshot. This fails if the snapshot is free or being written, which
+	 * means that it was replaced by a newer one in the meantime.
+	 * @return True if the reader may use this snapshot, and must release it afterwards.
+	 */
+	boolean tryRetain() {
+		while (true) {
+			int count = references.get();
+			if (count <= 0) return false;
+			if (references.compareAndSet(count, count + 1)) return true;
+		}
+	}
+
+	/**
+	 * Claims this snapshot for writing, if it is free.
+	 * @return True if the snapshot may be written.
+	 */
+	boolean tryClaim() {
+		return references.compareAndSet(0, -1);
+	}
+
+	/**
+	 * Marks a claimed snapshot as written and published, held only by its publisher.
+	 */
+	void markPublished() {
+		references.set(1);
+	}
+
+	/**
+	 * Tells the snapshot that a reader is done with it. The snapshot must not be used by that reader anymore.
+	 */
+	public void release() {
+		if (references.decrementAndGet() < 0) throw new IllegalStateException("Snapshot released too often");
+	}
+
+	/**
+	 * @return The tick of the game at which this snapshot was taken.
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * @return The time at which this snapshot was taken, or received from the server, as returned by
+	 * {@link System#nanoTime()}.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return The width of the world of the game.
+	 */
+	public double getWorldWidth() {
+		return worldWidth;
+	}
+
+	/**
+	 * @return The height of the world of the game.
+	 */
+	public double getWorldHeight() {
+		return worldHeight;
+	}
+
+	/**
+	 * @return The number of spaceships.
+	 */
+	public int getShipCount() {
+		return ships.count;
+	}
+
+	/**
+	 * @param id The id of a spaceship.
+	 * @return The index of the spaceship with the given id, or -1 if there is none.
+	 */
+	public int indexOfShip(int id) {
+		return ships.indexOf(id, 0);
+	}
+
+	public int getShipId(int i) {
+		return ships.id[i];
+	}
+
+	public double getShipX(int i) {
+		return ships.x[i];
+	}
+
+	public double getShipY(int i) {
+		return ships.y[i];
+	}
+
+	public double getShipVelocityX(int i) {
+		return ships.velocityX[i];
+	}
+
+	public double getShipVelocityY(int i) {
+		return ships.velocityY[i];
+	}
+
+	public double getShipRadius(int i) {
+		return ships.radius[i];
+	}
+
+	public int getShipStepsUntilCollisionPossible(int i) {
+		return ships.steps[i];
+	}
+
+	public double getShipDirection(int i) {
+		return ships.direction[i];
+	}
+
+	public boolean isShipAccelerating(int i) {
+		return ships.accelerating[i];
+	}
+
+	public boolean isShipDestroyed(int i) {
+		return ships.destroyed[i];
+	}
+
+	public int getShipScore(int i) {
+		return ships.score[i];
+	}
+
+	public double getShipEnergyPercentage(int i) {
+		return ships.energyPercentage[i];
+	}
+
+	/**
+	 * @param i The index of the spaceship.
+	 * @return The sequence number of the latest input of its client that the spaceship took into account, or 0 if
+	 * that is not known.
+	 */
+	public int getShipInputSequence(int i) {
+		return ships.inputSequence[i];
+	}
+
+	/**
+	 * @return The number of asteroids.
+	 */
+	public int getAsteroidCount() {
+		return asteroids.count;
+	}
+
+	public int getAsteroidId(int i) {
+		return asteroids.id[i];
+	}
+
+	public double getAsteroidX(int i) {
+		return asteroids.x[i];
+	}
+
+	public double getAsteroidY(int i) {
+		return asteroids.y[i];
+	}
+
+	public double getAsteroidVelocityX(int i) {
+		return asteroids.velocityX[i];
+	}
+
+	public double getAsteroidVelocityY(int i) {
+		return asteroids.velocityY[i];
+	}
+
+	public double getAsteroidRadius(int i) {
+		return asteroids.radius[i];
+	}
+
+	public int getAsteroidStepsUntilCollisionPossible(int i) {
+		return asteroids.steps[i];
+	}
+
+	/**
+	 * @return The number of bullets.
+	 */
+	public int getBulletCount() {
+		return bullets.count;
+	}
+
+	public int getBulletId(int i) {
+		return bullets.id[i];
+	}
+
+	public double getBulletX(int i) {
+		return bullets.x[i];
+	}
+
+	public double getBulletY(int i) {
+		return bullets.y[i];
+	}
+
+	public double getBulletVelocityX(int i) {
+		return bullets.velocityX[i];
+	}
+
+	public double getBulletVelocityY(int i) {
+		return bullets.velocityY[i];
+	}
+
+	public double getBulletRadius(int i) {
+		return bullets.radius[i];
+	}
+
+	public int getBulletStepsUntilCollisionPossible(int i) {
+		return bullets.steps[i];
+	}
+
+	public int getBulletStepsLeft(int i) {
+		return bullets.stepsLeft[i];
+	}
+
+	/**
+	 * The state of all objects of one kind, in parallel arrays. Every kind has the same columns, but some of them are
+	 * only used by one kind, like the direction of spaceships and the steps left of bullets.
+	 */
+	static final class Table {
+
+		/**
+		 * The initial number of objects that the arrays can hold.
+		 */
+		private static final int DEFAULT_CAPACITY = 16;
+
+		/**
+		 * The number of objects.
+		 */
+		int count;
+
+		int[] id;
+		double[] x;
+		double[] y;
+		double[] velocityX;
+		double[] velocityY;
+		double[] radius;
+		int[] steps;
+		double[] direction;
+		int[] stepsLeft;
+		boolean[] accelerating;
+		boolean[] destroyed;
+		int[] score;
+		double[] energyPercentage;
+		int[] inputSequence;
+
+		/**
+		 * Constructs a new, empty table.
+		 */
+		Table() {
+			allocate(DEFAULT_CAPACITY);
+		}
+
+		/**
+		 * Copies the state of the given objects into this table, straight from the arrays if they are in an entity
+		 * store.
+		 * @param objects The objects to be copied.
+		 */
+		void capture(Collection<? extends GameObject> objects) {
+			clear(objects.size());
+			if (objects instanceof EntityStore) {
+				EntityStore<?> store = (EntityStore<?>) objects;
+				count = store.size();
+				for (int i = 0; i < count; i++) {
+					id[i] = store.get(i).getEntityId();
+				}
+				System.arraycopy(store.locationX, 0, x, 0, count);
+				System.arraycopy(store.locationY, 0, y, 0, count);
+				System.arraycopy(store.velocityX, 0, velocityX, 0, count);
+				System.arraycopy(store.velocityY, 0, velocityY, 0, count);
+				System.arraycopy(store.radius, 0, radius, 0, count);
+				System.arraycopy(store.stepsUntilCollisionPossible, 0, steps, 0, count);
+				System.arraycopy(store.stepsLeft, 0, stepsLeft, 0, count);
+			} else {
+				for (GameObject object: objects) {
+					int slot = add(object.getEntityId(), object.getLocation().x, object.getLocation().y,
+							object.getVelocity().x, object.getVelocity().y, object.getRadius(),
+							object.getStepsUntilCollisionPossible());
+					if (object instanceof Bullet) stepsLeft[slot] = ((Bullet) object).getStepsLeft();
+				}
+			}
+		}
+
+		/**
+		 * Makes this table a copy of another one.
+		 * @param other The table to copy.
+		 */
+		void copyFrom(Table other) {
+			clear(other.count);
+			count = other.count;
+			System.arraycopy(other.id, 0, id, 0, count);
+			System.arraycopy(other.x, 0, x, 0, count);
+			System.arraycopy(other.y, 0, y, 0, count);
+			System.arraycopy(other.velocityX, 0, velocityX, 0, count);
+			System.arraycopy(other.velocityY, 0, velocityY, 0, count);
+			System.arraycopy(other.radius, 0, radius, 0, count);
+			System.arraycopy(other.steps, 0, steps, 0, count);
+			System.arraycopy(other.direction, 0, direction, 0, count);
+			System.arraycopy(other.stepsLeft, 0, stepsLeft, 0, count);
+			System.arraycopy(other.accelerating, 0, accelerating, 0, count);
+			System.arraycopy(other.destroyed, 0, destroyed, 0, count);
+			System.arraycopy(other.score, 0, score, 0, count);
+			System.arraycopy(other.energyPercentage, 0, energyPercentage, 0, count);
+			System.arraycopy(other.inputSequence, 0, inputSequence, 0, count);
+		}
+
+		/**
+		 * Moves every object in this table back towards where it was in an older table of the same kind, see
+		 * {@link WorldSnapshot#interpolate(WorldSnapshot, WorldSnapshot, double)}.
+		 * @param from The older table.
+		 * @param alpha How far on the way from the older table to this one, from 0 to 1.
+		 * @param ticks The number of ticks between the older table and this one.
+		 * @param width The width of the world.
+		 * @param height The height of the world.
+		 * @param turning Whether the objects have a direction, which is turned the shortest way as well.
+		 */
+		void interpolateFrom(Table from, double alpha, int ticks, double width, double height, boolean turning) {
+			int hint = 0;
+			for (int i = 0; i < count; i++) {
+				int j = from.indexOf(id[i], hint);
+				if (j < 0) continue;
+				hint = j + 1;
+				double dx = shortest(x[i] - from.x[j], width);
+				double dy = shortest(y[i] - from.y[j], height);
+				double reach = ticks * (Math.hypot(velocityX[i], velocityY[i])
+						+ Math.hypot(from.velocityX[j], from.velocityY[j])) + radius[i];
+				if (dx * dx + dy * dy > reach * reach) continue;
+				x[i] = wrap(from.x[j] + dx * alpha, width);
+				y[i] = wrap(from.y[j] + dy * alpha, height);
+				if (turning) direction[i] = from.direction[j] + Math.IEEEremainder(direction[i] - from.direction[j],
+						2 * Math.PI) * alpha;
+			}
+		}
+
+		/**
+		 * @param distance A distance along one axis of the world.
+		 * @param size The size of the world along that axis, or 0 if it is not known.
+		 * @return The shortest distance that gets to the same place, possibly across the edge of the world.
+		 */
+		static double shortest(double distance, double size) {
+			return size > 0 ? Math.IEEEremainder(distance, size) : distance;
+		}
+
+		/**
+		 * @param coordinate A coordinate along one axis of the world.
+		 * @param size The size of the world along that axis, or 0 if it is not known.
+		 * @return The coordinate, wrapped around the edges of the world into [0, size).
+		 */
+		private static double wrap(double coordinate, double size) {
+			if (size <= 0) return coordinate;
+			double wrapped = coordinate % size;
+			return wrapped < 0 ? wrapped + size : wrapped;
+		}
+
+		/**
+		 * Removes all objects, and makes sure that the given number of them fits.
+		 * @param capacity The number of objects that will be added.
+		 */
+		void clear(int capacity) {
+			count = 0;
+			if (capacity > id.length) allocate(Math.max(capacity, 2 * id.length));
+		}
+
+		/**
+		 * Adds an object to the end of this table. Columns that are not given get their default value: not
+		 * accelerating, not destroyed, no score and a full battery.
+		 * @return The index of the new object.
+		 */
+		int add(int id, double x, double y, double velocityX, double velocityY, double radius, int steps) {
+			if (count == this.id.length) allocate(2 * this.id.length);
+			int slot = count++;
+			this.id[slot] = id;
+			this.x[slot] = x;
+			this.y[slot] = y;
+			this.velocityX[slot] = velocityX;
+			this.velocityY[slot] = velocityY;
+			this.radius[slot] = radius;
+			this.steps[slot] = steps;
+			direction[slot] = 0.0;
+			stepsLeft[slot] = 0;
+			accelerating[slot] = false;
+			destroyed[slot] = false;
+			score[slot] = 0;
+			energyPercentage[slot] = 100.0;
+			inputSequence[slot] = 0;
+			return slot;
+		}
+
+		/**
+		 * Adds a copy of an object in another table of the same kind to the end of this table.
+		 * @param other The table to copy from.
+		 * @param i The index of the object in the other table.
+		 */
+		void addFrom(Table other, int i) {
+			int slot = add(other.id[i], other.x[i], other.y[i], other.velocityX[i], other.velocityY[i], other.radius[i],
+					other.steps[i]);
+			direction[slot] = other.direction[i];
+			stepsLeft[slot] = other.stepsLeft[i];
+			accelerating[slot] = other.accelerating[i];
+			destroyed[slot] = other.destroyed[i];
+			score[slot] = other.score[i];
+			energyPercentage[slot] = other.energyPercentage[i];
+			inputSequence[slot] = other.inputSequence[i];
+		}
+
+		/**
+		 * Removes the object at the given index, shifting all later objects one position forward.
+		 * @param slot The index of the object.
+		 */
+		void remove(int slot) {
+			int moved = count - slot - 1;
+			System.arraycopy(id, slot + 1, id, slot, moved);
+			System.arraycopy(x, slot + 1, x, slot, moved);
+			System.arraycopy(y, slot + 1, y, slot, moved);
+			System.arraycopy(velocityX, slot + 1, velocityX, slot, moved);
+			System.arraycopy(velocityY, slot + 1, velocityY, slot, moved);
+			System.arraycopy(radius, slot + 1, radius, slot, moved);
+			System.arraycopy(steps, slot + 1, steps, slot, moved);
+			System.arraycopy(direction, slot + 1, direction, slot, moved);
+			System.arraycopy(stepsLeft, slot + 1, stepsLeft, slot, moved);
+			System.arraycopy(accelerating, slot + 1, accelerating, slot, moved);
+			System.arraycopy(destroyed, slot + 1, destroyed, slot, moved);
+			System.arraycopy(score, slot + 1, score, slot, moved);
+			System.arraycopy(energyPercentage, slot + 1, energyPercentage, slot, moved);
+			System.arraycopy(inputSequence, slot + 1, inputSequence, slot, moved);
+			count--;
+		}
+
+		/**
+		 * Looks for the object with the given id. Objects mostly keep their order from one tick to the next, so the
+		 * search starts at the given index, where the object is expected to be, and wraps around from there.
+		 * @param id The id of the object.
+		 * @param from The index at which to start looking.
+		 * @return The index of the object, or -1 if there is no object with that id.
+		 */
+		int indexOf(int id, int from) {
+			for (int i = from; i < count; i++) {
+				if (this.id[i] == id) return i;
+			}
+			for (int i = 0; i < Math.min(from, count); i++) {
+				if (this.id[i] == id) return i;
+			}
+			return -1;
+		}
+
+		/**
+		 * (Re)allocates all arrays with the given capacity, keeping the current contents.
+		 * @param capacity The new capacity of the arrays.
+		 */
+		private void allocate(int capacity) {
+			id = copyOf(id, new int[capacity]);
+			x = copyOf(x, new double[capacity]);
+			y = copyOf(y, new double[capacity]);
+			velocityX = copyOf(velocityX, new double[capacity]);
+			velocityY = copyOf(velocityY, new double[capacity]);
+			radius = copyOf(radius, new double[capacity]);
+			steps = copyOf(steps, new int[capacity]);
+			direction = copyOf(direction, new double[capacity]);
+			stepsLeft = copyOf(stepsLeft, new int[capacity]);
+			accelerating = copyOf(accelerating, new boolean[capacity]);
+			destroyed = copyOf(destroyed, new boolean[capacity]);
+			score = copyOf(score, new int[capacity]);
+			energyPercentage = copyOf(energyPercentage, new double[capacity]);
+			inputSequence = copyOf(inputSequence, new int[capacity]);
+		}
+
+		/**
+		 * Copies the used part of an array into a new array.
+		 * @param from The array to copy from, may be null if there is nothing to copy yet.
+		 * @param to The array to copy into.
+		 * @param <A> The type of the array.
+		 * @return The array copied into.
+		 */
+		private <A> A copyOf(A from, A to) {
+			if (from != null) System.arraycopy(from, 0, to, 0, count);
+			return to;
+		}
+	}
+}
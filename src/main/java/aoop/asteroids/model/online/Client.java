@@ -2,12 +2,23 @@ package aoop.asteroids.model.online;
 
 import aoop.asteroids.model.game.Game;
 import aoop.asteroids.model.game.ByteModel;
+import aoop.asteroids.model.game.ShipPrediction;
+import aoop.asteroids.model.game.SnapshotHistory;
+import aoop.asteroids.model.game.Spaceship;
+import aoop.asteroids.model.game.WireFormat;
 
 import java.io.IOException;
 import java.net.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a class of a client that connect to the server
+ *
+ * A client can also be the upstream end of a spectator relay, see SpectatorRelay. It then spectates the server as any
+ * spectator does, and hands every snapshot it receives to the rooms of the relay's own server, as the local tick of its
+ * game, so that the relay sends it on to its own spectators.
  */
 public class Client extends PacketHandler implements Runnable {
 
@@ -16,21 +27,66 @@ public class Client extends PacketHandler implements Runnable {
     public static final int RECEIVED_SIGNAL = 3;
     public static final int GAME_SIGNAL = 4;
     public static final int SPECTATE_SIGNAL = 5;
+    public static final int GAME_DELTA_SIGNAL = 6;
+    public static final int FRAGMENT_SIGNAL = 7;
+    public static final int REJECTED_SIGNAL = -1;
+
+    /**
+     * Number of the latest inputs sent in every maintain signal, so that an input survives that many lost packets
+     */
+    public static final int SENT_INPUTS = 8;
 
     private DatagramSocket datagramSocket;
     private final Game game;
     private InetAddress IP;
+    private int port;
+    private final int room;
+    private final boolean relay;
+    private final SnapshotHistory history;
+    private final FragmentReassembler reassembler;
+    private final DatagramPacket receivePacket;
+    private final ByteModel received;
+    private volatile int acknowledgedTick;
 
     /**
      * Constructor
      * @param game of the client
      */
     public Client(Game game) {
+        this(game, 0);
+    }
+
+    /**
+     * Constructor
+     * @param game of the client
+     * @param room id of the room on the server to join
+     */
+    public Client(Game game, int room) {
+        this(game, room, null, false);
+    }
+
+    /**
+     * Constructor
+     * @param game of the client
+     * @param room id of the room on the server to join
+     * @param server address of the server, or null for the default port on this host
+     * @param relay true if every received snapshot is handed on to the listeners of the game, see SpectatorRelay.
+     *              A relay always spectates.
+     */
+    public Client(Game game, int room, InetSocketAddress server, boolean relay) {
         super();
         this.game = game;
+        this.room = room;
+        this.relay = relay;
+        history = new SnapshotHistory();
+        reassembler = new FragmentReassembler();
+        receivePacket = new DatagramPacket(new byte[MAX_SIZE], MAX_SIZE);
+        received = new ByteModel();
+        acknowledgedTick = SnapshotHistory.NO_TICK;
         try {
             datagramSocket = new DatagramSocket();
-            IP = InetAddress.getLocalHost();
+            IP = server == null ? InetAddress.getLocalHost() : server.getAddress();
+            port = server == null ? Server.PORT_NUMBER : server.getPort();
         } catch (IOException e) {
             System.out.println("Connection problem, cannot make socket.");
         }
@@ -44,23 +100,29 @@ public class Client extends PacketHandler implements Runnable {
         int response;
         ByteModel bytes;
         do {
-            if (game.isSpectate()) {
-                send(datagramSocket, SPECTATE_SIGNAL, 0, IP, Server.PORT_NUMBER);
+            if (game.isSpectate() || relay) {
+                // spectators watch as much of the world as fits their own, on servers that send only part of it
+                int[] viewport = {0, 0, 0, (int) game.getWorld().getWidth(), (int) game.getWorld().getHeight()};
+                send(datagramSocket, Server.toSignal(room, SPECTATE_SIGNAL), viewport, IP, port);
             }
             if (game.isClient()) {
-                send(datagramSocket, JOIN_SIGNAL, 0, IP, Server.PORT_NUMBER);
+                send(datagramSocket, Server.toSignal(room, JOIN_SIGNAL), 0, IP, port);
             }
             bytes = new ByteModel(receive(datagramSocket).getData());
             response = bytes.getInt();
             if (response < 0) return false;
         } while (response != RECEIVED_SIGNAL);
-        if (!game.isSpectate()) game.getSpaceship().setID(bytes.getInt());
+        if (!game.isSpectate() && !relay) game.getSpaceship().setID(bytes.getInt());
         return true;
     }
 
     /**
      * maintains connection by sending maintain signals to the server and
      * load the game based on the instructions of the server.
+     * Maintain signals are sent by a thread of their own at the tick rate of the game, whether packets arrive or not,
+     * see sendInput(). Received snapshots are shown by the game updater, which keeps running, see
+     * SnapshotInterpolation. Every packet is received into the same buffer and read by the same model, so receiving
+     * does not make garbage.
      */
     @Override
     public void run() {
@@ -69,13 +131,76 @@ public class Client extends PacketHandler implements Runnable {
             return;
         }
         running = true;
-        while (running) {
-            send(datagramSocket, MAINTAIN_SIGNAL, game.getSpaceship().getInputValue(), IP, Server.PORT_NUMBER);
-            ByteModel bytes = new ByteModel(receiveBytes(datagramSocket));
-            if (bytes.getInt() == GAME_SIGNAL) {
-                bytes.loadGame(game);
-                game.notifyListeners(0L);
+        ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "input sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.round(1e9 / game.getWorld().getTickRate());
+        sender.scheduleAtFixedRate(this::sendInput, 0L, period, TimeUnit.NANOSECONDS);
+        try {
+            while (running) {
+                if (!receive(datagramSocket, receivePacket)) continue;
+                received.reset(receivePacket.getData(), receivePacket.getLength());
+                int signal = received.getInt();
+                if (signal == FRAGMENT_SIGNAL) {
+                    byte[] packet = reassembler.add(receivePacket.getData(), receivePacket.getLength());
+                    if (packet == null) continue;
+                    received.reset(packet, reassembler.getLength());
+                    signal = received.getInt();
+                }
+                if (signal == GAME_SIGNAL && received.loadSnapshot(game)) relaySnapshot();
+                if (signal == GAME_DELTA_SIGNAL && received.loadDelta(game, history)) {
+                    acknowledgedTick = history.getNewestTick();
+                    relaySnapshot();
+                }
             }
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+
+    /**
+     * hands the snapshot that was just received on to the listeners of the game, if this client is a relay. The tick
+     * of the snapshot becomes the local tick of the game, by which the rooms of the relay time out their spectators.
+     */
+    private void relaySnapshot() {
+        if (!relay) return;
+        game.setLastLocalTick(game.getLastReceivedTick());
+        game.notifyListeners(0L);
+    }
+
+    /**
+     * stops receiving, closing the socket of the client
+     */
+    public void stop() {
+        running = false;
+        if (datagramSocket != null) datagramSocket.close();
+    }
+
+    /**
+     * sends a maintain signal with the latest input recorded by the prediction of the spaceship and its sequence
+     * number, followed by the inputs before it, newest first, so that the server gets every input even if some of the
+     * packets are lost. The signal acknowledges the last snapshot received, so that the server can send only what
+     * changed, and tells the newest wire format this client reads.
+     */
+    private void sendInput() {
+        if (!running) return;
+        ShipPrediction prediction = game.getPrediction();
+        long latestInput = prediction.getLatestInput();
+        int sequence = (int) (latestInput >>> 32);
+        Spaceship ship = game.getSpaceship();
+        int input = latestInput != 0L ? (int) latestInput : ship == null ? 0 : ship.getInputValue();
+        int count = Math.min(SENT_INPUTS - 1, Math.max(sequence - 1, 0));
+        int[] values = new int[5 + count];
+        values[0] = input;
+        values[1] = acknowledgedTick;
+        values[2] = WireFormat.LATEST.getVersion();
+        values[3] = sequence;
+        values[4] = count;
+        for (int i = 1; i <= count; i++) {
+            values[4 + i] = prediction.getInput(sequence - i);
         }
+        send(datagramSocket, Server.toSignal(room, MAINTAIN_SIGNAL), values, IP, port);
     }
 }
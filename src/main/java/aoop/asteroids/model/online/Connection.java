@@ -1,10 +1,15 @@
 package aoop.asteroids.model.online;
 
+import aoop.asteroids.model.game.AreaOfInterest;
 import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.game.InterestGrid;
+import aoop.asteroids.model.game.SnapshotHistory;
+import aoop.asteroids.model.game.WireFormat;
+import aoop.asteroids.model.game.WorldSnapshot;
 
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
 
 /**
  * This is a class of connection of a client to the server
@@ -13,25 +18,48 @@ public class Connection extends PacketHandler {
 
     public static final int MAX_NO_RESPONSE_TIME = 30;
 
-    private final DatagramPacket dp;
-    private final DatagramSocket ds;
+    private final InetSocketAddress address;
+    private final DatagramChannel channel;
     private final Game game;
-    private int lastTick;
+    private volatile int lastTick;
     private final int shipID;
+    private volatile boolean acknowledging;
+    private volatile int acknowledgedTick;
+    private volatile WireFormat wireFormat;
+    private final AreaOfInterest interest;
+    private final SnapshotHistory sent;
+
+    /**
+     * Constructor for a connection that is sent the whole game
+     * @param game game played on the server
+     * @param channel of the server
+     * @param address of the client
+     * @param shipID id of the ship of the client
+     */
+    public Connection(Game game, DatagramChannel channel, InetSocketAddress address, int shipID) {
+        this(game, channel, address, shipID, null);
+    }
 
     /**
      * Constructor
      * @param game game played on the server
-     * @param ds socket of the connection
-     * @param dp packet received
+     * @param channel of the server
+     * @param address of the client
      * @param shipID id of the ship of the client
+     * @param interest part of the world the client is sent, or null if it is sent the whole game
      */
-    public Connection(Game game, DatagramSocket ds, DatagramPacket dp, int shipID) {
+    public Connection(Game game, DatagramChannel channel, InetSocketAddress address, int shipID,
+                      AreaOfInterest interest) {
         super();
+        this.interest = interest;
+        sent = interest == null ? null : new SnapshotHistory();
         this.game = game;
-        this.dp = dp;
-        this.ds = ds;
+        this.address = address;
+        this.channel = channel;
         this.shipID = shipID;
+        acknowledging = false;
+        acknowledgedTick = SnapshotHistory.NO_TICK;
+        wireFormat = WireFormat.V1;
         lastTick = game.getLastLocalTick();
         sendShipId();
     }
@@ -40,18 +68,48 @@ public class Connection extends PacketHandler {
      * sends the ID of the ship to the client
      */
     public void sendShipId() {
-        send(ds, Client.RECEIVED_SIGNAL, shipID, dp.getAddress(), dp.getPort());
+        send(channel, Client.RECEIVED_SIGNAL, shipID, address);
     }
 
     /**
-     * sends game to the client if the client received it's ship id, otherwise tries to send ship ID
+     * sends game to the client if the client received it's ship id, otherwise tries to send ship ID.
+     * Clients that acknowledge the snapshots they receive get only the difference with the last one they acknowledged,
+     * other clients get the whole game.
+     * @param broadcast of the latest snapshot of the game, which encodes every packet only once for all connections
+     * @param history snapshots sent before, to find the last acknowledged one in
      */
-    public void sendGame() {
+    public void sendGame(SnapshotBroadcast broadcast, SnapshotHistory history) {
         if (running && MAX_NO_RESPONSE_TIME > game.getLastLocalTick() - lastTick) {
-            send(ds, Client.GAME_SIGNAL, game, dp.getAddress(), dp.getPort());
+            if (acknowledging) {
+                broadcast.sendDelta(channel, wireFormat, history.get(acknowledgedTick), address);
+            } else {
+                broadcast.sendFull(channel, address);
+            }
         }
         if (!running && MAX_NO_RESPONSE_TIME > game.getLastLocalTick() - lastTick) {
-            sendShipId();
+            broadcast.sendSignal(channel, Client.RECEIVED_SIGNAL, shipID, address);
+        }
+    }
+
+    /**
+     * sends the objects in the area of interest of the client, as sendGame() does with the whole game. The selection of
+     * every tick is kept, so that clients that acknowledge get the difference with the last selection they received,
+     * in which objects that came into the area are new and objects that left it are removed.
+     * @param broadcast to send the packet of this connection alone with
+     * @param grid of the objects of the latest snapshot of the game
+     */
+    public void sendVisible(SnapshotBroadcast broadcast, InterestGrid grid) {
+        if (running && MAX_NO_RESPONSE_TIME > game.getLastLocalTick() - lastTick) {
+            WorldSnapshot selection = interest.select(grid);
+            sent.record(selection);
+            if (acknowledging) {
+                broadcast.sendDelta(channel, wireFormat, sent.get(acknowledgedTick), selection, address);
+            } else {
+                broadcast.sendFull(channel, selection, address);
+            }
+        }
+        if (!running && MAX_NO_RESPONSE_TIME > game.getLastLocalTick() - lastTick) {
+            broadcast.sendSignal(channel, Client.RECEIVED_SIGNAL, shipID, address);
         }
     }
 
@@ -70,10 +128,63 @@ public class Connection extends PacketHandler {
         this.lastTick = lastTick;
     }
 
+    /**
+     * registers that the client received the snapshot of the given tick, or that it is able to receive differences
+     * between snapshots if it did not receive any yet
+     * @param tick of the snapshot received, or SnapshotHistory.NO_TICK
+     */
+    public void acknowledge(int tick) {
+        acknowledging = true;
+        if (tick > acknowledgedTick) acknowledgedTick = tick;
+    }
+
+    /**
+     * sets the format of the differences sent to the client to the newest one that both sides can read
+     * @param version newest version of the format that the client can read
+     */
+    public void setWireFormat(int version) {
+        wireFormat = WireFormat.negotiate(version);
+    }
+
+    /**
+     * @return format of the differences sent to the client
+     */
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * @return tick of the last snapshot the client acknowledged, or SnapshotHistory.NO_TICK
+     */
+    public int getAcknowledgedTick() {
+        return acknowledgedTick;
+    }
+
+    /**
+     * @return part of the world the client is sent, or null if it is sent the whole game
+     */
+    public AreaOfInterest getInterest() {
+        return interest;
+    }
+
+    /**
+     * @return id of the ship of the client, or -1 for a spectator
+     */
+    public int getShipID() {
+        return shipID;
+    }
+
     /**
      * @return IP of the client
      */
     public InetAddress getInetAddres() {
-        return dp.getAddress();
+        return address.getAddress();
+    }
+
+    /**
+     * @return IP and port of the client
+     */
+    public InetSocketAddress getAddress() {
+        return address;
     }
 }
@@ -0,0 +1,124 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.util.TimingWheel;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This is a class of the connections of a room, looked up by the IP and port of their client, so that clients behind
+ * the same IP each get a connection of their own.
+ *
+ * Connections are looked up and added by the thread that reads the socket, while the thread that ticks the game sends
+ * to them and removes the ones that stopped responding. Instead of checking every connection every tick, each
+ * connection sits in a timing wheel at the tick at which it would time out. Only when that tick comes is it checked,
+ * and put back at its new deadline if its client responded in the meantime.
+ */
+public class ConnectionTable {
+
+    private final int timeout;
+    private final ConcurrentHashMap<InetSocketAddress, Connection> connections;
+    private final ConcurrentLinkedQueue<Connection> added;
+    private final AtomicInteger players;
+    private TimingWheel<Connection> deadlines;
+    private final Consumer<Connection> expireIfSilent;
+    private int currentTick;
+
+    /**
+     * Constructor
+     * @param timeout number of ticks without a response after which a connection is removed
+     */
+    public ConnectionTable(int timeout) {
+        this.timeout = timeout;
+        connections = new ConcurrentHashMap<>();
+        added = new ConcurrentLinkedQueue<>();
+        players = new AtomicInteger();
+        expireIfSilent = this::expireIfSilent;
+    }
+
+    /**
+     * @param address of the client
+     * @return connection of the client, or null if it has none
+     */
+    public Connection get(InetSocketAddress address) {
+        return connections.get(address);
+    }
+
+    /**
+     * adds the connection of a new client
+     * @param connection to be added
+     */
+    public void add(Connection connection) {
+        connections.put(connection.getAddress(), connection);
+        if (connection.getShipID() >= 0) players.incrementAndGet();
+        added.offer(connection);
+    }
+
+    /**
+     * @return all connections, to be sent to
+     */
+    public Collection<Connection> getConnections() {
+        return connections.values();
+    }
+
+    /**
+     * removes the connections whose clients did not respond for longer than the timeout
+     * @param tick current tick of the game
+     */
+    public void expire(int tick) {
+        if (deadlines == null || tick < deadlines.getCurrentTick()) {
+            // the game started over, so all deadlines are scheduled again
+            added.clear();
+            added.addAll(connections.values());
+            deadlines = new TimingWheel<>(timeout + 2, tick);
+        }
+        currentTick = tick;
+        Connection connection;
+        while ((connection = added.poll()) != null) {
+            schedule(connection);
+        }
+        deadlines.advance(tick, expireIfSilent);
+    }
+
+    /**
+     * removes a connection that is due, unless its client responded since it was scheduled
+     * @param connection that is due
+     */
+    private void expireIfSilent(Connection connection) {
+        if (currentTick - connection.getLastTick() > timeout) {
+            // a connection can be due twice if it was added while the game started over, but is only removed once
+            if (connections.remove(connection.getAddress(), connection) && connection.getShipID() >= 0) {
+                players.decrementAndGet();
+            }
+        } else {
+            schedule(connection);
+        }
+    }
+
+    /**
+     * puts a connection in the timing wheel at the tick at which it would time out, unless it was removed already
+     * @param connection to be scheduled
+     */
+    private void schedule(Connection connection) {
+        if (connections.get(connection.getAddress()) != connection) return;
+        deadlines.schedule(connection, connection.getLastTick() + timeout + 1);
+    }
+
+    /**
+     * @return number of connections that play with a spaceship
+     */
+    public int getPlayerCount() {
+        return players.get();
+    }
+
+    /**
+     * @return number of connections
+     */
+    public int size() {
+        return connections.size();
+    }
+}
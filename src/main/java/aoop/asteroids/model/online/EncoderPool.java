@@ -0,0 +1,63 @@
+package aoop.asteroids.model.online;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is a class of a fixed pool of threads that rooms hand the encoding of the packets of their connections to, so
+ * that a tick does not take longer with every connection as long as there are idle cores. A room splits its
+ * connections into parts, hands all parts but the first to the pool, encodes the first part itself and waits until all
+ * parts are done before its tick ends, see Room.
+ *
+ * The pool is shared by all rooms of a server.
+ */
+public class EncoderPool {
+
+    private final int threads;
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Constructor
+     * @param threads number of threads in the pool
+     */
+    public EncoderPool(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("There must be at least one encoder thread");
+        this.threads = threads;
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "Encoder " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * runs a task on a thread of the pool, or on the calling thread if the pool was shut down
+     * @param task to be run
+     */
+    public void execute(Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * @return number of threads in the pool
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * stops the threads of the pool once they finished their tasks
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,160 @@
+package aoop.asteroids.model.online;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This is a class that splits packets larger than PacketHandler.MAX_SIZE into fragments, and puts them together again
+ * on the other side.
+ *
+ * Every fragment is a datagram of its own that starts with Client.FRAGMENT_SIGNAL, followed by the sequence number of
+ * the packet it belongs to, its index and the number of fragments of the packet. All fragments but the last one carry
+ * FRAGMENT_PAYLOAD bytes, so each one can be copied straight to its place in the packet.
+ *
+ * Only a few packets are put together at the same time. When fragments of a new packet arrive while all of them are
+ * in use, the oldest unfinished packet is dropped, so lost fragments never pile up.
+ */
+public class FragmentReassembler {
+
+    public static final int FRAGMENT_HEADER = 3 * Integer.BYTES;
+    public static final int FRAGMENT_PAYLOAD = PacketHandler.MAX_SIZE - FRAGMENT_HEADER;
+    public static final int MAX_FRAGMENTS = Long.SIZE;
+    public static final int MAX_PACKET_SIZE = MAX_FRAGMENTS * FRAGMENT_PAYLOAD;
+
+    private static final int DEFAULT_SLOTS = 4;
+
+    private final int[] sequences;
+    private final int[] fragmentCounts;
+    private final long[] received;
+    private final int[] lengths;
+    private final byte[][] packets;
+    private int lastCompleted;
+    private int lastCompletedLength;
+    private boolean completedAny;
+
+    /**
+     * View of the datagrams that fragments arrive in, made again only when they arrive in another array
+     */
+    private ByteBuffer header;
+
+    /**
+     * Constructor
+     */
+    public FragmentReassembler() {
+        this(DEFAULT_SLOTS);
+    }
+
+    /**
+     * Constructor
+     * @param slots number of packets that can be put together at the same time
+     */
+    public FragmentReassembler(int slots) {
+        sequences = new int[slots];
+        fragmentCounts = new int[slots];
+        received = new long[slots];
+        lengths = new int[slots];
+        packets = new byte[slots][];
+    }
+
+    /**
+     * @param length of a packet
+     * @return number of fragments the packet is split into, 1 if it fits in a single datagram
+     */
+    public static int getFragmentCount(int length) {
+        if (length <= PacketHandler.MAX_SIZE) return 1;
+        return (length + FRAGMENT_PAYLOAD - 1) / FRAGMENT_PAYLOAD;
+    }
+
+    /**
+     * writes one fragment of a packet, with its header
+     * @param packet whole packet
+     * @param length of the packet
+     * @param sequence number of the packet
+     * @param index of the fragment
+     * @param fragment array of at least PacketHandler.MAX_SIZE bytes to write the fragment to
+     * @return length of the fragment
+     */
+    public static int writeFragment(byte[] packet, int length, int sequence, int index, byte[] fragment) {
+        int count = getFragmentCount(length);
+        int offset = index * FRAGMENT_PAYLOAD;
+        int payload = Math.min(FRAGMENT_PAYLOAD, length - offset);
+        ByteBuffer buffer = ByteBuffer.wrap(fragment);
+        buffer.putInt(Client.FRAGMENT_SIGNAL);
+        buffer.putInt(sequence);
+        buffer.putShort((short) index);
+        buffer.putShort((short) count);
+        buffer.put(packet, offset, payload);
+        return buffer.position();
+    }
+
+    /**
+     * adds a received fragment
+     * @param data of the datagram, starting with the fragment signal
+     * @param length of the datagram
+     * @return the whole packet once this was its last missing fragment, null otherwise. It stays valid until the next
+     * fragment is added.
+     */
+    public byte[] add(byte[] data, int length) {
+        if (length < FRAGMENT_HEADER) return null;
+        if (header == null || header.array() != data) header = ByteBuffer.wrap(data);
+        if (header.getInt(0) != Client.FRAGMENT_SIGNAL) return null;
+        int sequence = header.getInt(Integer.BYTES);
+        int index = header.getShort(2 * Integer.BYTES) & 0xFFFF;
+        int count = header.getShort(2 * Integer.BYTES + Short.BYTES) & 0xFFFF;
+        int payload = length - FRAGMENT_HEADER;
+        if (count > MAX_FRAGMENTS || index >= count) return null;
+        if (payload > FRAGMENT_PAYLOAD || (index < count - 1 && payload != FRAGMENT_PAYLOAD)) return null;
+        if (completedAny && sequence - lastCompleted <= 0) return null;
+
+        int slot = findSlot(sequence, count);
+        if (slot < 0 || fragmentCounts[slot] != count) return null;
+        long bit = 1L << index;
+        if ((received[slot] & bit) != 0) return null;
+        received[slot] |= bit;
+        System.arraycopy(data, FRAGMENT_HEADER, packets[slot], index * FRAGMENT_PAYLOAD, payload);
+        if (index == count - 1) lengths[slot] = index * FRAGMENT_PAYLOAD + payload;
+        if (Long.bitCount(received[slot]) < count) return null;
+
+        completedAny = true;
+        lastCompleted = sequence;
+        lastCompletedLength = lengths[slot];
+        fragmentCounts[slot] = 0;
+        return packets[slot];
+    }
+
+    /**
+     * @return length of the last packet that was put together
+     */
+    public int getLength() {
+        return lastCompletedLength;
+    }
+
+    /**
+     * finds the slot of the packet with the given sequence number, or takes a free slot or the one of the oldest packet
+     * for it
+     * @param sequence number of the packet
+     * @param count number of fragments of the packet
+     * @return index of the slot, or -1 if all slots are in use by newer packets
+     */
+    private int findSlot(int sequence, int count) {
+        for (int slot = 0; slot < sequences.length; slot++) {
+            if (fragmentCounts[slot] != 0 && sequences[slot] == sequence) return slot;
+        }
+        int oldest = 0;
+        for (int slot = 0; slot < sequences.length; slot++) {
+            if (fragmentCounts[slot] == 0) {
+                oldest = slot;
+                break;
+            }
+            if (sequences[slot] - sequences[oldest] < 0) oldest = slot;
+        }
+        if (fragmentCounts[oldest] != 0 && sequence - sequences[oldest] < 0) return -1;
+        sequences[oldest] = sequence;
+        fragmentCounts[oldest] = count;
+        received[oldest] = 0L;
+        lengths[oldest] = 0;
+        if (packets[oldest] == null || packets[oldest].length < count * FRAGMENT_PAYLOAD) {
+            packets[oldest] = new byte[count * FRAGMENT_PAYLOAD];
+        }
+        return oldest;
+    }
+}
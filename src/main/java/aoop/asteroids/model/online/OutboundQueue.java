@@ -0,0 +1,142 @@
+package aoop.asteroids.model.online;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is a class of a bounded ring of datagrams that wait to be sent, so that the thread that ticks a game never
+ * waits on the socket. The thread that ticks the game of a room copies every datagram into the next slot of the ring,
+ * and a sender thread of the server sends them in order, see Server.
+ *
+ * When the ring is full, the oldest datagram that was not sent yet is dropped to make room, rather than making the
+ * tick wait. Every datagram holds a snapshot or a fragment of one, so a newer one is worth more than an older one, and
+ * clients already cope with lost datagrams.
+ *
+ * The ring has a single producer and a single consumer and takes no locks. Both move the head forward with a
+ * compare-and-set, the consumer to take a datagram and the producer to drop one. The slot that the consumer is sending
+ * from is never written, a datagram that would go there is dropped instead.
+ */
+public class OutboundQueue {
+
+    /**
+     * Default number of slots, which must be a power of two
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final int capacity;
+    private final ByteBuffer writer;
+    private final ByteBuffer reader;
+    private final int[] lengths;
+    private final SocketAddress[] addresses;
+    private final AtomicLong head;
+    private volatile long tail;
+    private volatile long sending;
+    private volatile long dropped;
+    private volatile Thread consumer;
+
+    /**
+     * Constructor
+     * @param capacity number of datagrams the ring holds, a power of two
+     */
+    public OutboundQueue(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, not " + capacity);
+        }
+        this.capacity = capacity;
+        ByteBuffer data = ByteBuffer.allocateDirect(capacity * PacketHandler.MAX_SIZE);
+        writer = data.duplicate();
+        reader = data.duplicate();
+        lengths = new int[capacity];
+        addresses = new SocketAddress[capacity];
+        head = new AtomicLong();
+        sending = NONE;
+    }
+
+    /**
+     * sets the thread that sends the datagrams, which is woken up whenever a datagram is added to an empty ring
+     * @param consumer sender thread, or null if there is none
+     */
+    public void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * copies the remaining bytes of a buffer into the ring, dropping the oldest datagram if the ring is full. Only one
+     * thread at a time may add datagrams.
+     * @param datagram to be sent, of at most PacketHandler.MAX_SIZE bytes, which is read up to its limit
+     * @param address to send to
+     * @return true if the datagram was added
+     */
+    public boolean offer(ByteBuffer datagram, SocketAddress address) {
+        int length = datagram.remaining();
+        if (length > PacketHandler.MAX_SIZE) {
+            System.out.println("Datagram of " + length + " bytes is too large to send");
+            return false;
+        }
+        long t = tail;
+        long h = head.get();
+        if (t - h >= capacity && head.compareAndSet(h, h + 1)) dropped++;
+        if (sending == t - capacity) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) t & (capacity - 1);
+        writer.limit(slot * PacketHandler.MAX_SIZE + length).position(slot * PacketHandler.MAX_SIZE);
+        writer.put(datagram);
+        lengths[slot] = length;
+        addresses[slot] = address;
+        tail = t + 1;
+        // the consumer may have found the ring empty and gone to sleep just before this datagram was added
+        if (head.get() >= t) LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * sends all datagrams in the ring, in the order they were added. If the send buffer of the socket is full, a
+     * datagram is dropped, as it could have been on its way. Only one thread at a time may send.
+     * @param channel to send on
+     * @return number of datagrams taken from the ring
+     */
+    public int drainTo(DatagramChannel channel) {
+        int taken = 0;
+        while (true) {
+            long h = head.get();
+            if (h >= tail) return taken;
+            sending = h;
+            if (!head.compareAndSet(h, h + 1)) {
+                // the producer dropped this datagram in the meantime
+                sending = NONE;
+                continue;
+            }
+            int slot = (int) h & (capacity - 1);
+            reader.limit(slot * PacketHandler.MAX_SIZE + lengths[slot]).position(slot * PacketHandler.MAX_SIZE);
+            try {
+                channel.send(reader, addresses[slot]);
+            } catch (IOException e) {
+                System.out.println("Couldn't send data");
+            }
+            sending = NONE;
+            taken++;
+        }
+    }
+
+    /**
+     * @return number of datagrams that waited in the ring
+     */
+    public int size() {
+        return (int) Math.max(tail - head.get(), 0);
+    }
+
+    /**
+     * @return number of datagrams dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -1,12 +1,15 @@
 package aoop.asteroids.model.online;
 
-import aoop.asteroids.model.game.Game;
 import aoop.asteroids.model.game.ByteModel;
+import aoop.asteroids.util.BufferPool;
 
 import java.io.*;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 
 /**
  * This is a class that is bases for other udp connection related classes
@@ -15,7 +18,12 @@ public abstract class PacketHandler {
 
     public static final int MAX_SIZE = 1024;
 
-    protected boolean running;
+    /**
+     * Direct buffers of MAX_SIZE bytes, shared by all threads sending or receiving on a channel
+     */
+    protected static final BufferPool buffers = new BufferPool(MAX_SIZE, 64);
+
+    protected volatile boolean running;
 
     /**
      * Constructor
@@ -25,32 +33,65 @@ public abstract class PacketHandler {
     }
 
     /**
-     * sends signal and game to the given ip and port
+     * sends signal and value to the given address
+     * @param channel to send on
+     * @param signal value of signal
+     * @param value value to be send
+     * @param address to send to
+     */
+    public void send(DatagramChannel channel, int signal, int value, SocketAddress address) {
+        ByteBuffer buffer = buffers.acquire();
+        buffer.putInt(signal);
+        buffer.putInt(value);
+        buffer.flip();
+        send(channel, buffer, address);
+        buffers.release(buffer);
+    }
+
+    /**
+     * sends the remaining bytes of a buffer to the given address. If the send buffer of the socket is full, the datagram
+     * is dropped, as it could have been on its way.
+     * @param channel to send on
+     * @param buffer to be send
+     * @param address to send to
+     */
+    private void send(DatagramChannel channel, ByteBuffer buffer, SocketAddress address) {
+        try {
+            channel.send(buffer, address);
+        } catch (IOException e) {
+            System.out.println("Couldn't send data");
+        }
+    }
+
+    /**
+     * sends signal and value to the given ip and port
      * @param ds socket to send from
      * @param signal value of signal
-     * @param game game to be send
+     * @param value value to be send
      * @param ip to send to
      * @param port to send to
      */
-    public void send(DatagramSocket ds, int signal, Game game, InetAddress ip, int port) {
+    public void send(DatagramSocket ds, int signal, int value, InetAddress ip, int port) {
         ByteModel bytes = new ByteModel();
         bytes.add(signal);
-        bytes.add(game);
+        bytes.add(value);
         send(ds, bytes.getByteArray(), ip, port);
     }
 
     /**
-     * sends signal and value to the given ip and port
+     * sends signal and values to the given ip and port
      * @param ds socket to send from
      * @param signal value of signal
-     * @param value value to be send
+     * @param values values to be send, in order
      * @param ip to send to
      * @param port to send to
      */
-    public void send(DatagramSocket ds, int signal, int value, InetAddress ip, int port) {
+    public void send(DatagramSocket ds, int signal, int[] values, InetAddress ip, int port) {
         ByteModel bytes = new ByteModel();
         bytes.add(signal);
-        bytes.add(value);
+        for (int value: values) {
+            bytes.add(value);
+        }
         send(ds, bytes.getByteArray(), ip, port);
     }
 
@@ -77,13 +118,24 @@ public abstract class PacketHandler {
     public DatagramPacket receive(DatagramSocket ds) {
         byte[] data = new byte[MAX_SIZE];
         DatagramPacket receivePacket = new DatagramPacket(data, data.length);
+        return receive(ds, receivePacket) ? receivePacket : null;
+    }
+
+    /**
+     * receives a packet into a packet that is reused from packet to packet, using its whole buffer
+     * @param ds socket receiving the packet
+     * @param packet to receive into
+     * @return true if a packet was received
+     */
+    public boolean receive(DatagramSocket ds, DatagramPacket packet) {
+        packet.setLength(packet.getData().length);
         try {
-            ds.receive(receivePacket);
-            return receivePacket;
+            ds.receive(packet);
+            return true;
         } catch (IOException e) {
             System.out.println("Couldn't receive packet");
         }
-        return null;
+        return false;
     }
 
     /**
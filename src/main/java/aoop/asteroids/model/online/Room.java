@@ -0,0 +1,347 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.game_observer.GameUpdateListener;
+import aoop.asteroids.model.game.AreaOfInterest;
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.game.InputBuffer;
+import aoop.asteroids.model.game.InterestGrid;
+import aoop.asteroids.model.game.SnapshotHistory;
+import aoop.asteroids.model.game.Spaceship;
+import aoop.asteroids.model.game.WorldSnapshot;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is a class of a room on the server, which holds one game and the connections of the clients playing it.
+ * In a room with an interest radius, every player is sent only the objects within that distance of its spaceship, and
+ * every spectator the objects in the part of the world it asked for, see AreaOfInterest. The objects are found with a
+ * grid that is built once per tick, so that large worlds do not cost more to send per client than small ones.
+ *
+ * The thread that ticks the game does not send the snapshots itself, it adds them to the outbound queue of the room,
+ * from which the sender thread of the server sends them. With an interest radius, every connection needs a packet of
+ * its own, so with an encoder pool the connections are split into parts that are encoded in parallel, each into a
+ * broadcast and an outbound queue of its own, see EncoderPool.
+ */
+public class Room extends PacketHandler implements GameUpdateListener {
+
+    /**
+     * Least number of connections in a part that is handed to the encoder pool, fewer are not worth handing over
+     */
+    private static final int CONNECTIONS_PER_PART = 4;
+
+    private final int id;
+    private final Game game;
+    private final ConnectionTable connections;
+    private final int maxPlayers;
+    private final SnapshotHistory history;
+    private final OutboundQueue outbound;
+    private final SnapshotBroadcast broadcast;
+    private final double interestRadius;
+    private final InterestGrid grid;
+    private final EncoderPool encoders;
+    private final AtomicInteger fragmentSequences;
+    private final Semaphore finished;
+    private volatile Part[] parts;
+    private volatile Thread sender;
+    private Connection[] visible;
+    private int visibleCount;
+
+    /**
+     * Constructor for a room that sends every client the whole game
+     * @param id of the room, which clients put in the signals they send
+     * @param game played in the room
+     * @param maxPlayers maximum number of players that may join, spectators are not counted
+     */
+    public Room(int id, Game game, int maxPlayers) {
+        this(id, game, maxPlayers, 0.0);
+    }
+
+    /**
+     * Constructor
+     * @param id of the room, which clients put in the signals they send
+     * @param game played in the room
+     * @param maxPlayers maximum number of players that may join, spectators are not counted
+     * @param interestRadius distance from its spaceship up to which a player is sent objects, or 0 to send every
+     *                       client the whole game
+     */
+    public Room(int id, Game game, int maxPlayers, double interestRadius) {
+        this(id, game, maxPlayers, interestRadius, null);
+    }
+
+    /**
+     * Constructor
+     * @param id of the room, which clients put in the signals they send
+     * @param game played in the room
+     * @param maxPlayers maximum number of players that may join, spectators are not counted
+     * @param interestRadius distance from its spaceship up to which a player is sent objects, or 0 to send every
+     *                       client the whole game
+     * @param encoders pool that encodes the packets of the connections in parallel, or null to encode them on the
+     *                 thread that ticks the game
+     */
+    public Room(int id, Game game, int maxPlayers, double interestRadius, EncoderPool encoders) {
+        super();
+        this.encoders = encoders;
+        this.interestRadius = interestRadius;
+        grid = interestRadius > 0 ? new InterestGrid(interestRadius) : null;
+        this.id = id;
+        this.game = game;
+        this.maxPlayers = maxPlayers;
+        connections = new ConnectionTable(Connection.MAX_NO_RESPONSE_TIME);
+        history = new SnapshotHistory();
+        outbound = new OutboundQueue(OutboundQueue.DEFAULT_CAPACITY);
+        fragmentSequences = new AtomicInteger();
+        broadcast = new SnapshotBroadcast(outbound, fragmentSequences);
+        finished = new Semaphore(0);
+        parts = new Part[] {new Part(outbound, broadcast)};
+        visible = new Connection[0];
+        game.addListener(this);
+    }
+
+    /**
+     * handles a packet sent by a client of this room. Maintain signals, which make up nearly all packets, are handled
+     * without allocating anything.
+     * @param channel of the server
+     * @param address of the client
+     * @param signal type of the signal, without the room id
+     * @param bytes content of the packet, after the signal
+     */
+    public void handle(DatagramChannel channel, InetSocketAddress address, int signal, ByteBuffer bytes) {
+        if (signal == Client.JOIN_SIGNAL) {
+            Connection c = connections.get(address);
+            if (c == null) {
+                if (connections.getPlayerCount() >= maxPlayers) {
+                    send(channel, Client.REJECTED_SIGNAL, 0, address);
+                    return;
+                }
+                int shipID = game.addSpaceShip();
+                c = new Connection(game, channel, address, shipID,
+                        grid == null ? null : new AreaOfInterest(shipID, interestRadius));
+                connections.add(c);
+            }
+            send(channel, Client.RECEIVED_SIGNAL, c.getShipID(), address);
+        }
+        if (signal == Client.MAINTAIN_SIGNAL) {
+            Connection c = connections.get(address);
+            if (c != null && bytes.remaining() >= Integer.BYTES) {
+                int input = bytes.getInt();
+                // newer clients acknowledge the last snapshot they received after their input, and then tell which
+                // version of the wire format they read, the sequence number of their input and the inputs before it
+                if (bytes.remaining() >= Integer.BYTES) c.acknowledge(bytes.getInt());
+                if (bytes.remaining() >= Integer.BYTES) c.setWireFormat(bytes.getInt());
+                int sequence = bytes.remaining() >= Integer.BYTES ? bytes.getInt() : 0;
+                Spaceship ship = game.getSpaceship(c.getShipID());
+                if (ship != null) moveSpaceship(ship, input, sequence, bytes);
+                c.setLastTick(game.getLastLocalTick());
+                c.setRunning(true);
+            }
+        }
+        if (signal == Client.SPECTATE_SIGNAL) {
+            if (connections.get(address) == null) {
+                connections.add(new Connection(game, channel, address, -1, grid == null ? null : getViewport(bytes)));
+            }
+            send(channel, Client.RECEIVED_SIGNAL, 0, address);
+        }
+    }
+
+    /**
+     * reads the part of the world that a spectator wants to watch. Newer spectators send its left, top, width and
+     * height after the first int, others watch a square around the centre of the world as large as a player sees.
+     * @param bytes content of the spectate signal, after the signal
+     * @return area watched by the spectator
+     */
+    private AreaOfInterest getViewport(ByteBuffer bytes) {
+        if (bytes.remaining() >= 5 * Integer.BYTES) {
+            bytes.getInt();
+            int left = bytes.getInt(), top = bytes.getInt(), width = bytes.getInt(), height = bytes.getInt();
+            if (width >= 0 && height >= 0) return new AreaOfInterest(left, top, width, height);
+        }
+        double centreX = game.getWorld().getWidth() / 2;
+        double centreY = game.getWorld().getHeight() / 2;
+        return new AreaOfInterest(centreX - interestRadius, centreY - interestRadius, 2 * interestRadius,
+                2 * interestRadius);
+    }
+
+    /**
+     * moves the spaceship of the client. Inputs with a sequence number are kept until the spaceship takes them, one per
+     * tick, see InputBuffer, along with the inputs before it that follow in the packet, newest first. The keys of
+     * inputs without a sequence number are pressed right away.
+     * @param ship spaceship of the client
+     * @param input latest input of the client
+     * @param sequence sequence number of the input, or 0 if it has none
+     * @param bytes rest of the packet
+     */
+    private void moveSpaceship(Spaceship ship, int input, int sequence, ByteBuffer bytes) {
+        if (sequence <= 0) {
+            ship.setInput(input);
+            return;
+        }
+        InputBuffer inputs = ship.getInputBuffer();
+        inputs.offer(sequence, input);
+        int count = bytes.remaining() >= Integer.BYTES ? bytes.getInt() : 0;
+        for (int i = 1; i <= count && bytes.remaining() >= Integer.BYTES; i++) {
+            inputs.offer(sequence - i, bytes.getInt());
+        }
+    }
+
+    /**
+     * After each update of the game sends the latest snapshot of the game to all active connections. Each packet is
+     * encoded once, and sent to every connection that gets the same one. With an interest radius, every connection is
+     * sent the objects in its own area instead.
+     * @param timeSinceLastTick The number of milliseconds that have passed since the last game tick occurred. This is
+     *                          used so that things like a display may continue showing an animated model while no
+     */
+    @Override
+    public void onGameUpdated(long timeSinceLastTick) {
+        WorldSnapshot snapshot = game.getSnapshots().acquire();
+        if (snapshot == null) return;
+        try {
+            broadcast.reset(snapshot);
+            if (grid == null) {
+                history.record(snapshot);
+                for (Connection c: connections.getConnections()) {
+                    c.sendGame(broadcast, history);
+                }
+            } else {
+                grid.build(snapshot);
+                sendVisible();
+            }
+            //removes inactive connections
+            connections.expire(game.getLastLocalTick());
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    /**
+     * sends every connection the objects in its area of interest, split over the threads of the encoder pool when
+     * there are enough connections. The first part is encoded on this thread, and the tick waits for the other parts.
+     */
+    private void sendVisible() {
+        visibleCount = 0;
+        for (Connection c: connections.getConnections()) {
+            if (visibleCount == visible.length) visible = Arrays.copyOf(visible, Math.max(16, 2 * visible.length));
+            visible[visibleCount++] = c;
+        }
+        int count = 1;
+        if (encoders != null) {
+            count = Math.max(1, Math.min(encoders.getThreads(), visibleCount / CONNECTIONS_PER_PART));
+        }
+        Part[] parts = getParts(count);
+        for (int k = 0; k < count; k++) {
+            parts[k].first = k;
+            parts[k].step = count;
+        }
+        for (int k = 1; k < count; k++) {
+            encoders.execute(parts[k]);
+        }
+        try {
+            parts[0].run();
+        } finally {
+            finished.acquireUninterruptibly(count);
+            Arrays.fill(visible, 0, visibleCount, null);
+        }
+    }
+
+    /**
+     * @param count number of parts needed
+     * @return parts of the room, of which there are at least the given number
+     */
+    private Part[] getParts(int count) {
+        Part[] parts = this.parts;
+        if (parts.length >= count) return parts;
+        Part[] more = Arrays.copyOf(parts, count);
+        for (int k = parts.length; k < count; k++) {
+            OutboundQueue queue = new OutboundQueue(OutboundQueue.DEFAULT_CAPACITY);
+            queue.setConsumer(sender);
+            more[k] = new Part(queue, new SnapshotBroadcast(queue, fragmentSequences));
+        }
+        this.parts = more;
+        return more;
+    }
+
+    /**
+     * sends the datagrams that the room added to its outbound queues, see OutboundQueue
+     * @param channel of the server
+     * @return number of datagrams taken from the queues
+     */
+    int drainTo(DatagramChannel channel) {
+        int taken = 0;
+        for (Part part: parts) {
+            taken += part.outbound.drainTo(channel);
+        }
+        return taken;
+    }
+
+    /**
+     * sets the thread that sends the datagrams of the room
+     * @param sender thread that calls drainTo(), which is woken up when datagrams are added
+     */
+    void setSender(Thread sender) {
+        this.sender = sender;
+        for (Part part: parts) {
+            part.outbound.setConsumer(sender);
+        }
+    }
+
+    /**
+     * @return number of players and spectators connected to the room
+     */
+    int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * @return id of the room
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return game played in the room
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * A share of the connections that is encoded on one thread, every step-th connection from the first on, with a
+     * broadcast and outbound queue that only that thread uses during a tick.
+     */
+    private final class Part implements Runnable {
+
+        private final OutboundQueue outbound;
+        private final SnapshotBroadcast broadcast;
+        private int first;
+        private int step;
+
+        /**
+         * Constructor
+         * @param outbound queue that the datagrams of the part are added to
+         * @param broadcast that encodes the packets of the part into the queue
+         */
+        private Part(OutboundQueue outbound, SnapshotBroadcast broadcast) {
+            this.outbound = outbound;
+            this.broadcast = broadcast;
+        }
+
+        /**
+         * sends the connections of this part the objects in their area of interest
+         */
+        @Override
+        public void run() {
+            try {
+                for (int i = first; i < visibleCount; i += step) {
+                    visible[i].sendVisible(broadcast, grid);
+                }
+            } finally {
+                finished.release();
+            }
+        }
+    }
+}
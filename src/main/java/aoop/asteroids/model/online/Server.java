@@ -1,118 +1,259 @@
 package aoop.asteroids.model.online;
 
-import aoop.asteroids.game_observer.GameUpdateListener;
 import aoop.asteroids.model.game.Game;
-import aoop.asteroids.model.game.ByteModel;
-import aoop.asteroids.model.game.Spaceship;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * This is a class for host server of the game
+ * This is a class for host server of the game. A server hosts one or more rooms, each with a game of its own, on a
+ * single socket. Clients put the id of their room in the high bits of every signal they send, see
+ * {@link #toSignal(int, int)}, so clients that do not know about rooms end up in room 0.
+ *
+ * The socket is a non-blocking channel that is watched by a selector. A single thread reads all packets that arrived
+ * each time the selector wakes up, into one reused direct buffer, and hands them to their rooms right away.
+ *
+ * The snapshots that rooms send after each tick are sent by a sender thread of their own, from the outbound queues of
+ * all rooms, so that a full socket never holds up a tick, see OutboundQueue.
  */
-public class Server extends PacketHandler implements GameUpdateListener, Runnable {
+public class Server extends PacketHandler implements Runnable {
 
     public static final int PORT_NUMBER = 55554;
 
-    private final Game game;
-    private final ArrayList<Connection> connections;
+    /**
+     * Number of low bits of a signal that hold its type, the bits above hold the room id
+     */
+    public static final int ROOM_SHIFT = 8;
+    public static final int SIGNAL_MASK = (1 << ROOM_SHIFT) - 1;
 
     /**
-     * Constructor - sets default values of the fields
+     * Milliseconds the selector waits for packets before checking whether the server is still running
+     */
+    private static final long SELECT_TIMEOUT = 100;
+
+    private final Map<Integer, Room> rooms;
+    private final int port;
+    private final int maxPlayers;
+    private final double interestRadius;
+    private final ScheduledThreadPoolExecutor ticker;
+    private final EncoderPool encoders;
+    private volatile Thread sender;
+
+    /**
+     * Constructor - sets default values of the fields, and hosts the given game in room 0. The game is ticked by its
+     * own game updater thread, as started by {@link Game#start()}.
      * @param game being host
      */
     public Server(Game game) {
+        this(game, PORT_NUMBER, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor - hosts the given game in room 0, such as the game of a spectator relay, which is not ticked but
+     * updated with the snapshots the relay receives, see SpectatorRelay
+     * @param game being host
+     * @param port to listen on
+     * @param maxPlayers maximum number of players that may join, 0 to let only spectators in
+     */
+    public Server(Game game, int port, int maxPlayers) {
+        super();
+        rooms = new ConcurrentHashMap<>();
+        this.port = port;
+        this.maxPlayers = maxPlayers;
+        interestRadius = 0.0;
+        ticker = null;
+        encoders = null;
+        rooms.put(0, new Room(0, game, maxPlayers));
+    }
+
+    /**
+     * Constructor for a server without rooms yet, whose games are all ticked by a shared pool of threads
+     * @param port to listen on
+     * @param maxPlayers maximum number of players per room, spectators are not counted
+     * @param tickThreads number of threads that tick the games of all rooms
+     */
+    public Server(int port, int maxPlayers, int tickThreads) {
+        this(port, maxPlayers, tickThreads, 0.0);
+    }
+
+    /**
+     * Constructor for a server without rooms yet, whose games are all ticked by a shared pool of threads
+     * @param port to listen on
+     * @param maxPlayers maximum number of players per room, spectators are not counted
+     * @param tickThreads number of threads that tick the games of all rooms
+     * @param interestRadius distance from its spaceship up to which a player is sent objects, or 0 to send every
+     *                       client the whole game, see Room
+     */
+    public Server(int port, int maxPlayers, int tickThreads, double interestRadius) {
+        this(port, maxPlayers, tickThreads, interestRadius, 1);
+    }
+
+    /**
+     * Constructor for a server without rooms yet, whose games are all ticked by a shared pool of threads
+     * @param port to listen on
+     * @param maxPlayers maximum number of players per room, spectators are not counted
+     * @param tickThreads number of threads that tick the games of all rooms
+     * @param interestRadius distance from its spaceship up to which a player is sent objects, or 0 to send every
+     *                       client the whole game, see Room
+     * @param encoderThreads number of threads that encode the packets of the connections of a room with an interest
+     *                       radius in parallel, or 1 to encode them on the thread that ticks its game
+     */
+    public Server(int port, int maxPlayers, int tickThreads, double interestRadius, int encoderThreads) {
         super();
-        this.game = game;
-        game.addListener(this);
-        connections = new ArrayList<>();
+        rooms = new ConcurrentHashMap<>();
+        this.port = port;
+        this.maxPlayers = maxPlayers;
+        this.interestRadius = interestRadius;
+        ticker = new ScheduledThreadPoolExecutor(tickThreads);
+        ticker.setRemoveOnCancelPolicy(true);
+        encoders = encoderThreads > 1 ? new EncoderPool(encoderThreads) : null;
+    }
+
+    /**
+     * adds a room with the given game, and starts the game on the shared tick threads
+     * @param game to be played in the room
+     * @return the new room
+     */
+    public Room addRoom(Game game) {
+        if (ticker == null) throw new IllegalStateException("This server hosts a single game");
+        Room room = new Room(rooms.size(), game, maxPlayers, interestRadius, encoders);
+        rooms.put(room.getId(), room);
+        room.setSender(sender);
+        game.start(ticker);
+        return room;
     }
 
     /**
-     * server listens to connections and behaves accordignly
+     * server listens to connections and passes every packet on to the room it is meant for
      */
     @Override
     public void run() {
-        try (DatagramSocket ds = new DatagramSocket(PORT_NUMBER)) {
-            int shipID = -1;
+        try (DatagramChannel channel = DatagramChannel.open(); Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(port));
+            channel.register(selector, SelectionKey.OP_READ);
+            ByteBuffer buffer = buffers.acquire();
             running = true;
+            startSender(channel);
             while (running) {
-                DatagramPacket dp = receive(ds);
-                ByteModel bytes = new ByteModel(dp.getData());
-                int outcome = bytes.getInt();
-                if (outcome == Client.JOIN_SIGNAL) {
-                    if (findConnection(dp.getAddress()) == null) {
-                        shipID = game.addSpaceShip();
-                        connections.add(new Connection(game, ds, dp, shipID));
-                    }
-                    send(ds, Client.RECEIVED_SIGNAL, shipID, dp.getAddress(), dp.getPort());
-                }
-                if (outcome == Client.MAINTAIN_SIGNAL) {
-                    Connection c = findConnection(dp.getAddress());
-                    moveSpaceship(bytes);
-                    if (c != null) {
-                        c.setLastTick(game.getLastLocalTick());
-                        c.setRunning(true);
-                    }
-                }
-                if (outcome == Client.SPECTATE_SIGNAL) {
-                    if (findConnection(dp.getAddress()) == null) {
-                        connections.add(new Connection(game, ds, dp, -1));
-                    }
-                    send(ds, Client.RECEIVED_SIGNAL, 0, dp.getAddress(), dp.getPort());
-                }
+                if (selector.select(SELECT_TIMEOUT) == 0) continue;
+                selector.selectedKeys().clear();
+                receiveAll(channel, buffer);
             }
+            buffers.release(buffer);
+            stopSender();
         } catch (IOException e) {
             System.out.println("Connection problem");
         }
     }
 
     /**
-     * moves the spaceship of the client
-     * @param bytes to be processed
+     * starts the thread that sends the datagrams in the outbound queues of all rooms
+     * @param channel of the server
      */
-    private void moveSpaceship(ByteModel bytes) {
-        if (game.getSpaceships().size() > 1) {
-            Spaceship s = game.getSpaceships().get(1);
-            s.setIsFiring(bytes.getBoolean());
-            s.setAccelerateKeyPressed(bytes.getBoolean());
-            s.setTurnRightKeyPressed(bytes.getBoolean());
-            s.setTurnLeftKeyPressed(bytes.getBoolean());
+    private void startSender(DatagramChannel channel) {
+        Thread thread = new Thread(() -> sendAll(channel), "Packet sender");
+        thread.setDaemon(true);
+        sender = thread;
+        for (Room room: rooms.values()) {
+            room.setSender(thread);
         }
+        thread.start();
     }
 
     /**
-     * looks for connection is in connections list on IP
-     * @param IP to be looked for
-     * @return connection if found
+     * sends the datagrams in the outbound queues of all rooms until the server stops, and sleeps while they are empty
+     * @param channel of the server
      */
-    private Connection findConnection(InetAddress IP) {
-        for (Connection c: connections) {
-            if (c.getInetAddres().equals(IP)) return c;
+    private void sendAll(DatagramChannel channel) {
+        while (running) {
+            int sent = 0;
+            for (Room room: rooms.values()) {
+                sent += room.drainTo(channel);
+            }
+            if (sent == 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SELECT_TIMEOUT));
         }
-        return null;
     }
 
     /**
-     * After each update of the game sends the relevant game state to all active connections
-     * @param timeSinceLastTick The number of milliseconds that have passed since the last game tick occurred. This is
-     *                          used so that things like a display may continue showing an animated model while no
+     * waits for the sender thread to finish, before the channel it sends on is closed
      */
-    @Override
-    public void onGameUpdated(long timeSinceLastTick) {
-        Iterator<Connection> iter = connections.iterator();
-        while(iter.hasNext()) {
-            Connection c = iter.next();
-            c.sendGame();
-            //removes inactive connections from the list
-            if (game.getLastLocalTick() - c.getLastTick() > Connection.MAX_NO_RESPONSE_TIME) {
-                iter.remove();
+    private void stopSender() {
+        Thread thread = sender;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * reads and handles packets until there are none left on the channel
+     * @param channel of the server
+     * @param buffer to read every packet into
+     * @throws IOException if the channel cannot be read
+     */
+    private void receiveAll(DatagramChannel channel, ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            InetSocketAddress address = (InetSocketAddress) channel.receive(buffer);
+            if (address == null) return;
+            buffer.flip();
+            if (buffer.remaining() < Integer.BYTES) continue;
+            int signal = buffer.getInt();
+            Room room = rooms.get(signal >>> ROOM_SHIFT);
+            if (room == null) {
+                send(channel, Client.REJECTED_SIGNAL, 0, address);
+                continue;
             }
+            room.handle(channel, address, signal & SIGNAL_MASK, buffer);
+        }
+    }
+
+    /**
+     * stops the server and the games of all its rooms
+     */
+    public void shutdown() {
+        running = false;
+        for (Room room: rooms.values()) {
+            room.getGame().quit();
         }
+        if (ticker != null) ticker.shutdownNow();
+        if (encoders != null) encoders.shutdown();
+    }
+
+    /**
+     * combines a room id and the type of a signal into the signal sent by a client
+     * @param room id of the room
+     * @param signal type of the signal
+     * @return signal to be sent
+     */
+    public static int toSignal(int room, int signal) {
+        return room << ROOM_SHIFT | signal;
+    }
+
+    /**
+     * @param id of the room
+     * @return room with the given id, or null if there is none
+     */
+    public Room getRoom(int id) {
+        return rooms.get(id);
+    }
+
+    /**
+     * @return number of rooms on the server
+     */
+    public int getRoomCount() {
+        return rooms.size();
     }
 }
@@ -0,0 +1,228 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.WorldConfig;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+
+/**
+ * Settings of a dedicated server, read from command line arguments of the form --key=value and from an optional
+ * properties file given with --config=file. Arguments on the command line override the properties file.
+ *
+ * Keys starting with "asteroids." are passed on as system properties, so that for example the broadphase can be chosen
+ * with --asteroids.broadphase=SWEEP_AND_PRUNE.
+ */
+public class ServerConfig {
+
+    public static final String CONFIG_KEY = "config";
+    public static final String PORT_KEY = "port";
+    public static final String MAX_PLAYERS_KEY = "maxPlayers";
+    public static final String TICK_RATE_KEY = "tickRate";
+    public static final String WIDTH_KEY = "width";
+    public static final String HEIGHT_KEY = "height";
+    public static final String ASTEROIDS_LIMIT_KEY = "asteroidsLimit";
+    public static final String MAX_ASTEROIDS_LIMIT_KEY = "maxAsteroidsLimit";
+    public static final String ROOMS_KEY = "rooms";
+    public static final String TICK_THREADS_KEY = "tickThreads";
+    public static final String INTEREST_RADIUS_KEY = "interestRadius";
+    public static final String ENCODER_THREADS_KEY = "encoderThreads";
+    public static final String UPSTREAM_KEY = "upstream";
+    public static final String UPSTREAM_ROOM_KEY = "upstreamRoom";
+
+    public static final int DEFAULT_MAX_PLAYERS = 16;
+
+    private static final String SYSTEM_PROPERTY_PREFIX = "asteroids.";
+
+    private final int port;
+    private final int maxPlayers;
+    private final int rooms;
+    private final int tickThreads;
+    private final double interestRadius;
+    private final int encoderThreads;
+    private final InetSocketAddress upstream;
+    private final int upstreamRoom;
+    private final WorldConfig world;
+
+    /**
+     * Constructor
+     * @param properties settings of the server, missing settings get their default value
+     */
+    public ServerConfig(Properties properties) {
+        port = getInt(properties, PORT_KEY, Server.PORT_NUMBER);
+        if (port < 0 || port > 65535) throw new IllegalArgumentException("Port must be between 0 and 65535");
+        maxPlayers = getInt(properties, MAX_PLAYERS_KEY, DEFAULT_MAX_PLAYERS);
+        if (maxPlayers < 1) throw new IllegalArgumentException("There must be room for at least one player");
+        rooms = getInt(properties, ROOMS_KEY, 1);
+        if (rooms < 1 || rooms > (Integer.MAX_VALUE >>> Server.ROOM_SHIFT)) {
+            throw new IllegalArgumentException("Number of rooms out of range");
+        }
+        tickThreads = getInt(properties, TICK_THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        if (tickThreads < 1) throw new IllegalArgumentException("There must be at least one tick thread");
+        interestRadius = getDouble(properties, INTEREST_RADIUS_KEY, 0.0);
+        if (!(interestRadius >= 0)) throw new IllegalArgumentException("Interest radius must not be negative");
+        encoderThreads = getInt(properties, ENCODER_THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        if (encoderThreads < 1) throw new IllegalArgumentException("There must be at least one encoder thread");
+        upstream = getAddress(properties, UPSTREAM_KEY);
+        upstreamRoom = getInt(properties, UPSTREAM_ROOM_KEY, 0);
+        if (upstreamRoom < 0) throw new IllegalArgumentException("Upstream room must not be negative");
+        world = new WorldConfig(
+                getDouble(properties, WIDTH_KEY, WorldConfig.DEFAULT.getWidth()),
+                getDouble(properties, HEIGHT_KEY, WorldConfig.DEFAULT.getHeight()),
+                getDouble(properties, TICK_RATE_KEY, WorldConfig.DEFAULT_TICK_RATE),
+                getInt(properties, ASTEROIDS_LIMIT_KEY, WorldConfig.DEFAULT_ASTEROIDS_LIMIT),
+                getInt(properties, MAX_ASTEROIDS_LIMIT_KEY, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Reads the settings from command line arguments, and from the properties file they point to, if any.
+     * @param args arguments of the form --key=value
+     * @return settings of the server
+     * @throws IOException if the properties file cannot be read
+     */
+    public static ServerConfig fromArguments(String[] args) throws IOException {
+        Properties arguments = new Properties();
+        for (String arg: args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            arguments.setProperty(option.substring(0, separator), option.substring(separator + 1));
+        }
+        Properties properties = new Properties();
+        String file = arguments.getProperty(CONFIG_KEY);
+        if (file != null) {
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        properties.putAll(arguments);
+        for (String key: properties.stringPropertyNames()) {
+            if (key.startsWith(SYSTEM_PROPERTY_PREFIX)) System.setProperty(key, properties.getProperty(key));
+        }
+        return new ServerConfig(properties);
+    }
+
+    /**
+     * @param properties to read from
+     * @param key of the setting
+     * @param defaultValue value if the setting is missing
+     * @return value of the setting as an int
+     */
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number, got " + value);
+        }
+    }
+
+    /**
+     * @param properties to read from
+     * @param key of the setting, whose value is of the form host:port, or host for the default port
+     * @return value of the setting as an address, or null if the setting is missing
+     */
+    private static InetSocketAddress getAddress(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) return null;
+        value = value.trim();
+        int separator = value.lastIndexOf(':');
+        String host = separator < 0 ? value : value.substring(0, separator);
+        int port = Server.PORT_NUMBER;
+        if (separator >= 0) {
+            try {
+                port = Integer.parseInt(value.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " must be of the form host:port, got " + value);
+            }
+        }
+        if (host.isEmpty() || port < 0 || port > 65535) {
+            throw new IllegalArgumentException(key + " must be of the form host:port, got " + value);
+        }
+        return new InetSocketAddress(host, port);
+    }
+
+    /**
+     * @param properties to read from
+     * @param key of the setting
+     * @param defaultValue value if the setting is missing
+     * @return value of the setting as a double
+     */
+    private static double getDouble(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a number, got " + value);
+        }
+    }
+
+    /**
+     * @return port the server listens on
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return maximum number of players that may join a room
+     */
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * @return number of rooms, each with a game of its own
+     */
+    public int getRooms() {
+        return rooms;
+    }
+
+    /**
+     * @return number of threads that tick the games of all rooms
+     */
+    public int getTickThreads() {
+        return tickThreads;
+    }
+
+    /**
+     * @return distance from its spaceship up to which a player is sent objects, or 0 if every client is sent the whole
+     * game
+     */
+    public double getInterestRadius() {
+        return interestRadius;
+    }
+
+    /**
+     * @return number of threads that encode the packets of the connections of a room in a tick, 1 to encode them on
+     * the thread that ticks the game
+     */
+    public int getEncoderThreads() {
+        return encoderThreads;
+    }
+
+    /**
+     * @return address of the server that a spectator relay spectates, or null if none was given
+     */
+    public InetSocketAddress getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * @return id of the room on the upstream server that a spectator relay spectates
+     */
+    public int getUpstreamRoom() {
+        return upstreamRoom;
+    }
+
+    /**
+     * @return world in which the games of the server take place
+     */
+    public WorldConfig getWorld() {
+        return world;
+    }
+}
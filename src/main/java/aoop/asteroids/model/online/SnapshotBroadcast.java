@@ -0,0 +1,330 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.ByteModel;
+import aoop.asteroids.model.game.SnapshotHistory;
+import aoop.asteroids.model.game.WireFormat;
+import aoop.asteroids.model.game.WorldSnapshot;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is a class that sends the snapshot of one tick to all connections of a room, encoding it only once for all
+ * connections that get the same packet. Clients without acknowledgements all get the same whole game, and clients that
+ * acknowledged the same tick and read the same wire format all get the same delta, so the packets are encoded the first
+ * time they are needed in a tick, into direct buffers that are kept from tick to tick, and sent from there.
+ *
+ * None of the shared packets hold anything that differs between connections. Packets that are split into fragments get
+ * one sequence number for all connections, which still grows from packet to packet as every client sees it. In a room
+ * that sends every client only the objects near it, see AreaOfInterest, each connection gets a snapshot of its own,
+ * which is encoded for that connection alone.
+ *
+ * A broadcast is used by the thread that ticks the game of its room only. A broadcast with an outbound queue copies
+ * every datagram into the queue instead of sending it, so that the tick does not wait on the socket.
+ */
+public class SnapshotBroadcast {
+
+    /**
+     * Maximum number of different deltas kept in a tick, any more are encoded for every connection again
+     */
+    private static final int MAX_DELTAS = 8;
+
+    private final ByteModel bytes;
+    private final Encoding full;
+    private final Encoding[] deltas;
+    private final Encoding single;
+    private final OutboundQueue outbound;
+    private final ByteBuffer signal;
+    private int deltaCount;
+    private WorldSnapshot snapshot;
+    private final AtomicInteger fragmentSequences;
+    private byte[] fragment;
+
+    /**
+     * Constructor for a broadcast that sends on the channel right away
+     */
+    public SnapshotBroadcast() {
+        this(null);
+    }
+
+    /**
+     * Constructor
+     * @param outbound queue that datagrams are added to instead of being sent right away, or null to send them on the
+     *                 channel
+     */
+    public SnapshotBroadcast(OutboundQueue outbound) {
+        this(outbound, new AtomicInteger());
+    }
+
+    /**
+     * Constructor for one of the broadcasts that encode the packets of the connections of a room in parallel
+     * @param outbound queue that datagrams are added to instead of being sent right away, or null to send them on the
+     *                 channel
+     * @param fragmentSequences sequence numbers of fragmented packets, shared by all broadcasts of a room so that every
+     *                          client sees them grow whichever broadcast encoded its packet
+     */
+    public SnapshotBroadcast(OutboundQueue outbound, AtomicInteger fragmentSequences) {
+        this.outbound = outbound;
+        this.fragmentSequences = fragmentSequences;
+        signal = ByteBuffer.allocateDirect(2 * Integer.BYTES);
+        bytes = new ByteModel();
+        full = new Encoding();
+        single = new Encoding();
+        deltas = new Encoding[MAX_DELTAS + 1];
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = new Encoding();
+        }
+    }
+
+    /**
+     * starts broadcasting a new snapshot, forgetting the packets of the previous one
+     * @param snapshot to be sent, which must be held until the next call
+     */
+    public void reset(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+        full.encoded = false;
+        deltaCount = 0;
+    }
+
+    /**
+     * sends the whole snapshot, in the layout that clients without acknowledgements read
+     * @param channel to send on
+     * @param address to send to
+     */
+    public void sendFull(DatagramChannel channel, SocketAddress address) {
+        if (!full.encoded) encodeFull(full, snapshot);
+        send(full, channel, address);
+    }
+
+    /**
+     * sends the difference between the snapshot and an older one, split into fragments if it is too large
+     * @param channel to send on
+     * @param format in which the difference is written
+     * @param baseline snapshot that the receiver has, or null if it has none
+     * @param address to send to
+     */
+    public void sendDelta(DatagramChannel channel, WireFormat format, WorldSnapshot baseline, SocketAddress address) {
+        int baselineTick = baseline == null ? SnapshotHistory.NO_TICK : baseline.getTick();
+        Encoding delta = null;
+        for (int i = 0; i < deltaCount; i++) {
+            if (deltas[i].format == format && deltas[i].baselineTick == baselineTick) {
+                delta = deltas[i];
+                break;
+            }
+        }
+        if (delta == null) {
+            delta = deltas[Math.min(deltaCount, MAX_DELTAS)];
+            if (deltaCount < MAX_DELTAS) deltaCount++;
+            delta.format = format;
+            delta.baselineTick = baselineTick;
+            encodeDelta(delta, format, baseline, snapshot);
+        }
+        send(delta, channel, address);
+    }
+
+    /**
+     * sends a whole snapshot of one connection alone, in the layout that clients without acknowledgements read
+     * @param channel to send on
+     * @param snapshot to be sent, such as the objects in the area of interest of the connection
+     * @param address to send to
+     */
+    public void sendFull(DatagramChannel channel, WorldSnapshot snapshot, SocketAddress address) {
+        encodeFull(single, snapshot);
+        send(single, channel, address);
+    }
+
+    /**
+     * sends the difference between a snapshot of one connection alone and an older one, split into fragments if it is
+     * too large
+     * @param channel to send on
+     * @param format in which the difference is written
+     * @param baseline snapshot that the receiver has, or null if it has none
+     * @param snapshot to be sent, such as the objects in the area of interest of the connection
+     * @param address to send to
+     */
+    public void sendDelta(DatagramChannel channel, WireFormat format, WorldSnapshot baseline, WorldSnapshot snapshot,
+                          SocketAddress address) {
+        encodeDelta(single, format, baseline, snapshot);
+        send(single, channel, address);
+    }
+
+    /**
+     * sends signal and value, such as the id of the spaceship of a client that did not start yet
+     * @param channel to send on
+     * @param signal value of signal
+     * @param value value to be send
+     * @param address to send to
+     */
+    public void sendSignal(DatagramChannel channel, int signal, int value, SocketAddress address) {
+        this.signal.clear();
+        this.signal.putInt(signal).putInt(value).flip();
+        send(channel, this.signal, address);
+    }
+
+    /**
+     * @return number of different deltas encoded for the current snapshot
+     */
+    int getDeltaCount() {
+        return deltaCount;
+    }
+
+    /**
+     * encodes a whole snapshot
+     * @param encoding to hold the packet
+     * @param snapshot to be encoded
+     */
+    private void encodeFull(Encoding encoding, WorldSnapshot snapshot) {
+        bytes.reset(bytes.getByteArray(), 0);
+        bytes.add(Client.GAME_SIGNAL);
+        bytes.add(snapshot);
+        encoding.setDatagram(bytes.getByteArray(), bytes.getLength());
+    }
+
+    /**
+     * encodes the difference between a snapshot and an older one, as fragments if it is too large
+     * @param encoding to hold the packet
+     * @param format in which the difference is written
+     * @param baseline snapshot that the receiver has, or null if it has none
+     * @param snapshot to be encoded
+     */
+    private void encodeDelta(Encoding encoding, WireFormat format, WorldSnapshot baseline, WorldSnapshot snapshot) {
+        bytes.reset(bytes.getByteArray(), 0);
+        bytes.add(Client.GAME_DELTA_SIGNAL);
+        bytes.addDelta(format, baseline, snapshot);
+        if (bytes.getLength() > PacketHandler.MAX_SIZE) setFragments(encoding, bytes.getByteArray(), bytes.getLength());
+        else encoding.setDatagram(bytes.getByteArray(), bytes.getLength());
+    }
+
+    /**
+     * splits a packet that is too large for a single datagram into fragments, see FragmentReassembler
+     * @param encoding to hold the fragments
+     * @param data of the packet
+     * @param length of the packet
+     */
+    private void setFragments(Encoding encoding, byte[] data, int length) {
+        encoding.clear();
+        if (length > FragmentReassembler.MAX_PACKET_SIZE) {
+            System.out.println("Packet of " + length + " bytes is too large to send");
+            return;
+        }
+        if (fragment == null) fragment = new byte[PacketHandler.MAX_SIZE];
+        int sequence = fragmentSequences.getAndIncrement();
+        for (int i = 0; i < FragmentReassembler.getFragmentCount(length); i++) {
+            int fragmentLength = FragmentReassembler.writeFragment(data, length, sequence, i, fragment);
+            encoding.addDatagram(fragment, fragmentLength);
+        }
+    }
+
+    /**
+     * sends all datagrams of an encoding, in order
+     * @param encoding to be sent
+     * @param channel to send on
+     * @param address to send to
+     */
+    private void send(Encoding encoding, DatagramChannel channel, SocketAddress address) {
+        for (int i = 0; i < encoding.count; i++) {
+            send(channel, encoding.select(i), address);
+        }
+        encoding.deselect();
+    }
+
+    /**
+     * adds a datagram to the outbound queue, or sends it right away if there is none. If the send buffer of the socket
+     * is full, the datagram is dropped, as it could have been on its way.
+     * @param channel to send on
+     * @param datagram to be sent, between its position and limit
+     * @param address to send to
+     */
+    private void send(DatagramChannel channel, ByteBuffer datagram, SocketAddress address) {
+        if (outbound != null) {
+            outbound.offer(datagram, address);
+            return;
+        }
+        try {
+            channel.send(datagram, address);
+        } catch (IOException e) {
+            System.out.println("Couldn't send data");
+        }
+    }
+
+    /**
+     * One encoded packet, as the datagrams it is sent in, back to back in a direct buffer.
+     */
+    private static class Encoding {
+
+        private WireFormat format;
+        private int baselineTick;
+        private boolean encoded;
+        private ByteBuffer data;
+        private int[] ends;
+        private int count;
+
+        /**
+         * Constructor
+         */
+        private Encoding() {
+            data = ByteBuffer.allocateDirect(PacketHandler.MAX_SIZE);
+            ends = new int[1];
+        }
+
+        /**
+         * removes all datagrams
+         */
+        private void clear() {
+            data.clear();
+            count = 0;
+            encoded = true;
+        }
+
+        /**
+         * replaces all datagrams by a single one
+         * @param datagram bytes of the datagram
+         * @param length of the datagram
+         */
+        private void setDatagram(byte[] datagram, int length) {
+            clear();
+            addDatagram(datagram, length);
+        }
+
+        /**
+         * adds a datagram after the others
+         * @param datagram bytes of the datagram
+         * @param length of the datagram
+         */
+        private void addDatagram(byte[] datagram, int length) {
+            if (data.remaining() < length) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(2 * data.capacity(), data.position() + length));
+                data.flip();
+                larger.put(data);
+                data = larger;
+            }
+            if (count == ends.length) {
+                int[] larger = new int[2 * ends.length];
+                System.arraycopy(ends, 0, larger, 0, count);
+                ends = larger;
+            }
+            data.put(datagram, 0, length);
+            ends[count++] = data.position();
+        }
+
+        /**
+         * selects a datagram, which is then between the position and the limit of the data
+         * @param i index of the datagram
+         * @return data of the encoding
+         */
+        private ByteBuffer select(int i) {
+            data.limit(ends[i]).position(i == 0 ? 0 : ends[i - 1]);
+            return data;
+        }
+
+        /**
+         * puts the data back after the last datagram, where the next one is added
+         */
+        private void deselect() {
+            data.limit(data.capacity()).position(count == 0 ? 0 : ends[count - 1]);
+        }
+    }
+}
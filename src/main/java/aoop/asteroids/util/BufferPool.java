@@ -0,0 +1,59 @@
+package aoop.asteroids.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A pool of reusable direct byte buffers of the same capacity. Direct buffers are expensive to create, but can be read
+ * from and written to a channel without copying them first, so they are created once and handed out again and again.
+ *
+ * Unlike ObjectPool, this pool is thread safe, so that buffers can be shared by all threads sending on the same channel.
+ */
+public class BufferPool {
+
+    private final int capacity;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+
+    /**
+     * Constructor
+     * @param capacity of every buffer in the pool
+     * @param maxSize maximum number of free buffers kept in the pool, any more released buffers are left to the garbage
+     *                collector
+     */
+    public BufferPool(int capacity, int maxSize) {
+        this.capacity = capacity;
+        free = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * @return a cleared buffer from the pool, or a newly created one if the pool is empty
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) return ByteBuffer.allocateDirect(capacity);
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * returns a buffer to the pool, after which it must no longer be used by the caller
+     * @param buffer to be released
+     */
+    public void release(ByteBuffer buffer) {
+        free.offer(buffer);
+    }
+
+    /**
+     * @return capacity of every buffer in the pool
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of free buffers in the pool
+     */
+    public int getFreeCount() {
+        return free.size();
+    }
+}
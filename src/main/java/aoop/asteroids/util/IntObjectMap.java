@@ -0,0 +1,129 @@
+package aoop.asteroids.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from int keys to objects, with open addressing and linear probing in two parallel arrays. Unlike a HashMap
+ * with Integer keys, looking up a key does not box it, so lookups on the path of every packet make no garbage.
+ *
+ * The map is not thread safe, it is meant to be used by a single thread.
+ * @param <V> type of the values
+ */
+public class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Constructor
+     */
+    public IntObjectMap() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @param key to look up
+     * @return value of the key, or null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return (V) values[slot];
+        }
+        return null;
+    }
+
+    /**
+     * sets the value of a key, replacing the value it had
+     * @param key to be set
+     * @param value of the key, not null
+     */
+    public void put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("Values must not be null");
+        if (2 * (size + 1) > keys.length) resize(2 * keys.length);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * removes a key and its value
+     * @param key to be removed
+     * @return value the key had, or null if it had none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+        if (values[slot] == null) return null;
+        V removed = (V) values[slot];
+        values[slot] = null;
+        size--;
+        // moves the keys after the removed one back to where a lookup that starts at their hash finds them
+        for (int next = (slot + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                values[next] = null;
+                slot = next;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * removes all keys
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * @return number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param key to be hashed
+     * @return hash of the key, with its bits spread so that consecutive keys do not end up in consecutive slots
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * moves all keys into arrays of the given capacity
+     * @param capacity new capacity, a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) put(oldKeys[i], (V) oldValues[i]);
+        }
+    }
+}
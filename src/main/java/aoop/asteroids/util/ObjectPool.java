@@ -0,0 +1,65 @@
+package aoop.asteroids.util;
+
+import java.util.function.Supplier;
+
+/**
+ * A pool of reusable objects. Instead of throwing objects away and creating new ones all the time, objects that are no
+ * longer needed are released into the pool, and handed out again the next time an object is acquired. This keeps the
+ * garbage collector from having to clean up after objects that are created and destroyed many times per second.
+ *
+ * The pool is not thread safe, it is meant to be used by a single thread.
+ * @param <T> type of the pooled objects
+ */
+public class ObjectPool<T> {
+
+    private final Supplier<T> factory;
+    private final int maxSize;
+    private Object[] free;
+    private int size;
+
+    /**
+     * Constructor
+     * @param factory creates new objects when the pool is empty
+     * @param maxSize maximum number of free objects kept in the pool, any more released objects are left to the garbage
+     *                collector
+     */
+    public ObjectPool(Supplier<T> factory, int maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        free = new Object[Math.min(maxSize, 16)];
+        size = 0;
+    }
+
+    /**
+     * @return a free object from the pool, or a newly created one if the pool is empty. The object is in whatever state
+     * it was released in, so it should be reinitialised by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (size == 0) return factory.get();
+        T object = (T) free[--size];
+        free[size] = null;
+        return object;
+    }
+
+    /**
+     * returns an object to the pool, after which it must no longer be used by the caller
+     * @param object to be released
+     */
+    public void release(T object) {
+        if (size == free.length) {
+            if (size == maxSize) return;
+            Object[] newFree = new Object[Math.min(maxSize, size * 2)];
+            System.arraycopy(free, 0, newFree, 0, size);
+            free = newFree;
+        }
+        free[size++] = object;
+    }
+
+    /**
+     * @return number of free objects in the pool
+     */
+    public int getFreeCount() {
+        return size;
+    }
+}
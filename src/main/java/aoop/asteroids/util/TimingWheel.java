@@ -0,0 +1,102 @@
+package aoop.asteroids.util;
+
+import java.util.function.Consumer;
+
+/**
+ * A timing wheel holds items that are due at some tick, in a ring of slots with one slot per tick. Advancing the wheel
+ * only looks at the slots of the ticks that passed, so the cost of finding due items does not grow with the number of
+ * items that are not due yet. Items that are due more than a full turn of the wheel ahead stay in their slot until the
+ * wheel comes around at the right turn.
+ *
+ * The wheel is not thread safe, it is meant to be used by a single thread.
+ * @param <T> type of the items
+ */
+public class TimingWheel<T> {
+
+    private final Object[][] items;
+    private final int[][] deadlines;
+    private final int[] sizes;
+    private int currentTick;
+
+    /**
+     * Constructor
+     * @param slots number of slots, which should be larger than the delay of most items
+     * @param currentTick tick that the wheel starts at
+     */
+    public TimingWheel(int slots, int currentTick) {
+        items = new Object[slots][4];
+        deadlines = new int[slots][4];
+        sizes = new int[slots];
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * adds an item that is due at the given tick, or at the next tick if that has passed already
+     * @param item to be added
+     * @param tick at which the item is due
+     */
+    public void schedule(T item, int tick) {
+        if (tick <= currentTick) tick = currentTick + 1;
+        int slot = Math.floorMod(tick, sizes.length);
+        if (sizes[slot] == items[slot].length) {
+            Object[] newItems = new Object[2 * sizes[slot]];
+            int[] newDeadlines = new int[2 * sizes[slot]];
+            System.arraycopy(items[slot], 0, newItems, 0, sizes[slot]);
+            System.arraycopy(deadlines[slot], 0, newDeadlines, 0, sizes[slot]);
+            items[slot] = newItems;
+            deadlines[slot] = newDeadlines;
+        }
+        items[slot][sizes[slot]] = item;
+        deadlines[slot][sizes[slot]] = tick;
+        sizes[slot]++;
+    }
+
+    /**
+     * moves the wheel forward to the given tick, removing all items that are due by then and handing them to the
+     * consumer, which may schedule them again
+     * @param tick to move to
+     * @param due consumer of the items that are due
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(int tick, Consumer<T> due) {
+        int steps = Math.min(tick - currentTick, sizes.length);
+        int from = currentTick;
+        currentTick = tick;
+        for (int step = 1; step <= steps; step++) {
+            int slot = Math.floorMod(from + step, sizes.length);
+            int size = sizes[slot];
+            sizes[slot] = 0;
+            for (int i = 0; i < size; i++) {
+                T item = (T) items[slot][i];
+                int deadline = deadlines[slot][i];
+                items[slot][i] = null;
+                if (deadline <= tick) {
+                    due.accept(item);
+                } else {
+                    // not due in this turn of the wheel, so it goes back into its slot
+                    items[slot][sizes[slot]] = item;
+                    deadlines[slot][sizes[slot]] = deadline;
+                    sizes[slot]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return tick that the wheel was last moved to
+     */
+    public int getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return number of items in the wheel
+     */
+    public int size() {
+        int size = 0;
+        for (int slotSize: sizes) {
+            size += slotSize;
+        }
+        return size;
+    }
+}
@@ -6,6 +6,7 @@ import aoop.asteroids.control.menu.MenuItem;
 import aoop.asteroids.control.menu.MenuItemAction;
 import aoop.asteroids.control.menu.MenuMouseController;
 import aoop.asteroids.model.GameServer;
+import aoop.asteroids.model.game.WorldConfig;
 
 import javax.swing.*;
 import java.awt.*;
@@ -23,7 +24,8 @@ public class AsteroidsFrame extends JFrame {
 	/**
 	 * The size that the window should be.
 	 */
-	public static final Dimension WINDOW_SIZE = new Dimension(800, 800);
+	public static final Dimension WINDOW_SIZE = new Dimension((int) WorldConfig.DEFAULT.getWidth(),
+			(int) WorldConfig.DEFAULT.getHeight());
 
 	/** The game model. */
 	private final GameServer gs;
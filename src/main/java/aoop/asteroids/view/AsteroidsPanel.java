@@ -4,10 +4,9 @@ import aoop.asteroids.control.menu.MenuCommandHandler;
 import aoop.asteroids.control.menu.MenuItem;
 import aoop.asteroids.game_observer.GameUpdateListener;
 import aoop.asteroids.model.GameServer;
-import aoop.asteroids.model.game.Asteroid;
-import aoop.asteroids.model.game.Bullet;
 import aoop.asteroids.model.game.Game;
 import aoop.asteroids.model.game.Spaceship;
+import aoop.asteroids.model.game.WorldSnapshot;
 import aoop.asteroids.view.view_models.AsteroidViewModel;
 import aoop.asteroids.view.view_models.BulletViewModel;
 import aoop.asteroids.view.view_models.SpaceshipViewModel;
@@ -92,47 +91,68 @@ public class AsteroidsPanel extends JPanel implements GameUpdateListener {
 		// Since the game takes place in space, it is efficient to just lazily make the background black.
 		setBackground(Color.BLACK);
 
-		drawGameObjects(graphics2D);
-		if (game.isAsteroidsOnly()) drawMainMenu(graphics2D);
-		else drawShipInformation(graphics2D);
+		/*
+		 * Because the game engine is running concurrently in its own thread, we draw the latest snapshot of the game,
+		 * which does not change while we hold it, instead of the game model itself. Each frame acquires one snapshot,
+		 * so that everything on the screen is from the same tick.
+		 */
+		WorldSnapshot snapshot = game.getSnapshots().acquire();
+		try {
+			if (snapshot != null) drawGameObjects(graphics2D, snapshot);
+			if (game.isAsteroidsOnly()) drawMainMenu(graphics2D);
+			else drawShipInformation(graphics2D, snapshot);
+		} finally {
+			if (snapshot != null) snapshot.release();
+		}
 	}
 
 	/**
 	 * Draws the ship's score and energy.
 	 * @param graphics2D The graphics object that provides the drawing methods.
-	 */
-	private void drawShipInformation(Graphics2D graphics2D) {
+	 * @param snapshot The snapshot of the game to be drawn, or null if there is none yet.
+	 */
+	private void drawShipInformation(Graphics2D graphics2D, WorldSnapshot snapshot) {
+		Spaceship spaceship = game.getSpaceship();
+		int ship = snapshot == null || spaceship == null ? -1 : snapshot.indexOfShip(spaceship.getID());
+		int score;
+		double energyPercentage;
+		if (ship >= 0) {
+			score = snapshot.getShipScore(ship);
+			energyPercentage = snapshot.getShipEnergyPercentage(ship);
+		} else if (spaceship != null) {
+			score = spaceship.getScore();
+			energyPercentage = spaceship.getEnergyPercentage();
+		} else {
+			return;
+		}
 		graphics2D.setColor(Color.WHITE);
 		graphics2D.drawString(
-				String.valueOf(game.getSpaceship().getScore()),
+				String.valueOf(score),
 				SCORE_INDICATOR_POSITION.x,
 				SCORE_INDICATOR_POSITION.y
 		);
 		graphics2D.setColor(Color.GREEN);
 		graphics2D.drawRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, 100, 15);
-		graphics2D.fillRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, (int) game.getSpaceship().getEnergyPercentage(), 15);
+		graphics2D.fillRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, (int) energyPercentage, 15);
 	}
 
 	/**
-	 * Draws all of the game's objects. Wraps each object in a view model, then uses that to draw the object.
+	 * Draws all of the objects in a snapshot of the game. Wraps each object in a view model, then uses that to draw the
+	 * object.
 	 * @param graphics2D The graphics object that provides the drawing methods.
+	 * @param snapshot The snapshot of the game to be drawn.
 	 */
-	private synchronized void drawGameObjects(Graphics2D graphics2D) {
-		/*
-		 * Because the game engine is running concurrently in its own thread, we must obtain a lock for the game model
-		 * while drawing to ensure that we don't encounter a concurrentModificationException, which would happen if we
-		 * were in the middle of drawing while the game engine starts a new physics update.
-		 */
-		synchronized (game) {
-			if (!game.isAsteroidsOnly()) {
-				ArrayList<Spaceship> ships = new ArrayList<>(game.getSpaceships());
-				if (game.isSpectate()) ships.remove(0);
-				ships.forEach(ship -> new SpaceshipViewModel(ship).drawObject(graphics2D, timeSinceLastTick));
+	private void drawGameObjects(Graphics2D graphics2D, WorldSnapshot snapshot) {
+		if (!game.isAsteroidsOnly()) {
+			for (int i = 0; i < snapshot.getShipCount(); i++) {
+				new SpaceshipViewModel(snapshot, i).drawObject(graphics2D, timeSinceLastTick);
 			}
-			Collection<Asteroid> as = new ArrayList<>(game.getAsteroids());
-			as.forEach(asteroid -> new AsteroidViewModel(asteroid).drawObject(graphics2D, timeSinceLastTick));
-			Collection<Bullet> bs = new ArrayList<>(game.getBullets());
-			bs.forEach(bullet -> new BulletViewModel(bullet).drawObject(graphics2D, timeSinceLastTick));
+		}
+		for (int i = 0; i < snapshot.getAsteroidCount(); i++) {
+			new AsteroidViewModel(snapshot, i).drawObject(graphics2D, timeSinceLastTick);
+		}
+		for (int i = 0; i < snapshot.getBulletCount(); i++) {
+			new BulletViewModel(snapshot, i).drawObject(graphics2D, timeSinceLastTick);
 		}
 	}
 
@@ -1,6 +1,6 @@
 package aoop.asteroids.view.view_models;
 
-import aoop.asteroids.model.game.Asteroid;
+import aoop.asteroids.model.game.WorldSnapshot;
 
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
@@ -8,14 +8,22 @@ import java.awt.geom.Ellipse2D;
 /**
  * View model for displaying an asteroid object.
  */
-public class AsteroidViewModel extends GameObjectViewModel<Asteroid> {
+public class AsteroidViewModel extends GameObjectViewModel {
 
 	/**
-	 * Constructs a new view model with the given game object.
-	 * @param gameObject The object that will be displayed when this view model is drawn.
+	 * The radius of the asteroid.
 	 */
-	public AsteroidViewModel(Asteroid gameObject) {
-		super(gameObject);
+	private final double radius;
+
+	/**
+	 * Constructs a new view model of an asteroid in a snapshot.
+	 * @param snapshot The snapshot of the game.
+	 * @param index The index of the asteroid in the snapshot.
+	 */
+	public AsteroidViewModel(WorldSnapshot snapshot, int index) {
+		super(snapshot.getAsteroidX(index), snapshot.getAsteroidY(index), snapshot.getAsteroidVelocityX(index),
+				snapshot.getAsteroidVelocityY(index));
+		radius = snapshot.getAsteroidRadius(index);
 	}
 
 	/**
@@ -25,7 +33,6 @@ public class AsteroidViewModel extends GameObjectViewModel<Asteroid> {
 	 */
 	@Override
 	public void draw(Graphics2D graphics2D, Point.Double location) {
-		double radius = getGameObject().getRadius();
 		graphics2D.setColor(Color.GRAY);
 		Ellipse2D.Double asteroidEllipse = new Ellipse2D.Double(
 				location.getX() - radius,
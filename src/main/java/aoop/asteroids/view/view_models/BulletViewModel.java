@@ -1,6 +1,6 @@
 package aoop.asteroids.view.view_models;
 
-import aoop.asteroids.model.game.Bullet;
+import aoop.asteroids.model.game.WorldSnapshot;
 
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
@@ -8,14 +8,16 @@ import java.awt.geom.Ellipse2D;
 /**
  * View model for displaying bullet objects.
  */
-public class BulletViewModel extends GameObjectViewModel<Bullet> {
+public class BulletViewModel extends GameObjectViewModel {
 
 	/**
 	 * Constructs the view model.
-	 * @param gameObject The bullet to be displayed.
+	 * @param snapshot The snapshot of the game.
+	 * @param index The index of the bullet to be displayed in the snapshot.
 	 */
-	public BulletViewModel(Bullet gameObject) {
-		super(gameObject);
+	public BulletViewModel(WorldSnapshot snapshot, int index) {
+		super(snapshot.getBulletX(index), snapshot.getBulletY(index), snapshot.getBulletVelocityX(index),
+				snapshot.getBulletVelocityY(index));
 	}
 
 	/**
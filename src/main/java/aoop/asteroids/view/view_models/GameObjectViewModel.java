@@ -1,36 +1,40 @@
 package aoop.asteroids.view.view_models;
 
 import aoop.asteroids.control.GameUpdater;
-import aoop.asteroids.model.game.GameObject;
 
 import java.awt.*;
 
 /**
  * A view model for a game object is used to transform a game object into something that can be displayed in the view.
- * Child classes can be made to define custom drawing for different game objects.
- * @param <T> The type of game object that a child class will display.
+ * Child classes can be made to define custom drawing for different game objects. The state of the object is taken from
+ * a snapshot of the game, so that drawing never has to wait for the game engine.
  */
-public abstract class GameObjectViewModel<T extends GameObject> {
+public abstract class GameObjectViewModel {
 
 	/**
-	 * The object that this view model displays.
+	 * The location of the object at the last game tick.
 	 */
-	private final T gameObject;
+	private final double x;
+	private final double y;
 
 	/**
-	 * Constructs a new view model with the given game object.
-	 * @param gameObject The object that will be displayed when this view model is drawn.
+	 * The velocity of the object at the last game tick.
 	 */
-	GameObjectViewModel(T gameObject) {
-		this.gameObject = gameObject;
-	}
+	private final double velocityX;
+	private final double velocityY;
 
 	/**
-	 * Gets the object that was given to this view model.
-	 * @return The game object that should be displayed.
+	 * Constructs a new view model of an object with the given location and velocity.
+	 * @param x The x-coordinate of the object.
+	 * @param y The y-coordinate of the object.
+	 * @param velocityX The x-component of the object's velocity.
+	 * @param velocityY The y-component of the object's velocity.
 	 */
-	T getGameObject() {
-		return gameObject;
+	GameObjectViewModel(double x, double y, double velocityX, double velocityY) {
+		this.x = x;
+		this.y = y;
+		this.velocityX = velocityX;
+		this.velocityY = velocityY;
 	}
 
 	/**
@@ -61,8 +65,8 @@ public abstract class GameObjectViewModel<T extends GameObject> {
 		// What percent of a full game tick has elapsed? Only this percent of the object's velocity will be added.
 		double gameTickRatio = timeSinceLastTick / GameUpdater.MILLISECONDS_PER_TICK;
 		Point.Double simulatedLocation = new Point.Double(
-				gameObject.getLocation().getX() + gameObject.getVelocity().getX() * gameTickRatio,
-				gameObject.getLocation().getY() + gameObject.getVelocity().getY() * gameTickRatio
+				x + velocityX * gameTickRatio,
+				y + velocityY * gameTickRatio
 		);
 
 		draw(graphics2D, simulatedLocation);
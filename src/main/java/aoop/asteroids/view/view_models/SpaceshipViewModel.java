@@ -1,6 +1,6 @@
 package aoop.asteroids.view.view_models;
 
-import aoop.asteroids.model.game.Spaceship;
+import aoop.asteroids.model.game.WorldSnapshot;
 import aoop.asteroids.util.PolarCoordinate;
 
 import java.awt.*;
@@ -11,14 +11,28 @@ import static java.lang.Math.PI;
 /**
  * View model for displaying a spaceship object.
  */
-public class SpaceshipViewModel extends GameObjectViewModel<Spaceship> {
+public class SpaceshipViewModel extends GameObjectViewModel {
 
 	/**
-	 * Constructs a new view model with the given game object.
-	 * @param gameObject The object that will be displayed when this view model is drawn.
+	 * The direction the spaceship is facing, in radians.
 	 */
-	public SpaceshipViewModel(Spaceship gameObject) {
-		super(gameObject);
+	private final double direction;
+
+	/**
+	 * Whether the spaceship is accelerating, in which case its exhaust is drawn.
+	 */
+	private final boolean accelerating;
+
+	/**
+	 * Constructs a new view model of a spaceship in a snapshot.
+	 * @param snapshot The snapshot of the game.
+	 * @param index The index of the spaceship in the snapshot.
+	 */
+	public SpaceshipViewModel(WorldSnapshot snapshot, int index) {
+		super(snapshot.getShipX(index), snapshot.getShipY(index), snapshot.getShipVelocityX(index),
+				snapshot.getShipVelocityY(index));
+		direction = snapshot.getShipDirection(index);
+		accelerating = snapshot.isShipAccelerating(index);
 	}
 
 	/**
@@ -28,24 +42,21 @@ public class SpaceshipViewModel extends GameObjectViewModel<Spaceship> {
 	 */
 	@Override
 	public void draw(Graphics2D graphics2D, Point.Double location) {
-		Spaceship spaceship = getGameObject();
-		drawMainBody(spaceship, graphics2D, location);
-		if (spaceship.isAccelerating()) {
-			drawExhaust(spaceship, graphics2D, location);
+		drawMainBody(graphics2D, location);
+		if (accelerating) {
+			drawExhaust(graphics2D, location);
 		}
 	}
 
 	/**
 	 * Draws the main body of the spaceship as a white triangle.
-	 * @param spaceship The spaceship object to draw. While we could retrieve this from this.getGameObject(), it is a
-	 *                  little easier to read this way.
 	 * @param graphics2D The graphics object to use when drawing.
 	 * @param location The location at which to draw the spaceship.
 	 */
-	private void drawMainBody(Spaceship spaceship, Graphics2D graphics2D, Point.Double location) {
+	private void drawMainBody(Graphics2D graphics2D, Point.Double location) {
 		Path2D.Double spaceshipMainBody = buildTriangle(
 				location,
-				spaceship.getDirection(),
+				direction,
 				new PolarCoordinate(0.0 * PI, 20),
 				new PolarCoordinate(0.8 * PI, 20),
 				new PolarCoordinate(1.2 * PI, 20)
@@ -59,14 +70,13 @@ public class SpaceshipViewModel extends GameObjectViewModel<Spaceship> {
 
 	/**
 	 * Draws the exhaust of the spaceship as a small yellow triangle.
-	 * @param spaceship The spaceship whose exhaust to draw.
 	 * @param graphics2D The graphics object to use when drawing.
 	 * @param location The location at which to draw the spaceship.
 	 */
-	private void drawExhaust(Spaceship spaceship, Graphics2D graphics2D, Point.Double location) {
+	private void drawExhaust(Graphics2D graphics2D, Point.Double location) {
 		Path2D.Double exhaustFlame = buildTriangle(
 				location,
-				spaceship.getDirection(),
+				direction,
 				new PolarCoordinate(1.0 * PI, 25),
 				new PolarCoordinate(0.9 * PI, 15),
 				new PolarCoordinate(1.1 * PI, 15)
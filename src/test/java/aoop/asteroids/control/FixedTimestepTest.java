@@ -0,0 +1,62 @@
+package aoop.asteroids.control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the fixed timestep. All times are made up by the tests instead of read from the clock, so that the results do
+ * not depend on how busy the machine running the tests is.
+ */
+class FixedTimestepTest {
+	/**
+	 * The number of nanoseconds in a second.
+	 */
+	private static final long SECOND = 1_000_000_000L;
+
+	/**
+	 * Time left over after a step should be kept for the next step, so that calling advance at uneven moments still
+	 * results in exactly the requested number of steps per second.
+	 */
+	@Test
+	void testNoDrift() {
+		FixedTimestep timestep = new FixedTimestep(30, 5, 0L);
+		int steps = 0;
+		long now = 0L;
+		// Advance every 7 milliseconds, which does not divide the 33.3 milliseconds of a step.
+		while (now < 10 * SECOND) {
+			now += 7_000_000L;
+			steps += timestep.advance(now);
+		}
+		assertEquals(300, steps);
+		assertEquals(30.0, timestep.getMeasuredRate(), 0.5);
+		assertEquals(0L, timestep.getSkippedSteps());
+	}
+
+	/**
+	 * Nothing should be due before a whole step has passed, and the time until the next step should count down.
+	 */
+	@Test
+	void testNanosUntilNextStep() {
+		FixedTimestep timestep = new FixedTimestep(10, 5, 0L);
+		assertEquals(0, timestep.advance(40_000_000L));
+		assertEquals(60_000_000L, timestep.getNanosUntilNextStep());
+		assertEquals(40_000_000L, timestep.getNanosSinceLastStep());
+		assertEquals(1, timestep.advance(130_000_000L));
+		assertEquals(70_000_000L, timestep.getNanosUntilNextStep());
+		assertEquals(30_000_000L, timestep.getLateness());
+	}
+
+	/**
+	 * After a long pause, only a limited number of steps should be caught up with, and the rest should be skipped.
+	 */
+	@Test
+	void testCatchUpIsLimited() {
+		FixedTimestep timestep = new FixedTimestep(10, 5, 0L);
+		assertEquals(5, timestep.advance(2 * SECOND + 50_000_000L));
+		assertEquals(15L, timestep.getSkippedSteps());
+		assertEquals(50_000_000L, timestep.getNanosSinceLastStep());
+		// Afterwards the timestep continues at the normal rate.
+		assertEquals(1, timestep.advance(2 * SECOND + 150_000_000L));
+	}
+}
@@ -0,0 +1,71 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.model.game.Asteroid;
+import aoop.asteroids.model.game.Bullet;
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.game.Spaceship;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the game updater. The updater is driven with made up times instead of running in its own thread, so that
+ * exactly the same ticks are performed in every run.
+ */
+class GameUpdaterTest {
+	/**
+	 * The number of ticks to simulate.
+	 */
+	private static final int TICKS = 3000;
+
+	/**
+	 * Two games with the same seed and the same input should be exactly the same after many ticks, down to the last bit
+	 * of every location and velocity.
+	 */
+	@Test
+	void testSameSeedGivesSameGame() {
+		List<Double> first = simulate(42L);
+		List<Double> second = simulate(42L);
+		assertEquals(first, second);
+		assertNotEquals(first, simulate(43L));
+	}
+
+	/**
+	 * Simulates a game in which the player keeps turning and firing, and records its final state.
+	 * @param seed The seed of the game.
+	 * @return The locations and velocities of all objects in the game after the simulation.
+	 */
+	private List<Double> simulate(long seed) {
+		Game game = new Game();
+		game.setSeed(seed);
+		Spaceship ship = game.getSpaceship();
+		ship.setIsFiring(true);
+		ship.setTurnLeftKeyPressed(true);
+		GameUpdater updater = new GameUpdater(game);
+		updater.start(0L);
+		long nanosPerTick = (long) (1_000_000_000L / game.getWorld().getTickRate()) + 1;
+		for (int tick = 1; tick <= TICKS; tick++) {
+			updater.update(tick * nanosPerTick);
+		}
+		assertTrue(game.getLastLocalTick() >= TICKS);
+		assertFalse(game.getAsteroids().isEmpty(), "The simulation should have spawned asteroids.");
+		List<Double> state = new ArrayList<>();
+		for (Asteroid asteroid: game.getAsteroids()) addState(state, asteroid.getLocation().x, asteroid.getLocation().y,
+				asteroid.getVelocity().x, asteroid.getVelocity().y);
+		for (Bullet bullet: game.getBullets()) addState(state, bullet.getLocation().x, bullet.getLocation().y,
+				bullet.getVelocity().x, bullet.getVelocity().y);
+		addState(state, ship.getLocation().x, ship.getLocation().y, ship.getVelocity().x, ship.getVelocity().y);
+		return state;
+	}
+
+	/**
+	 * @param state The list to add to.
+	 * @param values The values to be added.
+	 */
+	private void addState(List<Double> state, double... values) {
+		for (double value: values) state.add(value);
+	}
+}
@@ -0,0 +1,84 @@
+package aoop.asteroids.control.collision;
+
+import aoop.asteroids.model.game.Asteroid;
+import aoop.asteroids.model.game.AsteroidSize;
+import aoop.asteroids.model.game.GameObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that every broadphase strategy finds the same collisions as testing every pair of objects, also when the same
+ * broadphase is used for many ticks in a row while objects move, appear and disappear. That last part matters for the
+ * sweep and prune, which keeps its order from one tick to the next.
+ */
+class BroadphaseTest {
+	/**
+	 * The size of the world used in these tests.
+	 */
+	private static final double WORLD_SIZE = 800.0;
+
+	/**
+	 * Simulates a number of ticks, and checks after every tick that all colliding pairs were reported exactly once.
+	 *
+	 * @param type The broadphase strategy to test.
+	 */
+	@ParameterizedTest
+	@EnumSource(BroadphaseType.class)
+	void testFindsAllCollisionsOverManyTicks(BroadphaseType type) {
+		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		Broadphase broadphase = type.create(WORLD_SIZE, WORLD_SIZE);
+		List<GameObject> objects = new ArrayList<>();
+		for (int tick = 0; tick < 100; tick++) {
+			// Some objects disappear and some new ones appear, like in a real game.
+			objects.removeIf(object -> rng.nextInt(20) == 0);
+			for (int i = rng.nextInt(10); i > 0; i--) {
+				objects.add(generateRandomAsteroid());
+			}
+			objects.forEach(GameObject::nextStep);
+
+			Set<Long> reported = new HashSet<>();
+			broadphase.findPairs(objects, (first, second) -> {
+				assertNotSame(first, second, "An object was paired with itself.");
+				assertTrue(reported.add(pairKey(objects, first, second)), "A pair was reported twice.");
+			});
+			for (int i = 0; i < objects.size(); i++) {
+				for (int j = i + 1; j < objects.size(); j++) {
+					if (objects.get(i).collides(objects.get(j))) {
+						assertTrue(reported.contains(pairKey(objects, objects.get(i), objects.get(j))),
+								"A colliding pair was not reported by " + type + ".");
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param objects all objects of a test
+	 * @param first object of the pair
+	 * @param second object of the pair
+	 * @return a key that is the same for a pair of objects, regardless of their order
+	 */
+	private long pairKey(List<GameObject> objects, GameObject first, GameObject second) {
+		int a = objects.indexOf(first);
+		int b = objects.indexOf(second);
+		return (long) Math.min(a, b) * objects.size() + Math.max(a, b);
+	}
+
+	/**
+	 * @return An asteroid of a random size, in a random location, with a random velocity, which can collide right away.
+	 */
+	private Asteroid generateRandomAsteroid() {
+		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		AsteroidSize size = AsteroidSize.values()[rng.nextInt(AsteroidSize.values().length)];
+		return new Asteroid(rng.nextDouble(WORLD_SIZE), rng.nextDouble(WORLD_SIZE),
+				rng.nextDouble(-10, 10), rng.nextDouble(-10, 10), size.getRadius(), 0);
+	}
+}
@@ -0,0 +1,114 @@
+package aoop.asteroids.control.collision;
+
+import aoop.asteroids.model.game.Asteroid;
+import aoop.asteroids.model.game.AsteroidSize;
+import aoop.asteroids.model.game.Bullet;
+import aoop.asteroids.model.game.GameObject;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the uniform grid broadphase. The grid may report more pairs than actually collide, but it must never miss a
+ * colliding pair, and it must never report a pair twice or pair an object with itself.
+ */
+class UniformGridBroadphaseTest {
+	/**
+	 * The size of the world used in these tests.
+	 */
+	private static final double WORLD_SIZE = 800.0;
+
+	/**
+	 * Fills the world with lots of randomly placed objects, and checks that every pair which collides according to the
+	 * brute force approach is also reported by the grid.
+	 */
+	@RepeatedTest(50)
+	void testFindsAllCollisions() {
+		List<GameObject> objects = generateRandomObjects(300);
+		Set<Long> reported = new HashSet<>();
+		new UniformGridBroadphase(WORLD_SIZE, WORLD_SIZE).findPairs(objects, (first, second) -> {
+			assertNotSame(first, second, "An object was paired with itself.");
+			assertTrue(reported.add(pairKey(objects, first, second)), "A pair was reported twice.");
+		});
+		for (int i = 0; i < objects.size(); i++) {
+			for (int j = i + 1; j < objects.size(); j++) {
+				if (objects.get(i).collides(objects.get(j))) {
+					assertTrue(reported.contains(pairKey(objects, objects.get(i), objects.get(j))),
+							"A colliding pair was not reported by the grid.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Objects right next to each other on either side of the world's border are in the first and last columns of the
+	 * grid, which must still be treated as neighbours, just like the objects wrap around the world.
+	 */
+	@Test
+	void testWrapsAroundBorders() {
+		List<GameObject> objects = new ArrayList<>();
+		objects.add(new Bullet(-1.0, 400.0, 0, 0, 0, 0, 1));
+		objects.add(new Bullet(WORLD_SIZE - 1.0, 400.0, 0, 0, 0, 0, 1));
+		objects.add(new Bullet(400.0, WORLD_SIZE + 1.0, 0, 0, 0, 0, 1));
+		objects.add(new Bullet(400.0, 1.0, 0, 0, 0, 0, 1));
+		List<GameObject[]> pairs = new ArrayList<>();
+		new UniformGridBroadphase(WORLD_SIZE, WORLD_SIZE).findPairs(objects, (first, second) ->
+				pairs.add(new GameObject[]{first, second}));
+		assertEquals(2, pairs.size());
+	}
+
+	/**
+	 * A world that is too small for a proper grid should still report every pair exactly once.
+	 */
+	@Test
+	void testTinyWorld() {
+		List<GameObject> objects = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			objects.add(new Bullet(i * 10.0, i * 10.0, 0, 0, 0, 0, 1));
+		}
+		Set<Long> reported = new HashSet<>();
+		new UniformGridBroadphase(100.0, 100.0).findPairs(objects, (first, second) ->
+				assertTrue(reported.add(pairKey(objects, first, second))));
+		assertEquals(10 * 9 / 2, reported.size());
+	}
+
+	/**
+	 * @param objects all objects of a test
+	 * @param first object of the pair
+	 * @param second object of the pair
+	 * @return a key that is the same for a pair of objects, regardless of their order
+	 */
+	private long pairKey(List<GameObject> objects, GameObject first, GameObject second) {
+		int a = objects.indexOf(first);
+		int b = objects.indexOf(second);
+		return (long) Math.min(a, b) * objects.size() + Math.max(a, b);
+	}
+
+	/**
+	 * @param count number of objects to generate
+	 * @return a mix of asteroids of all sizes and bullets, spread randomly over the world and slightly beyond its borders.
+	 * None of them are immune to collisions.
+	 */
+	private List<GameObject> generateRandomObjects(int count) {
+		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		List<GameObject> objects = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			double x = rng.nextDouble(-20.0, WORLD_SIZE + 20.0);
+			double y = rng.nextDouble(-20.0, WORLD_SIZE + 20.0);
+			if (rng.nextBoolean()) {
+				AsteroidSize size = AsteroidSize.values()[rng.nextInt(AsteroidSize.values().length)];
+				objects.add(new Asteroid(x, y, 0, 0, size.getRadius(), 0));
+			} else {
+				objects.add(new Bullet(x, y, 0, 0, 0, 0, 1));
+			}
+		}
+		return objects;
+	}
+}
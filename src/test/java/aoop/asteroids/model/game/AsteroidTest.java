@@ -2,15 +2,18 @@ package aoop.asteroids.model.game;
 
 import aoop.asteroids.model.game.Asteroid;
 import aoop.asteroids.model.game.AsteroidSize;
+import aoop.asteroids.util.ObjectPool;
 import aoop.asteroids.view.AsteroidsFrame;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Tests the unique methods that asteroids have, separate from those it inherits from GameObject.
@@ -39,7 +42,7 @@ class AsteroidTest {
 	@RepeatedTest(100)
 	void testGetSuccessors() {
 		Asteroid asteroid = this.generateRandomAsteroid();
-		Collection<Asteroid> successors = asteroid.getSuccessors();
+		Collection<Asteroid> successors = asteroid.getSuccessors(new SplittableRandom());
 		for (Asteroid successor : successors) {
 			assertEquals(asteroid.getLocation(), successor.getLocation());
 			assertEquals(asteroid.getVelocity().getX(), successor.getVelocity().getX(), Asteroid.SUCCESSOR_VELOCITY_DIFFERENCE);
@@ -47,6 +50,45 @@ class AsteroidTest {
 		}
 	}
 
+	/**
+	 * Ensures that successors taken from a pool are reinitialised properly, just like newly created successors.
+	 */
+	@RepeatedTest(100)
+	void testAddSuccessors() {
+		ObjectPool<Asteroid> pool = new ObjectPool<>(() -> this.generateRandomAsteroid(), 10);
+		Asteroid asteroid = this.generateRandomAsteroid();
+		Asteroid recycled = this.generateRandomAsteroid();
+		recycled.destroy();
+		pool.release(recycled);
+		Collection<Asteroid> successors = new ArrayList<>();
+		asteroid.addSuccessors(successors, pool, new SplittableRandom());
+		AsteroidSize successorSize = asteroid.getSize().getSuccessorSize();
+		assertEquals(successorSize == null ? 0 : 2, successors.size());
+		for (Asteroid successor : successors) {
+			assertFalse(successor.isDestroyed());
+			assertEquals(successorSize.getRadius(), successor.getRadius());
+			assertEquals(asteroid.getLocation(), successor.getLocation());
+			assertNotSame(asteroid.getLocation(), successor.getLocation());
+			assertEquals(asteroid.getVelocity().getX(), successor.getVelocity().getX(), Asteroid.SUCCESSOR_VELOCITY_DIFFERENCE);
+			assertEquals(asteroid.getVelocity().getY(), successor.getVelocity().getY(), Asteroid.SUCCESSOR_VELOCITY_DIFFERENCE);
+		}
+	}
+
+	/**
+	 * Successors generated from generators with the same seed should be exactly the same, so that games can be
+	 * reproduced.
+	 */
+	@Test
+	void testSuccessorsAreReproducible() {
+		Asteroid asteroid = new Asteroid(new Point.Double(400.0, 400.0), new Point.Double(3.0, -2.0), AsteroidSize.LARGE);
+		Asteroid[] first = asteroid.getSuccessors(new SplittableRandom(42)).toArray(new Asteroid[0]);
+		Asteroid[] second = asteroid.getSuccessors(new SplittableRandom(42)).toArray(new Asteroid[0]);
+		assertEquals(2, first.length);
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(first[i].getVelocity(), second[i].getVelocity());
+		}
+	}
+
 	/**
 	 * @return A randomly generated asteroid, of a random size, in a random location, with a random velocity.
 	 */
@@ -3,6 +3,7 @@ package aoop.asteroids.model.game;
 import aoop.asteroids.model.game.Bullet;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -25,4 +26,23 @@ class BulletTest {
 		}
 		assertTrue(bullet.isDestroyed());
 	}
+
+	/**
+	 * Test that a destroyed bullet which is reinitialised for reuse behaves like a newly created bullet again.
+	 */
+	@Test
+	void testReinitialise() {
+		Bullet bullet = new Bullet(400.0, 400.0, 30.0, -30.0);
+		while (!bullet.isDestroyed()) {
+			bullet.nextStep();
+		}
+		bullet.reinitialise(100.0, 200.0, -5.0, 5.0);
+		assertFalse(bullet.isDestroyed());
+		assertEquals(100.0, bullet.getLocation().getX());
+		assertEquals(200.0, bullet.getLocation().getY());
+		assertEquals(-5.0, bullet.getVelocity().getX());
+		assertEquals(5.0, bullet.getVelocity().getY());
+		assertEquals(Bullet.DEFAULT_BULLET_STEP_LIFETIME, bullet.getStepsLeft());
+		assertEquals(3, bullet.getStepsUntilCollisionPossible());
+	}
 }
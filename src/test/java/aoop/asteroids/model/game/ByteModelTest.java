@@ -0,0 +1,340 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sending snapshots as differences with an older snapshot. A client that applies the difference to the older
+ * snapshot it has should end up with exactly the snapshot of the server, while the difference leaves out everything
+ * that did not change.
+ */
+class ByteModelTest {
+	/**
+	 * Without a baseline, a delta contains the whole snapshot.
+	 */
+	@Test
+	void testDeltaWithoutBaseline() {
+		Game server = createGame();
+		WorldSnapshot sent = takeSnapshot(server, 5);
+		Game client = new Game();
+		SnapshotHistory history = new SnapshotHistory();
+		assertTrue(send(null, sent).loadDelta(client, history));
+		assertEquals(5, client.getLastReceivedTick());
+		assertEquals(5, history.getNewestTick());
+		assertSameSnapshot(sent, client);
+		sent.release();
+	}
+
+	/**
+	 * A delta against an older snapshot should remove objects that are gone, add new ones and update changed ones, and
+	 * should be much smaller than the whole snapshot when little changed.
+	 */
+	@Test
+	void testDeltaAgainstBaseline() {
+		Game server = createGame();
+		for (int i = 0; i < 20; i++) {
+			server.getAsteroids().add(new Asteroid(new Point.Double(20.0 * i, 10.0), new Point.Double(0.0, 0.0),
+					AsteroidSize.MEDIUM));
+		}
+		SnapshotHistory serverHistory = new SnapshotHistory();
+		WorldSnapshot first = takeSnapshot(server, 1);
+		serverHistory.record(first);
+		first.release();
+
+		Game client = new Game();
+		SnapshotHistory clientHistory = new SnapshotHistory();
+		assertTrue(send(null, serverHistory.get(1)).loadDelta(client, clientHistory));
+
+		// One asteroid is destroyed, the bullet moves and a new bullet is fired, the resting asteroids stay put.
+		Asteroid destroyed = server.getAsteroids().iterator().next();
+		server.getAsteroids().remove(destroyed);
+		Bullet bullet = server.getBullets().iterator().next();
+		bullet.nextStep();
+		server.getBullets().add(new Bullet(10.0, 20.0, 3.0, 4.0));
+		WorldSnapshot second = takeSnapshot(server, 2);
+		ByteModel delta = send(serverHistory.get(clientHistory.getNewestTick()), second);
+		ByteModel full = send(null, second);
+		assertTrue(delta.getLength() * 5 < full.getLength(), "Unchanged objects should be left out.");
+
+		assertTrue(delta.loadDelta(client, clientHistory));
+		assertSameSnapshot(second, client);
+		assertEquals(-1, latest(client).asteroids.indexOf(destroyed.getEntityId(), 0));
+		second.release();
+	}
+
+	/**
+	 * A delta against a snapshot that the client does not have cannot be applied, and should be ignored.
+	 */
+	@Test
+	void testMissingBaseline() {
+		Game server = createGame();
+		WorldSnapshot baseline = takeSnapshot(server, 1);
+		WorldSnapshot sent = takeSnapshot(server, 2);
+		Game client = new Game();
+		assertFalse(send(baseline, sent).loadDelta(client, new SnapshotHistory()));
+		assertNull(client.getSnapshots().acquire());
+		assertEquals(0, client.getLastReceivedTick());
+		baseline.release();
+		sent.release();
+	}
+
+	/**
+	 * In the compact format, every field should arrive within the precision of its fixed point representation, in a
+	 * world of any size, and asteroids should keep their exact radius, since it follows from their size.
+	 */
+	@Test
+	void testCompactFormat() {
+		Game server = new Game(new WorldConfig(1600.0, 1200.0));
+		server.addSpaceShip();
+		server.getSpaceships().get(1).setTurnLeftKeyPressed(true);
+		for (int i = 0; i < 7; i++) server.getSpaceships().get(1).nextStep(server.getWorld());
+		server.getAsteroids().add(new Asteroid(new Point.Double(1599.99, 1100.5), new Point.Double(-3.3, 12.7),
+				AsteroidSize.LARGE));
+		server.getBullets().add(new Bullet(10.0, 20.0, 31.1, -35.2));
+		WorldSnapshot sent = takeSnapshot(server, 3);
+		Game client = new Game();
+		assertTrue(send(WireFormat.V2, null, sent).loadDelta(client, new SnapshotHistory()));
+		WorldSnapshot received = latest(client);
+		assertEquals(1600.0, received.getWorldWidth());
+		assertEquals(1200.0, received.getWorldHeight());
+		assertCloseTable(sent.ships, received.ships, 1600.0, 1200.0);
+		assertCloseTable(sent.asteroids, received.asteroids, 1600.0, 1200.0);
+		assertCloseTable(sent.bullets, received.bullets, 1600.0, 1200.0);
+		for (int i = 0; i < sent.ships.count; i++) {
+			assertEquals(0.0, wrappedDistance(sent.ships.direction[i], received.ships.direction[i], 2 * Math.PI), 1e-4);
+		}
+		assertEquals(AsteroidSize.LARGE.getRadius(), received.asteroids.radius[0]);
+		assertEquals(sent.bullets.stepsLeft[0], received.bullets.stepsLeft[0]);
+		sent.release();
+	}
+
+	/**
+	 * In the compact format, a new asteroid should take 10 bytes for its fields, and an asteroid that only moved should
+	 * take 4 bytes for its position, besides its id and flags.
+	 */
+	@Test
+	void testCompactAsteroids() {
+		Game server = new Game();
+		for (int i = 0; i < 50; i++) {
+			server.getAsteroids().add(new Asteroid(new Point.Double(10.0 * i, 20.0), new Point.Double(1.5, -0.5),
+					AsteroidSize.MEDIUM));
+		}
+		WorldSnapshot first = takeSnapshot(server, 1);
+		ByteModel withAsteroids = send(WireFormat.V2, null, first);
+		server.getAsteroids().clear();
+		WorldSnapshot none = takeSnapshot(server, 1);
+		int overhead = send(WireFormat.V2, null, none).getLength();
+		assertEquals(50 * (4 + 1 + 10), withAsteroids.getLength() - overhead);
+
+		SnapshotHistory history = new SnapshotHistory();
+		history.record(first);
+		for (int i = 0; i < 50; i++) {
+			history.get(1).asteroids.x[i] -= 1.5;
+			history.get(1).asteroids.y[i] += 0.5;
+		}
+		ByteModel moved = send(WireFormat.V2, history.get(1), first);
+		// The spaceship did not move, so it is left out, as it is when nothing changed at all.
+		overhead = send(WireFormat.V2, none, none).getLength();
+		assertEquals(50 * (4 + 1 + 4), moved.getLength() - overhead);
+		first.release();
+		none.release();
+	}
+
+	/**
+	 * Version 3 of the format should carry the latest input that each spaceship moved with, also when that is all that
+	 * changed, while version 2 leaves it out.
+	 */
+	@Test
+	void testInputSequence() {
+		Game server = new Game();
+		Spaceship ship = server.getSpaceship();
+		ship.setInputSequence(41);
+		ship.nextStep(server.getWorld());
+		WorldSnapshot first = takeSnapshot(server, 1);
+		Game client = new Game();
+		SnapshotHistory history = new SnapshotHistory();
+		assertTrue(send(WireFormat.V3, null, first).loadDelta(client, history));
+		WorldSnapshot received = latest(client);
+		assertEquals(41, received.getShipInputSequence(received.indexOfShip(ship.getID())));
+
+		ship.setInputSequence(42);
+		ship.nextStep(server.getWorld());
+		WorldSnapshot second = takeSnapshot(server, 2);
+		assertTrue(send(WireFormat.V3, first, second).loadDelta(client, history));
+		received = latest(client);
+		assertEquals(42, received.getShipInputSequence(received.indexOfShip(ship.getID())));
+
+		Game older = new Game();
+		assertTrue(send(WireFormat.V2, null, second).loadDelta(older, new SnapshotHistory()));
+		received = latest(older);
+		assertEquals(0, received.getShipInputSequence(received.indexOfShip(ship.getID())));
+		first.release();
+		second.release();
+	}
+
+	/**
+	 * Reading a delta of 500 objects into the snapshots of a client should update them in place, by id, without
+	 * allocating anything once the snapshots are large enough. Where the virtual machine cannot count the bytes that
+	 * a thread allocates, only the result of the delta is checked.
+	 */
+	@Test
+	void testDecodeWithoutAllocating() {
+		Game server = new Game();
+		for (int i = 0; i < 500; i++) {
+			server.getAsteroids().add(new Asteroid(new Point.Double(1.5 * i, 20.0), new Point.Double(1.0, -1.0),
+					AsteroidSize.values()[i % 3]));
+		}
+		WorldSnapshot first = takeSnapshot(server, 1);
+		for (Asteroid asteroid: server.getAsteroids()) asteroid.nextStep(server.getWorld());
+		WorldSnapshot second = takeSnapshot(server, 2);
+		ByteModel sent = send(WireFormat.V2, first, second);
+		ByteModel received = new ByteModel();
+		Game client = new Game();
+		SnapshotHistory history = new SnapshotHistory();
+		history.record(first);
+		for (int i = 0; i < 200; i++) {
+			received.reset(sent.getByteArray(), sent.getLength());
+			assertTrue(received.loadDelta(client, history));
+		}
+		assertCloseTable(second.asteroids, latest(client).asteroids, 800.0, 800.0);
+		first.release();
+		second.release();
+
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) return;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) return;
+		long thread = Thread.currentThread().getId();
+		long before = allocations.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < 100; i++) {
+			received.reset(sent.getByteArray(), sent.getLength());
+			received.loadDelta(client, history);
+		}
+		long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+		// Allocating anything per object would take at least 500 * 100 * 16 bytes.
+		assertTrue(allocated < 16 * 1024, "Decoding allocated " + allocated + " bytes");
+	}
+
+	/**
+	 * Checks that the fields of two tables are equal within the precision of the compact format.
+	 * @param sent The table sent.
+	 * @param received The table received.
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 */
+	private void assertCloseTable(WorldSnapshot.Table sent, WorldSnapshot.Table received, double width, double height) {
+		assertEquals(sent.count, received.count);
+		for (int i = 0; i < sent.count; i++) {
+			assertEquals(sent.id[i], received.id[i]);
+			assertEquals(0.0, wrappedDistance(sent.x[i], received.x[i], width), width / 65536.0);
+			assertEquals(0.0, wrappedDistance(sent.y[i], received.y[i], height), height / 65536.0);
+			assertEquals(sent.velocityX[i], received.velocityX[i], 1.0 / 512.0);
+			assertEquals(sent.velocityY[i], received.velocityY[i], 1.0 / 512.0);
+			assertEquals(sent.radius[i], received.radius[i], 0.5);
+			assertEquals(sent.steps[i], received.steps[i]);
+		}
+	}
+
+	/**
+	 * @param a A coordinate.
+	 * @param b Another coordinate.
+	 * @param size The size of the world along the axis of the coordinates.
+	 * @return The distance between the coordinates, going around the edge of the world if that is shorter.
+	 */
+	private double wrappedDistance(double a, double b, double size) {
+		double distance = Math.abs(a - b) % size;
+		return Math.min(distance, size - distance);
+	}
+
+	/**
+	 * @param game The game.
+	 * @param tick The tick at which the snapshot is taken.
+	 * @return A snapshot of the game, which must be released.
+	 */
+	private WorldSnapshot takeSnapshot(Game game, int tick) {
+		game.setLastLocalTick(tick);
+		game.getSnapshots().publish(game);
+		return game.getSnapshots().acquire();
+	}
+
+	/**
+	 * @param baseline The snapshot that the client has, or null.
+	 * @param snapshot The snapshot to send.
+	 * @return The bytes that the client receives, ready to be read.
+	 */
+	private ByteModel send(WorldSnapshot baseline, WorldSnapshot snapshot) {
+		return send(WireFormat.V1, baseline, snapshot);
+	}
+
+	/**
+	 * @param format The format to send in.
+	 * @param baseline The snapshot that the client has, or null.
+	 * @param snapshot The snapshot to send.
+	 * @return The bytes that the client receives, ready to be read.
+	 */
+	private ByteModel send(WireFormat format, WorldSnapshot baseline, WorldSnapshot snapshot) {
+		ByteModel bytes = new ByteModel();
+		bytes.addDelta(format, baseline, snapshot);
+		return bytes;
+	}
+
+	/**
+	 * @param game The game.
+	 * @return The latest snapshot of the game. It is released right away, which is fine in a single thread.
+	 */
+	private WorldSnapshot latest(Game game) {
+		WorldSnapshot snapshot = game.getSnapshots().acquire();
+		snapshot.release();
+		return snapshot;
+	}
+
+	/**
+	 * Checks that the latest snapshot of the client has the same objects, with the same fields, as the one sent.
+	 * @param sent The snapshot sent by the server.
+	 * @param client The game of the client.
+	 */
+	private void assertSameSnapshot(WorldSnapshot sent, Game client) {
+		WorldSnapshot received = latest(client);
+		assertEquals(sent.getTick(), received.getTick());
+		assertSameTable(sent.ships, received.ships);
+		assertSameTable(sent.asteroids, received.asteroids);
+		assertSameTable(sent.bullets, received.bullets);
+		for (int i = 0; i < sent.ships.count; i++) assertEquals(sent.ships.direction[i], received.ships.direction[i]);
+		for (int i = 0; i < sent.bullets.count; i++) {
+			assertEquals(sent.bullets.stepsLeft[i], received.bullets.stepsLeft[i]);
+		}
+	}
+
+	/**
+	 * @param sent The table sent.
+	 * @param received The table received.
+	 */
+	private void assertSameTable(WorldSnapshot.Table sent, WorldSnapshot.Table received) {
+		assertEquals(sent.count, received.count);
+		for (int i = 0; i < sent.count; i++) {
+			assertEquals(sent.id[i], received.id[i]);
+			assertEquals(sent.x[i], received.x[i]);
+			assertEquals(sent.y[i], received.y[i]);
+			assertEquals(sent.velocityX[i], received.velocityX[i]);
+			assertEquals(sent.velocityY[i], received.velocityY[i]);
+			assertEquals(sent.radius[i], received.radius[i]);
+			assertEquals(sent.steps[i], received.steps[i]);
+		}
+	}
+
+	/**
+	 * @return A game with two spaceships, an asteroid and a bullet.
+	 */
+	private Game createGame() {
+		Game game = new Game();
+		game.addSpaceShip();
+		game.getAsteroids().add(new Asteroid(new Point.Double(100.0, 200.0), new Point.Double(1.0, -2.0),
+				AsteroidSize.LARGE));
+		game.getBullets().add(new Bullet(400.0, 400.0, 25.0, -25.0));
+		return game;
+	}
+}
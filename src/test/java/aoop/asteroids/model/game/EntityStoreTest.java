@@ -0,0 +1,181 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the entity store. Objects in a store should behave exactly the same as objects that hold their own state, so
+ * most tests here run the same steps on stored objects and on identical objects that are not stored, and compare them.
+ */
+class EntityStoreTest {
+	/**
+	 * Moves stored asteroids and free asteroids for many steps, and checks that they stay in the same place.
+	 */
+	@Test
+	void testStepAll() {
+		EntityStore<Asteroid> store = new EntityStore<>(false);
+		List<Asteroid> free = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Asteroid asteroid = generateRandomAsteroid();
+			free.add(copyOf(asteroid));
+			store.add(asteroid);
+		}
+		for (int step = 0; step < 1000; step++) {
+			store.stepAll();
+			free.forEach(GameObject::nextStep);
+		}
+		for (int i = 0; i < free.size(); i++) {
+			assertEquals(free.get(i).getLocation(), store.get(i).getLocation());
+			assertEquals(free.get(i).getVelocity(), store.get(i).getVelocity());
+			assertEquals(free.get(i).getStepsUntilCollisionPossible(), store.get(i).getStepsUntilCollisionPossible());
+		}
+	}
+
+	/**
+	 * Bullets in a store should be destroyed after the same number of steps as bullets that are not in a store.
+	 */
+	@Test
+	void testBulletLifetime() {
+		EntityStore<Bullet> store = new EntityStore<>(true);
+		Bullet stored = new Bullet(400.0, 400.0, 30.0, -30.0);
+		store.add(stored);
+		for (int i = 0; i < Bullet.DEFAULT_BULLET_STEP_LIFETIME; i++) {
+			assertFalse(stored.isDestroyed());
+			assertEquals(Bullet.DEFAULT_BULLET_STEP_LIFETIME - i, stored.getStepsLeft());
+			store.stepAll();
+		}
+		assertTrue(stored.isDestroyed());
+	}
+
+	/**
+	 * Removing objects should keep the order of the remaining objects, and removed objects should keep their state.
+	 */
+	@Test
+	void testRemoveIf() {
+		EntityStore<Asteroid> store = new EntityStore<>(false);
+		List<Asteroid> asteroids = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Asteroid asteroid = generateRandomAsteroid();
+			asteroids.add(asteroid);
+			store.add(asteroid);
+		}
+		store.stepAll();
+		List<Point.Double> locations = new ArrayList<>();
+		asteroids.forEach(asteroid -> locations.add((Point.Double) asteroid.getLocation().clone()));
+		for (int i = 0; i < asteroids.size(); i += 3) {
+			asteroids.get(i).destroy();
+		}
+
+		store.removeIf(GameObject::isDestroyed);
+		assertEquals(13, store.size());
+		Iterator<Asteroid> iterator = store.iterator();
+		for (int i = 0; i < asteroids.size(); i++) {
+			Asteroid asteroid = asteroids.get(i);
+			assertEquals(locations.get(i), asteroid.getLocation());
+			assertEquals(i % 3 != 0, asteroid.isStored());
+			if (i % 3 != 0) assertSame(asteroid, iterator.next());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Removing objects through an iterator should not skip any objects.
+	 */
+	@Test
+	void testIteratorRemove() {
+		EntityStore<Asteroid> store = new EntityStore<>(false);
+		for (int i = 0; i < 10; i++) {
+			store.add(generateRandomAsteroid());
+		}
+		int visited = 0;
+		Iterator<Asteroid> iterator = store.iterator();
+		while (iterator.hasNext()) {
+			Asteroid asteroid = iterator.next();
+			visited++;
+			if (visited % 2 == 0) {
+				iterator.remove();
+				assertFalse(asteroid.isStored());
+			}
+		}
+		assertEquals(10, visited);
+		assertEquals(5, store.size());
+	}
+
+	/**
+	 * A game that keeps its objects in entity stores should be turned into exactly the same bytes as a game that
+	 * keeps them in lists.
+	 */
+	@Test
+	void testSerialization() {
+		Game listGame = new Game();
+		Game storeGame = new Game();
+		storeGame.setEntityStoreEnabled(true);
+		storeGame.resetLists();
+		storeGame.getSpaceships().add(listGame.getSpaceship());
+		for (int i = 0; i < 10; i++) {
+			Asteroid asteroid = generateRandomAsteroid();
+			listGame.getAsteroids().add(asteroid);
+			storeGame.getAsteroids().add(copyOf(asteroid));
+			Bullet bullet = new Bullet(i, i, i, i, 30 + i);
+			listGame.getBullets().add(bullet);
+			storeGame.getBullets().add(new Bullet(i, i, i, i, 30 + i));
+		}
+		ByteModel listBytes = new ByteModel();
+		listBytes.add(listGame);
+		ByteModel storeBytes = new ByteModel();
+		storeBytes.add(storeGame);
+		assertArrayEquals(listBytes.getByteArray(), storeBytes.getByteArray());
+	}
+
+	/**
+	 * Collision tests should read stored objects straight from the arrays, without writing into the points that
+	 * getLocation() returns, and a velocity that is set should reach the store.
+	 */
+	@Test
+	void testReadsWithoutWriting() {
+		EntityStore<Asteroid> store = new EntityStore<>(false);
+		Asteroid first = new Asteroid(100.0, 100.0, 1.0, 0.0, AsteroidSize.LARGE.getRadius(), 0);
+		Asteroid second = new Asteroid(500.0, 100.0, -1.0, 0.0, AsteroidSize.LARGE.getRadius(), 0);
+		store.add(first);
+		store.add(second);
+		Point.Double location = first.getLocation();
+		store.stepAll();
+		assertFalse(first.collides(second));
+		assertEquals(101.0, first.getLocationX());
+		assertEquals(100.0, location.x, "The point was refreshed by a collision test");
+
+		first.setVelocity(350.0, 0.0);
+		store.stepAll();
+		assertEquals(451.0, store.getLocationX(0));
+		assertTrue(first.collides(second));
+	}
+
+	/**
+	 * @param asteroid to be copied
+	 * @return a new asteroid with the same state as the given one
+	 */
+	private Asteroid copyOf(Asteroid asteroid) {
+		return new Asteroid(asteroid.getLocation().x, asteroid.getLocation().y, asteroid.getVelocity().x,
+				asteroid.getVelocity().y, asteroid.getRadius(), asteroid.getStepsUntilCollisionPossible());
+	}
+
+	/**
+	 * @return An asteroid of a random size, in a random location, with a random velocity.
+	 */
+	private Asteroid generateRandomAsteroid() {
+		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		AsteroidSize size = AsteroidSize.values()[rng.nextInt(AsteroidSize.values().length)];
+		return new Asteroid(
+				new Point.Double(rng.nextDouble(800.0), rng.nextDouble(800.0)),
+				new Point.Double(rng.nextDouble(-25, 25), rng.nextDouble(-25, 25)),
+				size
+		);
+	}
+}
@@ -78,6 +78,27 @@ class GameObjectTest {
 		}
 	}
 
+	/**
+	 * Tests that objects wrap around the borders of the world they are stepped in, instead of the default world, so
+	 * that games of different sizes can exist next to each other. Objects in an entity store should do the same.
+	 */
+	@Test
+	void testNextStepInOtherWorld() {
+		WorldConfig world = new WorldConfig(300.0, 200.0);
+		Asteroid free = new Asteroid(290.0, 5.0, 20.0, -10.0, AsteroidSize.SMALL.getRadius(), 0);
+		Asteroid stored = new Asteroid(290.0, 5.0, 20.0, -10.0, AsteroidSize.SMALL.getRadius(), 0);
+		EntityStore<Asteroid> store = new EntityStore<>(false);
+		store.add(stored);
+		free.nextStep(world);
+		store.stepAll(world);
+		assertEquals(10.0, free.getLocation().getX(), 0.000001);
+		assertEquals(195.0, free.getLocation().getY(), 0.000001);
+		assertEquals(free.getLocation(), stored.getLocation());
+		// The ship of a game starts in the middle of the game's world.
+		Game game = new Game(world);
+		assertEquals(new Point.Double(150.0, 100.0), game.getSpaceship().getLocation());
+	}
+
 	/**
 	 * Tests the default implementation for checking collisions of game objects. Checks first that any object whose
 	 * invulnerability has not worn out cannot collide, and then goes through very many steps, moving the objects across
@@ -71,6 +71,46 @@ class GameTest {
 		assertTrue(game.isGameOver());
 	}
 
+	/**
+	 * Tests a game on a dedicated server. It has no local player, so the ships of joining players should never be
+	 * mistaken for it, and the game is never over because one of them was destroyed.
+	 */
+	@Test
+	void testDedicated() {
+		Game game = new Game(WorldConfig.DEFAULT, true);
+		assertNull(game.getSpaceship());
+		assertTrue(game.getSpaceships().isEmpty());
+		int first = game.addSpaceShip();
+		int second = game.addSpaceShip();
+		assertNotEquals(first, second);
+		assertNull(game.getSpaceship());
+		game.getSpaceships().get(0).destroy();
+		assertFalse(game.isGameOver());
+		game.initializeGameData();
+		assertTrue(game.getSpaceships().isEmpty());
+	}
+
+	/**
+	 * Spaceships that join should not take any draws from the generator of the game, so that a game with a fixed seed
+	 * plays out the same however many players join and whenever they do, and the same joins with the same seed should
+	 * get the same locations.
+	 */
+	@Test
+	void testJoinsKeepSeed() {
+		Game quiet = new Game(WorldConfig.DEFAULT, true);
+		Game joined = new Game(WorldConfig.DEFAULT, true);
+		Game again = new Game(WorldConfig.DEFAULT, true);
+		for (Game game: new Game[] {quiet, joined, again}) game.setSeed(42L);
+		for (int i = 0; i < 5; i++) {
+			joined.addSpaceShip();
+			again.addSpaceShip();
+		}
+		for (int i = 0; i < 10; i++) assertEquals(quiet.getRandom().nextLong(), joined.getRandom().nextLong());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(joined.getSpaceships().get(i).getLocation(), again.getSpaceships().get(i).getLocation());
+		}
+	}
+
 	/**
 	 * Tests starting a game. This involves setting a simple boolean running flag, as well as starting up the game
 	 * updater thread. Since it is quite important that starting the thread works properly, we will use reflection to
@@ -0,0 +1,95 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests keeping the inputs of a client on the server. Every input should be taken exactly once and in order, also when
+ * packets get lost, as long as a later packet carried it along.
+ */
+class InputBufferTest {
+	/**
+	 * The number of latest inputs in every packet in the tests.
+	 */
+	private static final int SENT_INPUTS = 8;
+
+	/**
+	 * With every tenth packet lost, every input should still be taken exactly once, one per tick and in order, and no
+	 * later than a tick after it was sent.
+	 */
+	@Test
+	void testLostPackets() {
+		InputBuffer buffer = new InputBuffer();
+		int expected = 1;
+		for (int sequence = 1; sequence <= 200; sequence++) {
+			if (sequence % 10 != 3) send(buffer, sequence);
+			long input = buffer.poll();
+			if (input == InputBuffer.NONE) continue;
+			assertEquals(expected, (int) (input >>> 32));
+			assertEquals(inputOf(expected), (int) input);
+			expected++;
+		}
+		// the first lost packet left the server an input behind, which covers every lost packet after it
+		assertEquals(200, expected);
+		assertEquals(1, buffer.getWaiting());
+		assertEquals(200, (int) (buffer.poll() >>> 32));
+		assertEquals(InputBuffer.NONE, buffer.poll());
+	}
+
+	/**
+	 * Without new inputs, nothing should be taken, and an input that was sent twice should be taken once.
+	 */
+	@Test
+	void testNothingNew() {
+		InputBuffer buffer = new InputBuffer();
+		assertEquals(InputBuffer.NONE, buffer.poll());
+		send(buffer, 5);
+		assertEquals(5, (int) (buffer.poll() >>> 32));
+		assertEquals(InputBuffer.NONE, buffer.poll());
+		send(buffer, 5);
+		assertEquals(InputBuffer.NONE, buffer.poll());
+		send(buffer, 6);
+		assertEquals(6, (int) (buffer.poll() >>> 32));
+	}
+
+	/**
+	 * An input that none of the arrived packets carried should be skipped, and inputs that pile up should be dropped
+	 * from the oldest on.
+	 */
+	@Test
+	void testSkipped() {
+		InputBuffer buffer = new InputBuffer();
+		send(buffer, 1);
+		assertEquals(1, (int) (buffer.poll() >>> 32));
+		buffer.offer(20, inputOf(20));
+		buffer.offer(21, inputOf(21));
+		assertEquals(20, (int) (buffer.poll() >>> 32));
+		assertEquals(21, (int) (buffer.poll() >>> 32));
+
+		for (int sequence = 22; sequence <= 40; sequence++) send(buffer, sequence);
+		assertTrue(buffer.getWaiting() > 6);
+		long input = buffer.poll();
+		assertTrue((int) (input >>> 32) > 22);
+		assertTrue(buffer.getWaiting() < 6);
+	}
+
+	/**
+	 * Sends a packet with an input and the inputs before it, as a client does, newest first.
+	 * @param buffer The buffer on the server.
+	 * @param sequence The sequence number of the latest input.
+	 */
+	private void send(InputBuffer buffer, int sequence) {
+		for (int i = 0; i < SENT_INPUTS && sequence - i > 0; i++) {
+			buffer.offer(sequence - i, inputOf(sequence - i));
+		}
+	}
+
+	/**
+	 * @param sequence The sequence number of an input.
+	 * @return An input that differs from sequence number to sequence number.
+	 */
+	private int inputOf(int sequence) {
+		return (sequence % 2) << 24 | (sequence % 3 == 0 ? 1 : 0) << 16 | (sequence % 5 == 0 ? 1 : 0);
+	}
+}
@@ -0,0 +1,176 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests selecting the objects near a client of a large world. Exactly the objects that overlap the area of the client
+ * should be selected, measured across the edges of the world, and objects that cross the edge of the area should reach
+ * the client as new and removed objects.
+ */
+class InterestGridTest {
+	/**
+	 * The size of the world in the tests, which is much larger than an area.
+	 */
+	private static final double WORLD_SIZE = 4000.0;
+
+	/**
+	 * The radius of the area around a spaceship in the tests.
+	 */
+	private static final double RADIUS = 300.0;
+
+	/**
+	 * Objects within the radius of the spaceship, or sticking into it, should be selected in the order they have in the
+	 * game, and no others.
+	 */
+	@Test
+	void testAroundShip() {
+		Game game = createGame();
+		Spaceship ship = game.getSpaceship();
+		ship.getLocation().setLocation(1000.0, 1000.0);
+		Asteroid near = addAsteroid(game, 1200.0, 1000.0);
+		addAsteroid(game, 1000.0, 2000.0);
+		Asteroid touching = addAsteroid(game, 1000.0, 1000.0 - RADIUS - 5.0);
+		addAsteroid(game, 1000.0 + RADIUS, 1000.0 + RADIUS);
+		Asteroid inside = addAsteroid(game, 900.0, 1100.0);
+
+		WorldSnapshot selection = select(game, new AreaOfInterest(ship.getID(), RADIUS));
+		assertEquals(1, selection.getShipCount());
+		assertEquals(ship.getID(), selection.getShipId(0));
+		assertEquals(3, selection.getAsteroidCount());
+		assertEquals(near.getEntityId(), selection.getAsteroidId(0));
+		assertEquals(touching.getEntityId(), selection.getAsteroidId(1));
+		assertEquals(inside.getEntityId(), selection.getAsteroidId(2));
+		assertEquals(900.0, selection.getAsteroidX(2));
+		assertEquals(1100.0, selection.getAsteroidY(2));
+	}
+
+	/**
+	 * An area near a corner of the world should reach across the edges into the other corners, as objects do.
+	 */
+	@Test
+	void testAcrossEdges() {
+		Game game = createGame();
+		Spaceship ship = game.getSpaceship();
+		ship.getLocation().setLocation(20.0, 20.0);
+		Asteroid corner = addAsteroid(game, WORLD_SIZE - 50.0, WORLD_SIZE - 50.0);
+		addAsteroid(game, WORLD_SIZE / 2, WORLD_SIZE / 2);
+		Asteroid below = addAsteroid(game, 20.0, WORLD_SIZE - 100.0);
+
+		WorldSnapshot selection = select(game, new AreaOfInterest(ship.getID(), RADIUS));
+		assertEquals(2, selection.getAsteroidCount());
+		assertEquals(corner.getEntityId(), selection.getAsteroidId(0));
+		assertEquals(below.getEntityId(), selection.getAsteroidId(1));
+	}
+
+	/**
+	 * A spectator should get the objects in the part of the world it chose, and a part as large as the world should
+	 * hold every object exactly once.
+	 */
+	@Test
+	void testViewport() {
+		Game game = createGame();
+		game.getSpaceship().getLocation().setLocation(3000.0, 3000.0);
+		Asteroid inside = addAsteroid(game, 700.0, 100.0);
+		addAsteroid(game, 900.0, 100.0);
+		addAsteroid(game, 100.0, 700.0);
+
+		WorldSnapshot selection = select(game, new AreaOfInterest(0.0, 0.0, 800.0, 600.0));
+		assertEquals(0, selection.getShipCount());
+		assertEquals(1, selection.getAsteroidCount());
+		assertEquals(inside.getEntityId(), selection.getAsteroidId(0));
+
+		selection = select(game, new AreaOfInterest(0.0, 0.0, WORLD_SIZE, WORLD_SIZE));
+		assertEquals(1, selection.getShipCount());
+		assertEquals(3, selection.getAsteroidCount());
+	}
+
+	/**
+	 * An asteroid that leaves the area should be removed by the client, and one that comes into it should be added,
+	 * when the client applies the difference with the previous selection.
+	 */
+	@Test
+	void testEnterAndLeave() {
+		Game game = createGame();
+		Spaceship ship = game.getSpaceship();
+		ship.getLocation().setLocation(1000.0, 1000.0);
+		Asteroid leaving = addAsteroid(game, 1100.0, 1000.0);
+		Asteroid entering = addAsteroid(game, 2000.0, 1000.0);
+		AreaOfInterest area = new AreaOfInterest(ship.getID(), RADIUS);
+		SnapshotHistory sent = new SnapshotHistory();
+		Game client = new Game();
+		SnapshotHistory received = new SnapshotHistory();
+
+		game.setLastLocalTick(1);
+		sent.record(select(game, area));
+		assertTrue(send(WireFormat.LATEST, null, sent.get(1), client, received));
+
+		leaving.getLocation().setLocation(2000.0, 1000.0);
+		entering.getLocation().setLocation(900.0, 1000.0);
+		game.setLastLocalTick(2);
+		sent.record(select(game, area));
+		assertTrue(send(WireFormat.LATEST, sent.get(1), sent.get(2), client, received));
+
+		WorldSnapshot shown = client.getReceivedSnapshots().acquire();
+		assertEquals(2, shown.getTick());
+		assertEquals(1, shown.getAsteroidCount());
+		assertEquals(entering.getEntityId(), shown.getAsteroidId(0));
+		assertEquals(900.0, shown.getAsteroidX(0), 0.1);
+		shown.release();
+	}
+
+	/**
+	 * @return A game in a large world, with only a spaceship in it.
+	 */
+	private Game createGame() {
+		return new Game(new WorldConfig(WORLD_SIZE, WORLD_SIZE));
+	}
+
+	/**
+	 * @param game The game.
+	 * @param x The x coordinate of the asteroid.
+	 * @param y The y coordinate of the asteroid.
+	 * @return A small asteroid that was added to the game at the given place.
+	 */
+	private Asteroid addAsteroid(Game game, double x, double y) {
+		Asteroid asteroid = new Asteroid(new Point.Double(x, y), new Point.Double(0.0, 0.0), AsteroidSize.SMALL);
+		game.getAsteroids().add(asteroid);
+		return asteroid;
+	}
+
+	/**
+	 * @param game The game.
+	 * @param area The area to select.
+	 * @return The objects of the game in the area.
+	 */
+	private WorldSnapshot select(Game game, AreaOfInterest area) {
+		game.getSnapshots().publish(game);
+		WorldSnapshot snapshot = game.getSnapshots().acquire();
+		try {
+			InterestGrid grid = new InterestGrid(RADIUS);
+			grid.build(snapshot);
+			return area.select(grid);
+		} finally {
+			snapshot.release();
+		}
+	}
+
+	/**
+	 * Sends the difference between two selections to a client, as the server does.
+	 * @param format The format of the difference.
+	 * @param baseline The selection the client has, or null.
+	 * @param selection The newest selection.
+	 * @param client The game of the client.
+	 * @param history The snapshots received by the client.
+	 * @return True if the client loaded the difference.
+	 */
+	private boolean send(WireFormat format, WorldSnapshot baseline, WorldSnapshot selection, Game client,
+						 SnapshotHistory history) {
+		ByteModel bytes = new ByteModel();
+		bytes.addDelta(format, baseline, selection);
+		return new ByteModel(bytes.getByteArray(), bytes.getLength()).loadDelta(client, history);
+	}
+}
@@ -0,0 +1,159 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests predicting the spaceship of a client. After putting the spaceship back where the server has it and replaying
+ * the inputs that the server did not take into account yet, the spaceship should be exactly where the server will have
+ * it once it took those inputs into account too.
+ */
+class ShipPredictionTest {
+	/**
+	 * The number of inputs that the client records in the tests.
+	 */
+	private static final int INPUTS = 20;
+
+	/**
+	 * The number of those inputs that the server took into account when it takes its snapshot.
+	 */
+	private static final int ACKNOWLEDGED = 12;
+
+	/**
+	 * The server moves the spaceship somewhere else than the client expects, for instance because it bumped into
+	 * something the client did not know about. The client should end up where the server will be after the remaining
+	 * inputs, with the same energy.
+	 */
+	@Test
+	void testReconcile() {
+		Game server = new Game();
+		Spaceship serverShip = server.getSpaceship();
+		Game client = new Game();
+		Spaceship clientShip = client.getSpaceship();
+		clientShip.setID(serverShip.getID());
+		ShipPrediction prediction = new ShipPrediction();
+
+		for (int sequence = 1; sequence <= INPUTS; sequence++) {
+			press(clientShip, sequence);
+			assertEquals(sequence, prediction.record(clientShip));
+			step(clientShip, client.getWorld());
+		}
+		for (int sequence = 1; sequence <= ACKNOWLEDGED; sequence++) {
+			if (sequence == 5) serverShip.getLocation().setLocation(serverShip.getLocation().x + 30.0, 10.0);
+			press(serverShip, sequence);
+			serverShip.setInputSequence(sequence);
+			step(serverShip, server.getWorld());
+		}
+		WorldSnapshot snapshot = takeSnapshot(server, 1);
+		assertEquals(ACKNOWLEDGED, snapshot.getShipInputSequence(snapshot.indexOfShip(serverShip.getID())));
+		assertNotEquals(serverShip.getLocation(), clientShip.getLocation());
+
+		for (int sequence = ACKNOWLEDGED + 1; sequence <= INPUTS; sequence++) {
+			press(serverShip, sequence);
+			serverShip.setInputSequence(sequence);
+			step(serverShip, server.getWorld());
+		}
+		assertTrue(prediction.reconcile(clientShip, snapshot, client.getWorld()));
+		snapshot.release();
+
+		assertEquals(serverShip.getLocation(), clientShip.getLocation());
+		assertEquals(serverShip.getVelocity(), clientShip.getVelocity());
+		assertEquals(serverShip.getDirection(), clientShip.getDirection());
+		assertEquals(serverShip.getEnergy(), clientShip.getEnergy());
+		assertEquals(serverShip.getWeaponCooldownRemaining(), clientShip.getWeaponCooldownRemaining());
+	}
+
+	/**
+	 * A snapshot that does not tell which input the server took into account, or that acknowledges an input that is
+	 * not kept anymore, should leave the spaceship where the client has it.
+	 */
+	@Test
+	void testNothingToReconcile() {
+		Game server = new Game();
+		Spaceship serverShip = server.getSpaceship();
+		serverShip.getLocation().setLocation(10.0, 10.0);
+		Game client = new Game();
+		Spaceship clientShip = client.getSpaceship();
+		clientShip.setID(serverShip.getID());
+		ShipPrediction prediction = new ShipPrediction(4);
+		Point.Double location = new Point.Double(clientShip.getLocation().x, clientShip.getLocation().y);
+
+		prediction.record(clientShip);
+		WorldSnapshot snapshot = takeSnapshot(server, 1);
+		assertFalse(prediction.reconcile(clientShip, snapshot, client.getWorld()));
+		snapshot.release();
+
+		serverShip.setInputSequence(1);
+		serverShip.nextStep(server.getWorld());
+		for (int i = 0; i < 4; i++) prediction.record(clientShip);
+		snapshot = takeSnapshot(server, 2);
+		assertFalse(prediction.reconcile(clientShip, snapshot, client.getWorld()));
+		snapshot.release();
+		assertEquals(location, clientShip.getLocation());
+	}
+
+	/**
+	 * The predicted spaceship should take the place of the spaceship of the server, but only if the server tells which
+	 * input it took into account.
+	 */
+	@Test
+	void testPlace() {
+		Game server = new Game();
+		Spaceship serverShip = server.getSpaceship();
+		serverShip.getLocation().setLocation(10.0, 20.0);
+		Game client = new Game();
+		Spaceship clientShip = client.getSpaceship();
+		clientShip.setID(serverShip.getID());
+		clientShip.getLocation().setLocation(50.0, 60.0);
+
+		WorldSnapshot snapshot = takeSnapshot(server, 1);
+		client.getPrediction().place(snapshot, clientShip);
+		int i = snapshot.indexOfShip(clientShip.getID());
+		assertEquals(10.0, snapshot.getShipX(i));
+		snapshot.release();
+
+		serverShip.setInputSequence(1);
+		serverShip.nextStep(server.getWorld());
+		snapshot = takeSnapshot(server, 2);
+		client.getPrediction().place(snapshot, clientShip);
+		assertEquals(50.0, snapshot.getShipX(i));
+		assertEquals(60.0, snapshot.getShipY(i));
+		snapshot.release();
+	}
+
+	/**
+	 * Presses the keys of an input that differs from sequence number to sequence number.
+	 * @param ship The spaceship.
+	 * @param sequence The sequence number of the input.
+	 */
+	private void press(Spaceship ship, int sequence) {
+		ship.setTurnLeftKeyPressed(sequence % 5 == 0);
+		ship.setTurnRightKeyPressed(sequence % 3 == 0);
+		ship.setAccelerateKeyPressed(sequence % 4 != 1);
+		ship.setIsFiring(sequence % 2 == 0);
+	}
+
+	/**
+	 * Moves a spaceship one tick, firing as the game updater does, but without a bullet.
+	 * @param ship The spaceship.
+	 * @param world The world of the game.
+	 */
+	private void step(Spaceship ship, WorldConfig world) {
+		ship.nextStep(world);
+		if (ship.canFireWeapon()) ship.setFired();
+	}
+
+	/**
+	 * @param game The game.
+	 * @param tick The tick at which the snapshot is taken.
+	 * @return A snapshot of the game, which must be released.
+	 */
+	private WorldSnapshot takeSnapshot(Game game, int tick) {
+		game.setLastLocalTick(tick);
+		game.getSnapshots().publish(game);
+		return game.getSnapshots().acquire();
+	}
+}
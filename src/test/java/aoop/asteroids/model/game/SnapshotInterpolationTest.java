@@ -0,0 +1,166 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests showing received snapshots a fixed delay behind the server. Objects should move smoothly from one snapshot to
+ * the next, also across the edges of the world, no matter how unevenly the snapshots arrived.
+ */
+class SnapshotInterpolationTest {
+	/**
+	 * The tick rate of the server in the tests, in ticks per second.
+	 */
+	private static final double TICK_RATE = 10.0;
+
+	/**
+	 * The length of a tick at that rate, in nanoseconds.
+	 */
+	private static final long TICK_NANOS = 100_000_000L;
+
+	/**
+	 * The delay at which the snapshots are shown, in nanoseconds.
+	 */
+	private static final long DELAY_NANOS = 150_000_000L;
+
+	/**
+	 * The time at which a snapshot of tick 0 arrives, if nothing delays it.
+	 */
+	private static final long START = 5_000_000_000L;
+
+	/**
+	 * An asteroid should be shown in between where the two snapshots around the moment shown have it, also when the
+	 * first of those arrived late. Before the oldest and after the newest snapshot, those are shown.
+	 */
+	@Test
+	void testBetweenSnapshots() {
+		Game game = new Game();
+		Asteroid asteroid = new Asteroid(new Point.Double(100.0, 200.0), new Point.Double(2.0, 0.0),
+				AsteroidSize.SMALL);
+		game.getAsteroids().add(asteroid);
+		SnapshotInterpolation interpolation = new SnapshotInterpolation(TICK_RATE, DELAY_NANOS);
+		interpolation.offer(takeSnapshot(game, 10, arrival(10) + 20_000_000L));
+		asteroid.getLocation().setLocation(102.0, 200.0);
+		interpolation.offer(takeSnapshot(game, 11, arrival(11)));
+
+		WorldSnapshot shown = new WorldSnapshot();
+		assertTrue(interpolation.interpolate(shown, arrival(10) + TICK_NANOS / 2 + DELAY_NANOS));
+		assertEquals(101.0, shown.getAsteroidX(0), 1e-6);
+		assertEquals(200.0, shown.getAsteroidY(0), 1e-6);
+		assertEquals(11, shown.getTick());
+
+		interpolation.interpolate(shown, arrival(12) + DELAY_NANOS);
+		assertEquals(102.0, shown.getAsteroidX(0));
+		interpolation.interpolate(shown, arrival(9) + DELAY_NANOS);
+		assertEquals(100.0, shown.getAsteroidX(0));
+		assertEquals(10, shown.getTick());
+	}
+
+	/**
+	 * An object that crosses the edge of the world should be shown going the short way across the edge, while an
+	 * object that was put somewhere else should be shown where it was put right away.
+	 */
+	@Test
+	void testEdgesAndJumps() {
+		Game game = new Game();
+		Asteroid asteroid = new Asteroid(new Point.Double(799.0, 300.0), new Point.Double(2.0, 0.0),
+				AsteroidSize.SMALL);
+		game.getAsteroids().add(asteroid);
+		Spaceship ship = game.getSpaceship();
+		SnapshotInterpolation interpolation = new SnapshotInterpolation(TICK_RATE, DELAY_NANOS);
+		interpolation.offer(takeSnapshot(game, 1, arrival(1)));
+		asteroid.getLocation().setLocation(1.0, 300.0);
+		ship.getLocation().setLocation(100.0, 100.0);
+		interpolation.offer(takeSnapshot(game, 2, arrival(2)));
+
+		WorldSnapshot shown = new WorldSnapshot();
+		interpolation.interpolate(shown, arrival(1) + TICK_NANOS / 2 + DELAY_NANOS);
+		assertEquals(0.0, shown.getAsteroidX(0), 1e-6);
+		int i = shown.indexOfShip(ship.getID());
+		assertEquals(100.0, shown.getShipX(i));
+		assertEquals(100.0, shown.getShipY(i));
+	}
+
+	/**
+	 * Only the newest snapshots should be kept, and an older snapshot than the kept ones should start over, as the game
+	 * did.
+	 */
+	@Test
+	void testKeptSnapshots() {
+		Game game = new Game();
+		SnapshotInterpolation interpolation = new SnapshotInterpolation(TICK_RATE, DELAY_NANOS, 4);
+		WorldSnapshot shown = new WorldSnapshot();
+		assertFalse(interpolation.interpolate(shown, arrival(0)));
+		for (int tick = 1; tick <= 10; tick++) interpolation.offer(takeSnapshot(game, tick, arrival(tick)));
+		assertEquals(4, interpolation.getCount());
+		interpolation.interpolate(shown, arrival(0));
+		assertEquals(7, shown.getTick());
+
+		interpolation.offer(takeSnapshot(game, 10, arrival(11)));
+		assertEquals(4, interpolation.getCount());
+		interpolation.offer(takeSnapshot(game, 3, arrival(12)));
+		assertEquals(1, interpolation.getCount());
+		interpolation.interpolate(shown, arrival(12));
+		assertEquals(3, shown.getTick());
+	}
+
+	/**
+	 * A client should show its own game until it received a snapshot, and from then on the received snapshots, with
+	 * its own spaceship where it predicts it.
+	 */
+	@Test
+	void testPublish() {
+		Game server = new Game();
+		Spaceship serverShip = server.getSpaceship();
+		serverShip.setInputSequence(1);
+		serverShip.nextStep(server.getWorld());
+		server.getAsteroids().add(new Asteroid(new Point.Double(20.0, 30.0), new Point.Double(1.0, 0.0),
+				AsteroidSize.LARGE));
+		Game client = new Game();
+		client.setClient(true);
+		Spaceship clientShip = client.getSpaceship();
+		clientShip.setID(serverShip.getID());
+		clientShip.getLocation().setLocation(50.0, 60.0);
+
+		client.getInterpolation().publish(client, System.nanoTime());
+		WorldSnapshot shown = client.getSnapshots().acquire();
+		assertEquals(0, shown.getAsteroidCount());
+		shown.release();
+
+		server.setLastLocalTick(3);
+		client.getReceivedSnapshots().publish(server);
+		client.getInterpolation().publish(client, System.nanoTime());
+		shown = client.getSnapshots().acquire();
+		assertEquals(3, shown.getTick());
+		assertEquals(1, shown.getAsteroidCount());
+		int i = shown.indexOfShip(clientShip.getID());
+		assertEquals(50.0, shown.getShipX(i));
+		assertEquals(60.0, shown.getShipY(i));
+		shown.release();
+	}
+
+	/**
+	 * @param tick A tick of the server.
+	 * @return The time at which the snapshot of the tick arrives, if nothing delays it.
+	 */
+	private long arrival(int tick) {
+		return START + tick * TICK_NANOS;
+	}
+
+	/**
+	 * @param game The game.
+	 * @param tick The tick at which the snapshot is taken.
+	 * @param timestamp The time at which the snapshot arrives.
+	 * @return A snapshot of the game, as it was received.
+	 */
+	private WorldSnapshot takeSnapshot(Game game, int tick, long timestamp) {
+		WorldSnapshot snapshot = new WorldSnapshot();
+		game.setLastLocalTick(tick);
+		snapshot.capture(game);
+		snapshot.setTimestamp(timestamp);
+		return snapshot;
+	}
+}
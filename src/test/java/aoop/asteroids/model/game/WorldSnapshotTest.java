@@ -0,0 +1,130 @@
+package aoop.asteroids.model.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the snapshots of a game and their publisher. A snapshot should contain exactly what the game contained at the
+ * moment it was taken, and should not change while anyone still holds it, even when the game keeps publishing new ones.
+ */
+class WorldSnapshotTest {
+	/**
+	 * Sending a snapshot over the network should produce exactly the same bytes as sending the game it was taken of,
+	 * both when the game keeps its objects in lists and when it keeps them in entity stores.
+	 */
+	@Test
+	void testSameBytesAsGame() {
+		assertSameBytes(createGame(false));
+		assertSameBytes(createGame(true));
+	}
+
+	/**
+	 * A client that loads a game sent by the server should publish a snapshot with the same objects, without touching
+	 * the objects of its own game.
+	 */
+	@Test
+	void testLoadSnapshot() {
+		Game server = createGame(false);
+		server.setLastLocalTick(12);
+		ByteModel sent = new ByteModel();
+		sent.add(server);
+
+		Game client = new Game();
+		new ByteModel(sent.getByteArray()).loadSnapshot(client);
+		assertEquals(12, client.getLastReceivedTick());
+		assertTrue(client.getAsteroids().isEmpty());
+		WorldSnapshot snapshot = client.getSnapshots().acquire();
+		assertNotNull(snapshot);
+		assertEquals(12, snapshot.getTick());
+		assertEquals(server.getSpaceships().size(), snapshot.getShipCount());
+		Spaceship other = server.getSpaceships().get(1);
+		int ship = snapshot.indexOfShip(other.getID());
+		assertEquals(other.getLocation().x, snapshot.getShipX(ship));
+		assertEquals(other.getDirection(), snapshot.getShipDirection(ship));
+		assertEquals(2, snapshot.getAsteroidCount());
+		assertEquals(AsteroidSize.LARGE.getRadius(), snapshot.getAsteroidRadius(1));
+		assertEquals(1, snapshot.getBulletCount());
+		assertEquals(-25.0, snapshot.getBulletVelocityY(0));
+		snapshot.release();
+
+		// An older game that arrives late is ignored.
+		server.setLastLocalTick(11);
+		sent = new ByteModel();
+		sent.add(server);
+		new ByteModel(sent.getByteArray()).loadSnapshot(client);
+		snapshot = client.getSnapshots().acquire();
+		assertEquals(12, snapshot.getTick());
+		snapshot.release();
+	}
+
+	/**
+	 * A snapshot that is held by a reader should stay the same while newer snapshots are published, and should be
+	 * reused once it is released. In a steady state, with one reader at a time, the publisher should not need more
+	 * buffers than it started with.
+	 */
+	@Test
+	void testHeldSnapshotIsNotOverwritten() {
+		Game game = createGame(false);
+		SnapshotPublisher publisher = game.getSnapshots();
+		assertNull(publisher.acquire());
+		game.setLastLocalTick(1);
+		publisher.publish(game);
+		WorldSnapshot held = publisher.acquire();
+		assertEquals(1, held.getTick());
+		assertEquals(2, held.getAsteroidCount());
+
+		for (int tick = 2; tick < 100; tick++) {
+			game.setLastLocalTick(tick);
+			game.getAsteroids().clear();
+			publisher.publish(game);
+			WorldSnapshot latest = publisher.acquire();
+			assertNotSame(held, latest);
+			assertEquals(tick, latest.getTick());
+			assertEquals(0, latest.getAsteroidCount());
+			latest.release();
+		}
+		assertEquals(1, held.getTick());
+		assertEquals(2, held.getAsteroidCount());
+		held.release();
+		assertEquals(3, publisher.getBufferCount());
+		assertThrows(IllegalStateException.class, held::release);
+	}
+
+	/**
+	 * Takes a snapshot of the game, and checks that its bytes are the same as those of the game.
+	 * @param game The game to check.
+	 */
+	private void assertSameBytes(Game game) {
+		ByteModel fromGame = new ByteModel();
+		fromGame.add(game);
+		game.getSnapshots().publish(game);
+		WorldSnapshot snapshot = game.getSnapshots().acquire();
+		ByteModel fromSnapshot = new ByteModel();
+		fromSnapshot.add(snapshot);
+		snapshot.release();
+		assertArrayEquals(fromGame.getByteArray(), fromSnapshot.getByteArray());
+	}
+
+	/**
+	 * @param entityStores True if the game should keep its asteroids and bullets in entity stores.
+	 * @return A game with two spaceships, two asteroids and a bullet.
+	 */
+	private Game createGame(boolean entityStores) {
+		String previous = System.getProperty(Game.ENTITY_STORE_PROPERTY);
+		System.setProperty(Game.ENTITY_STORE_PROPERTY, String.valueOf(entityStores));
+		Game game = new Game();
+		if (previous == null) System.clearProperty(Game.ENTITY_STORE_PROPERTY);
+		else System.setProperty(Game.ENTITY_STORE_PROPERTY, previous);
+		game.setLastLocalTick(7);
+		game.addSpaceShip();
+		game.getAsteroids().add(new Asteroid(new Point.Double(100.0, 200.0), new Point.Double(1.0, -2.0),
+				AsteroidSize.SMALL));
+		game.getAsteroids().add(new Asteroid(new Point.Double(300.0, 400.0), new Point.Double(-3.0, 4.0),
+				AsteroidSize.LARGE));
+		game.getBullets().add(new Bullet(400.0, 400.0, 25.0, -25.0));
+		return game;
+	}
+}
@@ -0,0 +1,111 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.Game;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the connections of a room, which are told apart by the IP and port of their client, and removed once their
+ * client stops responding.
+ */
+class ConnectionTableTest {
+	/**
+	 * Two clients on the same IP should each have a connection of their own, and spectators should not count as
+	 * players.
+	 */
+	@Test
+	void testSameIp() throws Exception {
+		Game game = new Game();
+		ConnectionTable table = new ConnectionTable(Connection.MAX_NO_RESPONSE_TIME);
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			InetSocketAddress first = new InetSocketAddress(InetAddress.getLoopbackAddress(), 50001);
+			InetSocketAddress second = new InetSocketAddress(InetAddress.getLoopbackAddress(), 50002);
+			Connection player = new Connection(game, channel, first, 1);
+			Connection spectator = new Connection(game, channel, second, -1);
+			table.add(player);
+			table.add(spectator);
+			assertSame(player, table.get(new InetSocketAddress(InetAddress.getLoopbackAddress(), 50001)));
+			assertSame(spectator, table.get(second));
+			assertEquals(2, table.size());
+			assertEquals(1, table.getPlayerCount());
+		}
+	}
+
+	/**
+	 * A connection should be removed once its client did not respond for longer than the timeout, and not before, while
+	 * a connection whose client keeps responding should stay.
+	 */
+	@Test
+	void testExpiry() throws Exception {
+		Game game = new Game();
+		ConnectionTable table = new ConnectionTable(5);
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			Connection silent = new Connection(game, channel,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), 50001), 1);
+			Connection responding = new Connection(game, channel,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), 50002), 2);
+			table.add(silent);
+			table.add(responding);
+			for (int tick = 1; tick <= 5; tick++) {
+				responding.setLastTick(tick);
+				table.expire(tick);
+			}
+			assertEquals(2, table.size());
+			responding.setLastTick(6);
+			table.expire(6);
+			assertEquals(1, table.size());
+			for (int tick = 7; tick <= 40; tick++) {
+				responding.setLastTick(tick);
+				table.expire(tick);
+			}
+			assertNull(table.get(silent.getAddress()));
+			assertSame(responding, table.get(responding.getAddress()));
+			assertEquals(1, table.getPlayerCount());
+		}
+	}
+
+	/**
+	 * When the game starts over while a new connection is being added, the connection ends up in the timing wheel
+	 * twice. It should still be removed only once, so that the number of players stays right and a room cannot take
+	 * more players than it may.
+	 */
+	@Test
+	void testRestartWhileAdding() throws Exception {
+		Game game = new Game();
+		ConnectionTable table = new ConnectionTable(5);
+		AtomicBoolean restart = new AtomicBoolean();
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			// getShipID() is called by add() between putting the connection in the table and queueing it
+			Connection silent = new Connection(game, channel,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), 50001), 1) {
+				@Override
+				public int getShipID() {
+					if (restart.getAndSet(false)) table.expire(0);
+					return super.getShipID();
+				}
+			};
+			Connection responding = new Connection(game, channel,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), 50002), 2);
+			for (int tick = 1; tick <= 10; tick++) table.expire(tick);
+			table.add(responding);
+			restart.set(true);
+			table.add(silent);
+			assertFalse(restart.get());
+			assertEquals(2, table.getPlayerCount());
+			for (int tick = 1; tick <= 40; tick++) {
+				responding.setLastTick(tick);
+				table.expire(tick);
+			}
+			assertNull(table.get(silent.getAddress()));
+			assertSame(responding, table.get(responding.getAddress()));
+			assertEquals(1, table.size());
+			assertEquals(1, table.getPlayerCount());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package aoop.asteroids.model.online;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests splitting packets that do not fit in a single datagram into fragments, and putting them together again, also
+ * when fragments arrive out of order, twice, or not at all.
+ */
+class FragmentReassemblerTest {
+	/**
+	 * Fragments arriving in any order should give back the whole packet once the last one arrives.
+	 */
+	@Test
+	void testOutOfOrder() {
+		byte[] packet = createPacket(3 * FragmentReassembler.FRAGMENT_PAYLOAD + 100);
+		byte[][] fragments = split(packet, 1);
+		assertEquals(4, fragments.length);
+
+		FragmentReassembler reassembler = new FragmentReassembler();
+		assertNull(add(reassembler, fragments[2]));
+		assertNull(add(reassembler, fragments[0]));
+		assertNull(add(reassembler, fragments[3]));
+		byte[] result = add(reassembler, fragments[1]);
+		assertNotNull(result);
+		assertEquals(packet.length, reassembler.getLength());
+		for (int i = 0; i < packet.length; i++) assertEquals(packet[i], result[i]);
+	}
+
+	/**
+	 * A fragment that arrives twice should count once, and fragments of a packet that was already put together, or of
+	 * an older packet, should be dropped.
+	 */
+	@Test
+	void testDuplicatesAndStalePackets() {
+		byte[][] older = split(createPacket(2 * FragmentReassembler.FRAGMENT_PAYLOAD), 1);
+		byte[][] newer = split(createPacket(2 * FragmentReassembler.FRAGMENT_PAYLOAD), 2);
+		FragmentReassembler reassembler = new FragmentReassembler();
+		assertNull(add(reassembler, newer[0]));
+		assertNull(add(reassembler, newer[0]));
+		assertNotNull(add(reassembler, newer[1]));
+		assertNull(add(reassembler, newer[1]));
+		assertNull(add(reassembler, older[0]));
+		assertNull(add(reassembler, older[1]));
+	}
+
+	/**
+	 * When more packets are unfinished than there are slots, the oldest one should be dropped to make room, and its
+	 * late fragments should not push out the newer packets.
+	 */
+	@Test
+	void testOldestPacketIsDropped() {
+		FragmentReassembler reassembler = new FragmentReassembler(2);
+		byte[][] first = split(createPacket(2 * FragmentReassembler.FRAGMENT_PAYLOAD), 1);
+		byte[][] second = split(createPacket(2 * FragmentReassembler.FRAGMENT_PAYLOAD), 2);
+		byte[][] third = split(createPacket(2 * FragmentReassembler.FRAGMENT_PAYLOAD), 3);
+		assertNull(add(reassembler, first[0]));
+		assertNull(add(reassembler, second[0]));
+		assertNull(add(reassembler, third[0]));
+		assertNull(add(reassembler, first[1]));
+		assertNotNull(add(reassembler, second[1]));
+		assertNotNull(add(reassembler, third[1]));
+	}
+
+	/**
+	 * Datagrams that are not valid fragments should be ignored.
+	 */
+	@Test
+	void testInvalidFragments() {
+		FragmentReassembler reassembler = new FragmentReassembler();
+		byte[] fragment = split(createPacket(2 * FragmentReassembler.FRAGMENT_PAYLOAD), 1)[0];
+		assertNull(reassembler.add(fragment, FragmentReassembler.FRAGMENT_HEADER - 1));
+		// A first fragment that is shorter than the payload of a fragment.
+		assertNull(reassembler.add(fragment, fragment.length - 1));
+		fragment[0] = 0;
+		assertNull(add(reassembler, fragment));
+	}
+
+	/**
+	 * @param reassembler The reassembler.
+	 * @param fragment A fragment.
+	 * @return The whole packet if this was the last missing fragment, null otherwise.
+	 */
+	private byte[] add(FragmentReassembler reassembler, byte[] fragment) {
+		return reassembler.add(fragment, fragment.length);
+	}
+
+	/**
+	 * @param packet A packet.
+	 * @param sequence The sequence number of the packet.
+	 * @return The fragments of the packet, each as long as the datagram it is sent in.
+	 */
+	private byte[][] split(byte[] packet, int sequence) {
+		byte[][] fragments = new byte[FragmentReassembler.getFragmentCount(packet.length)][];
+		byte[] buffer = new byte[PacketHandler.MAX_SIZE];
+		for (int i = 0; i < fragments.length; i++) {
+			int length = FragmentReassembler.writeFragment(packet, packet.length, sequence, i, buffer);
+			fragments[i] = new byte[length];
+			System.arraycopy(buffer, 0, fragments[i], 0, length);
+		}
+		return fragments;
+	}
+
+	/**
+	 * @param length The length of the packet.
+	 * @return A packet with different bytes at different positions.
+	 */
+	private byte[] createPacket(int length) {
+		byte[] packet = new byte[length];
+		for (int i = 0; i < length; i++) packet[i] = (byte) (i * 31 + i / 256);
+		return packet;
+	}
+}
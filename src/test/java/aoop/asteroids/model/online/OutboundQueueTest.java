@@ -0,0 +1,123 @@
+package aoop.asteroids.model.online;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ring of datagrams that a room sends after each tick. Datagrams should be sent in the order they were added,
+ * and a full ring should drop its oldest datagrams rather than refuse new ones.
+ */
+class OutboundQueueTest {
+	/**
+	 * The number of ints in every datagram in the tests.
+	 */
+	private static final int INTS = 16;
+
+	/**
+	 * Datagrams should arrive in the order they were added, and when more were added than fit, only the newest should
+	 * be sent.
+	 */
+	@Test
+	void testDropOldest() throws Exception {
+		OutboundQueue queue = new OutboundQueue(8);
+		try (DatagramChannel channel = DatagramChannel.open(); DatagramChannel receiver = DatagramChannel.open()) {
+			InetSocketAddress address = bind(receiver);
+			for (int i = 0; i < 5; i++) assertTrue(queue.offer(datagram(i), address));
+			assertEquals(5, queue.size());
+			assertEquals(5, queue.drainTo(channel));
+			for (int i = 0; i < 5; i++) assertEquals(i, receive(receiver));
+
+			for (int i = 5; i < 20; i++) assertTrue(queue.offer(datagram(i), address));
+			assertEquals(8, queue.size());
+			assertEquals(7L, queue.getDropped());
+			assertEquals(8, queue.drainTo(channel));
+			for (int i = 12; i < 20; i++) assertEquals(i, receive(receiver));
+			assertEquals(0, queue.drainTo(channel));
+		}
+	}
+
+	/**
+	 * With one thread adding datagrams as fast as it can while another sends them, every datagram that arrives should
+	 * be whole and come after the ones before it.
+	 */
+	@Test
+	void testConcurrentSending() throws Exception {
+		OutboundQueue queue = new OutboundQueue(16);
+		try (DatagramChannel channel = DatagramChannel.open(); DatagramChannel receiver = DatagramChannel.open()) {
+			InetSocketAddress address = bind(receiver);
+			AtomicBoolean done = new AtomicBoolean();
+			Thread sender = new Thread(() -> {
+				while (!done.get()) queue.drainTo(channel);
+				queue.drainTo(channel);
+			});
+			sender.start();
+			int added = 0;
+			ByteBuffer datagram = ByteBuffer.allocate(INTS * Integer.BYTES);
+			for (int i = 0; i < 100_000; i++) {
+				datagram.clear();
+				for (int j = 0; j < INTS; j++) datagram.putInt(i);
+				datagram.flip();
+				if (queue.offer(datagram, address)) added++;
+			}
+			done.set(true);
+			sender.join();
+			assertTrue(added > 0);
+			assertEquals(0, queue.size());
+
+			int last = -1;
+			int received = 0;
+			receiver.configureBlocking(false);
+			ByteBuffer buffer = ByteBuffer.allocate(PacketHandler.MAX_SIZE);
+			while (receiver.receive(buffer) != null) {
+				buffer.flip();
+				assertEquals(INTS * Integer.BYTES, buffer.remaining());
+				int value = buffer.getInt();
+				for (int i = 1; i < INTS; i++) assertEquals(value, buffer.getInt(), "Datagram was overwritten");
+				assertTrue(value > last);
+				last = value;
+				received++;
+				buffer.clear();
+			}
+			assertTrue(received > 0);
+		}
+	}
+
+	/**
+	 * Binds a channel to a free port on the loopback address, to receive on.
+	 * @param receiver The channel.
+	 * @return The address the channel is bound to.
+	 */
+	private InetSocketAddress bind(DatagramChannel receiver) throws Exception {
+		receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		return (InetSocketAddress) receiver.getLocalAddress();
+	}
+
+	/**
+	 * @param value The value of the datagram.
+	 * @return A datagram that holds the value a few times over.
+	 */
+	private ByteBuffer datagram(int value) {
+		ByteBuffer datagram = ByteBuffer.allocate(INTS * Integer.BYTES);
+		for (int i = 0; i < INTS; i++) datagram.putInt(value);
+		datagram.flip();
+		return datagram;
+	}
+
+	/**
+	 * @param receiver The channel to receive on.
+	 * @return The value of the next datagram that arrives.
+	 */
+	private int receive(DatagramChannel receiver) throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(PacketHandler.MAX_SIZE);
+		receiver.receive(buffer);
+		buffer.flip();
+		return buffer.getInt();
+	}
+}
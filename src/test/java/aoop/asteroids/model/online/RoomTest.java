@@ -0,0 +1,205 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.game.Spaceship;
+import aoop.asteroids.model.game.WireFormat;
+import aoop.asteroids.model.game.WorldConfig;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests a room with many players. Every player should get a spaceship of its own that only its own input moves.
+ */
+class RoomTest {
+	/**
+	 * The largest number of players in a match that the tests play.
+	 */
+	private static final int PLAYERS = 64;
+
+	/**
+	 * The first port of the made up clients in the tests.
+	 */
+	private static final int FIRST_PORT = 51000;
+
+	/**
+	 * Every player should get a spaceship of its own, also in a world too small to keep them all apart, and the input
+	 * of each player should move its own spaceship only.
+	 */
+	@Test
+	void testOwnSpaceships() throws Exception {
+		Game game = new Game(WorldConfig.DEFAULT, true);
+		Room room = new Room(0, game, PLAYERS);
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			join(room, channel, PLAYERS);
+			assertEquals(PLAYERS, game.getSpaceships().size());
+			for (int player = 0; player < PLAYERS; player++) {
+				room.handle(channel, address(player), Client.MAINTAIN_SIGNAL, maintain(inputOf(player), 1));
+			}
+		}
+		for (Spaceship ship: game.getSpaceships()) {
+			assertSame(ship, game.getSpaceship(ship.getID()));
+			ship.nextStep(game.getWorld());
+			assertEquals(1, ship.getProcessedInputSequence());
+		}
+		for (int player = 0; player < PLAYERS; player++) {
+			Spaceship ship = game.getSpaceships().get(player);
+			assertEquals(player % 2 == 0, ship.isAccelerating(), "Spaceship of player " + player);
+		}
+		assertEquals(PLAYERS, room.getGame().getSpaceships().stream().mapToInt(Spaceship::getID).distinct().count());
+	}
+
+	/**
+	 * Players should be able to join while the game ticks, as they do on a server, where the network thread places the
+	 * spaceships of joining players while the tick thread moves, adds and removes asteroids.
+	 */
+	@Test
+	void testJoinWhileTicking() throws Exception {
+		Game game = new Game(WorldConfig.DEFAULT, true);
+		Room room = new Room(0, game, 4 * PLAYERS);
+		game.start();
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			while (game.getLastLocalTick() < 2) Thread.sleep(5);
+			join(room, channel, 4 * PLAYERS);
+		} finally {
+			game.quit();
+		}
+		assertEquals(4 * PLAYERS, game.getSpaceships().size());
+	}
+
+	/**
+	 * Handling a packet should cost the same in a match of two as in a match of many players. Every maintain packet
+	 * should look its spaceship up by id exactly once and never walk the list of spaceships, while the connection of a
+	 * packet is looked up by address in the connection table.
+	 */
+	@Test
+	void testCostPerPacket() throws Exception {
+		for (int players: new int[] {2, PLAYERS}) {
+			CountingGame game = new CountingGame();
+			Room room = new Room(0, game, players);
+			try (DatagramChannel channel = DatagramChannel.open()) {
+				join(room, channel, players);
+				game.listReads = 0;
+				game.lookups = 0;
+				int packets = 4 * players;
+				for (int i = 0; i < packets; i++) {
+					int player = i % players;
+					room.handle(channel, address(player), Client.MAINTAIN_SIGNAL, maintain(inputOf(player), i + 1));
+				}
+				assertEquals(0, game.listReads, "Spaceships were walked with " + players + " players");
+				assertEquals(packets, game.lookups, "Spaceships looked up with " + players + " players");
+			}
+		}
+	}
+
+	/**
+	 * A room that encodes the packets of its connections on a pool of threads should send every connection a packet,
+	 * as many datagrams as a room that encodes them on the thread that ticks the game.
+	 */
+	@Test
+	void testParallelEncoding() throws Exception {
+		Game game = new Game(WorldConfig.DEFAULT, true);
+		EncoderPool encoders = new EncoderPool(4);
+		Room serial = new Room(0, game, PLAYERS, 300.0);
+		Room parallel = new Room(1, game, PLAYERS, 300.0, encoders);
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			for (Room room: new Room[] {serial, parallel}) {
+				join(room, channel, PLAYERS);
+				for (int player = 0; player < PLAYERS; player++) {
+					room.handle(channel, address(player), Client.MAINTAIN_SIGNAL, maintain(inputOf(player), 1));
+				}
+			}
+			for (int tick = 1; tick <= 20; tick++) {
+				game.setLastLocalTick(tick);
+				game.getSnapshots().publish(game);
+				serial.onGameUpdated(0);
+				parallel.onGameUpdated(0);
+				int sent = serial.drainTo(channel);
+				assertTrue(sent >= PLAYERS);
+				assertEquals(sent, parallel.drainTo(channel));
+			}
+		} finally {
+			encoders.shutdown();
+		}
+	}
+
+	/**
+	 * Lets players join a room, one after the other.
+	 * @param room The room.
+	 * @param channel The channel of the server.
+	 * @param players The number of players.
+	 */
+	private void join(Room room, DatagramChannel channel, int players) {
+		for (int player = 0; player < players; player++) {
+			room.handle(channel, address(player), Client.JOIN_SIGNAL, ByteBuffer.allocate(Integer.BYTES));
+		}
+	}
+
+	/**
+	 * @param player The number of a player.
+	 * @return The address of the client of the player.
+	 */
+	private InetSocketAddress address(int player) {
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), FIRST_PORT + player);
+	}
+
+	/**
+	 * @param player The number of a player.
+	 * @return An input that accelerates for even players only.
+	 */
+	private int inputOf(int player) {
+		return player % 2 == 0 ? 1 << 16 : 1;
+	}
+
+	/**
+	 * @param input The input of the player.
+	 * @param sequence The sequence number of the input.
+	 * @return The content of a maintain signal, after the signal, as a client sends it.
+	 */
+	private ByteBuffer maintain(int input, int sequence) {
+		ByteBuffer bytes = ByteBuffer.allocate(5 * Integer.BYTES);
+		bytes.putInt(input).putInt(-1).putInt(WireFormat.LATEST.getVersion()).putInt(sequence).putInt(0);
+		bytes.flip();
+		return bytes;
+	}
+
+	/**
+	 * A game that counts how often its spaceships are read, as a list or one by one.
+	 */
+	private static class CountingGame extends Game {
+		/**
+		 * The number of times that the list of spaceships was asked for.
+		 */
+		private int listReads;
+
+		/**
+		 * The number of times that a spaceship was looked up by its id.
+		 */
+		private int lookups;
+
+		/**
+		 * Constructs a game of the default size without a local player.
+		 */
+		CountingGame() {
+			super(WorldConfig.DEFAULT, true);
+		}
+
+		@Override
+		public List<Spaceship> getSpaceships() {
+			listReads++;
+			return super.getSpaceships();
+		}
+
+		@Override
+		public Spaceship getSpaceship(int id) {
+			lookups++;
+			return super.getSpaceship(id);
+		}
+	}
+}
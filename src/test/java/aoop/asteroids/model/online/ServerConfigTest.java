@@ -0,0 +1,80 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.WorldConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests reading the settings of a dedicated server from the command line.
+ */
+class ServerConfigTest {
+	/**
+	 * Without any arguments, the server should use the same settings as a server started from the menu.
+	 */
+	@Test
+	void testDefaults() throws Exception {
+		ServerConfig config = ServerConfig.fromArguments(new String[0]);
+		assertEquals(Server.PORT_NUMBER, config.getPort());
+		assertEquals(ServerConfig.DEFAULT_MAX_PLAYERS, config.getMaxPlayers());
+		assertEquals(WorldConfig.DEFAULT.getWidth(), config.getWorld().getWidth());
+		assertEquals(WorldConfig.DEFAULT.getHeight(), config.getWorld().getHeight());
+		assertEquals(WorldConfig.DEFAULT_TICK_RATE, config.getWorld().getTickRate());
+		assertEquals(WorldConfig.DEFAULT_ASTEROIDS_LIMIT, config.getWorld().getAsteroidsLimit());
+		assertEquals(1, config.getRooms());
+		assertEquals(0.0, config.getInterestRadius());
+		assertEquals(Runtime.getRuntime().availableProcessors(), config.getEncoderThreads());
+		assertNull(config.getUpstream());
+		assertEquals(0, config.getUpstreamRoom());
+	}
+
+	/**
+	 * All settings given on the command line should end up in the configuration.
+	 */
+	@Test
+	void testArguments() throws Exception {
+		ServerConfig config = ServerConfig.fromArguments(new String[] {
+				"--port=40000", "--maxPlayers=4", "--tickRate=60", "--width=1600", "--height=1200",
+				"--asteroidsLimit=20", "--maxAsteroidsLimit=40", "--rooms=12", "--tickThreads=3",
+				"--interestRadius=500", "--encoderThreads=6", "--upstream=localhost:40001", "--upstreamRoom=2"
+		});
+		assertEquals(40000, config.getPort());
+		assertEquals(4, config.getMaxPlayers());
+		assertEquals(1600.0, config.getWorld().getWidth());
+		assertEquals(1200.0, config.getWorld().getHeight());
+		assertEquals(60.0, config.getWorld().getTickRate());
+		assertEquals(20, config.getWorld().getAsteroidsLimit());
+		assertEquals(40, config.getWorld().getMaxAsteroidsLimit());
+		assertEquals(12, config.getRooms());
+		assertEquals(3, config.getTickThreads());
+		assertEquals(500.0, config.getInterestRadius());
+		assertEquals(6, config.getEncoderThreads());
+		assertEquals(40001, config.getUpstream().getPort());
+		assertEquals("localhost", config.getUpstream().getHostString());
+		assertEquals(2, config.getUpstreamRoom());
+	}
+
+	/**
+	 * Arguments that are malformed or out of range should be rejected, instead of starting a broken server.
+	 */
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {"--port"}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {"--port=x"}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {"--port=70000"}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {"--width=0"}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {"--rooms=0"}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {
+				"--interestRadius=-1"
+		}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {
+				"--encoderThreads=0"
+		}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {
+				"--upstream=localhost:port"
+		}));
+		assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArguments(new String[] {
+				"--asteroidsLimit=10", "--maxAsteroidsLimit=5"
+		}));
+	}
+}
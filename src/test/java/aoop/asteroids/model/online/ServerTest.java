@@ -0,0 +1,212 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.game.WireFormat;
+import aoop.asteroids.model.game.WorldConfig;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the rooms of a server. Most tests never open the socket of the server, and only run the games of its rooms.
+ */
+class ServerTest {
+	/**
+	 * Signals of clients that do not know about rooms should end up in room 0, and the room id and the type of a
+	 * signal should not get in each other's way.
+	 */
+	@Test
+	void testToSignal() {
+		assertEquals(Client.MAINTAIN_SIGNAL, Server.toSignal(0, Client.MAINTAIN_SIGNAL));
+		int signal = Server.toSignal(1234, Client.JOIN_SIGNAL);
+		assertEquals(1234, signal >>> Server.ROOM_SHIFT);
+		assertEquals(Client.JOIN_SIGNAL, signal & Server.SIGNAL_MASK);
+	}
+
+	/**
+	 * The games of many rooms should all be ticked by a small number of shared threads, and stop when the server shuts
+	 * down.
+	 */
+	@Test
+	void testRoomsAreTicked() throws InterruptedException {
+		Server server = new Server(Server.PORT_NUMBER, 4, 2);
+		Game[] games = new Game[8];
+		for (int i = 0; i < games.length; i++) {
+			games[i] = new Game(WorldConfig.DEFAULT, true);
+			assertEquals(i, server.addRoom(games[i]).getId());
+			assertSame(games[i], server.getRoom(i).getGame());
+		}
+		assertEquals(games.length, server.getRoomCount());
+		Thread.sleep(500);
+		for (Game game: games) {
+			assertTrue(game.isRunning());
+			assertTrue(game.getLastLocalTick() > 0, "A room was not ticked.");
+		}
+		server.shutdown();
+		for (Game game: games) {
+			assertFalse(game.isRunning());
+		}
+	}
+
+	/**
+	 * Packets sent to the socket of a running server should reach their room, clients of rooms that do not exist should
+	 * be rejected, and the server should stop reading and close its socket when it shuts down.
+	 */
+	@Test
+	void testPacketsReachRooms() throws Exception {
+		int port;
+		try (DatagramSocket free = new DatagramSocket(0)) {
+			port = free.getLocalPort();
+		}
+		Server server = new Server(port, 4, 1);
+		Game game = new Game(WorldConfig.DEFAULT, true);
+		server.addRoom(game);
+		int ships = game.getSpaceships().size();
+		Thread thread = new Thread(server);
+		thread.start();
+		try (DatagramSocket player = new DatagramSocket(); DatagramSocket stranger = new DatagramSocket()) {
+			assertEquals(Client.RECEIVED_SIGNAL, request(player, port, Server.toSignal(0, Client.JOIN_SIGNAL)));
+			assertEquals(Client.REJECTED_SIGNAL, request(stranger, port, Server.toSignal(1, Client.JOIN_SIGNAL)));
+		} finally {
+			server.shutdown();
+			thread.join(2000);
+		}
+		assertFalse(thread.isAlive());
+		assertEquals(ships + 1, game.getSpaceships().size());
+	}
+
+	/**
+	 * Spectators of a chain of two relays should get the game, while the server and the first relay each send to a
+	 * single spectator only, however many spectators watch at the end of the chain.
+	 */
+	@Test
+	void testRelayChain() throws Exception {
+		int[] ports = freePorts(3);
+		Server host = new Server(ports[0], 4, 1);
+		host.addRoom(new Game(WorldConfig.DEFAULT, true));
+		Game firstGame = new Game(WorldConfig.DEFAULT, true);
+		Game secondGame = new Game(WorldConfig.DEFAULT, true);
+		Server first = new Server(firstGame, ports[1], 0);
+		Server second = new Server(secondGame, ports[2], 0);
+		Client firstRelay = new Client(firstGame, 0, loopback(ports[0]), true);
+		Client secondRelay = new Client(secondGame, 0, loopback(ports[1]), true);
+		Thread[] threads = {new Thread(host), new Thread(first), new Thread(second), new Thread(firstRelay),
+				new Thread(secondRelay)};
+		DatagramSocket[] spectators = new DatagramSocket[5];
+		try {
+			for (int i = 0; i < 3; i++) {
+				threads[i].start();
+			}
+			for (Server server: new Server[] {host, first, second}) {
+				while (!server.isRunning()) Thread.sleep(10);
+			}
+			threads[3].start();
+			threads[4].start();
+			for (int i = 0; i < spectators.length; i++) {
+				spectators[i] = new DatagramSocket();
+				assertEquals(Client.RECEIVED_SIGNAL, request(spectators[i], ports[2], Client.SPECTATE_SIGNAL));
+			}
+			for (DatagramSocket spectator: spectators) {
+				assertTrue(receivesGame(spectator, ports[2]), "A spectator of the relay did not get the game.");
+			}
+			assertEquals(1, host.getRoom(0).getConnectionCount());
+			assertEquals(1, first.getRoom(0).getConnectionCount());
+			assertEquals(spectators.length, second.getRoom(0).getConnectionCount());
+			try (DatagramSocket player = new DatagramSocket()) {
+				assertEquals(Client.REJECTED_SIGNAL, request(player, ports[2], Client.JOIN_SIGNAL));
+			}
+		} finally {
+			for (DatagramSocket spectator: spectators) {
+				if (spectator != null) spectator.close();
+			}
+			firstRelay.stop();
+			secondRelay.stop();
+			for (Server server: new Server[] {host, first, second}) {
+				server.shutdown();
+			}
+			for (Thread thread: threads) {
+				thread.join(2000);
+			}
+		}
+	}
+
+	/**
+	 * Keeps up the connection of a spectator until a packet of the game arrives.
+	 * @param spectator The socket of the spectator.
+	 * @param port The port of the server it spectates.
+	 * @return Whether a packet of the game arrived within a few seconds.
+	 */
+	private boolean receivesGame(DatagramSocket spectator, int port) throws Exception {
+		spectator.setSoTimeout(50);
+		byte[] maintain = ByteBuffer.allocate(5 * Integer.BYTES).putInt(Client.MAINTAIN_SIGNAL).putInt(0).putInt(-1)
+				.putInt(WireFormat.LATEST.getVersion()).putInt(0).array();
+		DatagramPacket packet = new DatagramPacket(new byte[PacketHandler.MAX_SIZE], PacketHandler.MAX_SIZE);
+		for (int attempt = 0; attempt < 100; attempt++) {
+			spectator.send(new DatagramPacket(maintain, maintain.length, InetAddress.getLoopbackAddress(), port));
+			try {
+				spectator.receive(packet);
+			} catch (java.net.SocketTimeoutException e) {
+				continue;
+			}
+			int signal = ByteBuffer.wrap(packet.getData()).getInt();
+			if (signal == Client.GAME_SIGNAL || signal == Client.GAME_DELTA_SIGNAL || signal == Client.FRAGMENT_SIGNAL) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param count The number of ports.
+	 * @return Ports that were free a moment ago.
+	 */
+	private int[] freePorts(int count) throws Exception {
+		DatagramSocket[] sockets = new DatagramSocket[count];
+		int[] ports = new int[count];
+		for (int i = 0; i < count; i++) {
+			sockets[i] = new DatagramSocket(0);
+			ports[i] = sockets[i].getLocalPort();
+		}
+		for (DatagramSocket socket: sockets) {
+			socket.close();
+		}
+		return ports;
+	}
+
+	/**
+	 * @param port A port on this host.
+	 * @return The loopback address with the port.
+	 */
+	private InetSocketAddress loopback(int port) {
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+	}
+
+	/**
+	 * Sends a signal to the server until it answers, since the server may not be listening yet.
+	 * @param socket The socket of the client.
+	 * @param port The port of the server.
+	 * @param signal The signal to send.
+	 * @return The signal that the server answers with first.
+	 */
+	private int request(DatagramSocket socket, int port, int signal) throws Exception {
+		socket.setSoTimeout(200);
+		byte[] data = ByteBuffer.allocate(2 * Integer.BYTES).putInt(signal).array();
+		DatagramPacket answer = new DatagramPacket(new byte[PacketHandler.MAX_SIZE], PacketHandler.MAX_SIZE);
+		for (int attempt = 0; attempt < 10; attempt++) {
+			socket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+			try {
+				socket.receive(answer);
+			} catch (java.net.SocketTimeoutException e) {
+				continue;
+			}
+			return ByteBuffer.wrap(answer.getData()).getInt();
+		}
+		throw new AssertionError("The server did not answer.");
+	}
+}
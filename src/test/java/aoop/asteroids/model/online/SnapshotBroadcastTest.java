@@ -0,0 +1,157 @@
+package aoop.asteroids.model.online;
+
+import aoop.asteroids.model.game.Asteroid;
+import aoop.asteroids.model.game.AsteroidSize;
+import aoop.asteroids.model.game.ByteModel;
+import aoop.asteroids.model.game.Game;
+import aoop.asteroids.model.game.WireFormat;
+import aoop.asteroids.model.game.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sending the snapshot of a tick to many connections. Every connection should receive exactly the packet that it
+ * would get if it was encoded for it alone, while the packets are only encoded once for all connections that get the
+ * same one.
+ */
+class SnapshotBroadcastTest {
+	/**
+	 * Connections that acknowledged the same tick and read the same format should share a delta, and each packet should
+	 * arrive as it was encoded.
+	 */
+	@Test
+	void testEncodedOnce() throws Exception {
+		Game game = createGame(3);
+		WorldSnapshot snapshot = takeSnapshot(game, 7);
+		SnapshotBroadcast broadcast = new SnapshotBroadcast();
+		try (DatagramChannel channel = DatagramChannel.open(); DatagramSocket socket = new DatagramSocket(0)) {
+			socket.setSoTimeout(2000);
+			InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+			broadcast.reset(snapshot);
+			for (int connection = 0; connection < 3; connection++) {
+				broadcast.sendDelta(channel, WireFormat.V2, null, address);
+				assertArrayEquals(encodeDelta(WireFormat.V2, snapshot), receive(socket));
+			}
+			assertEquals(1, broadcast.getDeltaCount());
+			broadcast.sendDelta(channel, WireFormat.V1, null, address);
+			assertArrayEquals(encodeDelta(WireFormat.V1, snapshot), receive(socket));
+			assertEquals(2, broadcast.getDeltaCount());
+			broadcast.sendFull(channel, address);
+			assertArrayEquals(encodeFull(snapshot), receive(socket));
+
+			broadcast.reset(snapshot);
+			assertEquals(0, broadcast.getDeltaCount());
+		}
+		snapshot.release();
+	}
+
+	/**
+	 * A delta that does not fit in a datagram should be sent to every connection as the same fragments, which put
+	 * together give the delta.
+	 */
+	@Test
+	void testSharedFragments() throws Exception {
+		Game game = createGame(300);
+		WorldSnapshot snapshot = takeSnapshot(game, 1);
+		byte[] expected = encodeDelta(WireFormat.V1, snapshot);
+		int fragments = FragmentReassembler.getFragmentCount(expected.length);
+		assertTrue(fragments > 1);
+		SnapshotBroadcast broadcast = new SnapshotBroadcast();
+		try (DatagramChannel channel = DatagramChannel.open(); DatagramSocket socket = new DatagramSocket(0)) {
+			socket.setSoTimeout(2000);
+			InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+			broadcast.reset(snapshot);
+			for (int connection = 0; connection < 2; connection++) {
+				broadcast.sendDelta(channel, WireFormat.V1, null, address);
+				FragmentReassembler reassembler = new FragmentReassembler();
+				byte[] packet = null;
+				for (int i = 0; i < fragments; i++) {
+					byte[] fragment = receive(socket);
+					packet = reassembler.add(fragment, fragment.length);
+				}
+				assertNotNull(packet);
+				assertEquals(expected.length, reassembler.getLength());
+				for (int i = 0; i < expected.length; i++) assertEquals(expected[i], packet[i]);
+			}
+			assertEquals(1, broadcast.getDeltaCount());
+		}
+		snapshot.release();
+	}
+
+	/**
+	 * @param socket The socket to receive on.
+	 * @return The bytes of the next datagram.
+	 */
+	private byte[] receive(DatagramSocket socket) throws Exception {
+		DatagramPacket packet = new DatagramPacket(new byte[2 * PacketHandler.MAX_SIZE], 2 * PacketHandler.MAX_SIZE);
+		socket.receive(packet);
+		byte[] data = new byte[packet.getLength()];
+		System.arraycopy(packet.getData(), 0, data, 0, data.length);
+		return data;
+	}
+
+	/**
+	 * @param format The format of the delta.
+	 * @param snapshot The snapshot.
+	 * @return The packet of a delta without a baseline, encoded on its own.
+	 */
+	private byte[] encodeDelta(WireFormat format, WorldSnapshot snapshot) {
+		ByteModel bytes = new ByteModel();
+		bytes.add(Client.GAME_DELTA_SIGNAL);
+		bytes.addDelta(format, null, snapshot);
+		return copy(bytes);
+	}
+
+	/**
+	 * @param snapshot The snapshot.
+	 * @return The packet of the whole snapshot, encoded on its own.
+	 */
+	private byte[] encodeFull(WorldSnapshot snapshot) {
+		ByteModel bytes = new ByteModel();
+		bytes.add(Client.GAME_SIGNAL);
+		bytes.add(snapshot);
+		return copy(bytes);
+	}
+
+	/**
+	 * @param bytes The bytes written.
+	 * @return A copy of the bytes written.
+	 */
+	private byte[] copy(ByteModel bytes) {
+		byte[] data = new byte[bytes.getLength()];
+		System.arraycopy(bytes.getByteArray(), 0, data, 0, data.length);
+		return data;
+	}
+
+	/**
+	 * @param game The game.
+	 * @param tick The tick at which the snapshot is taken.
+	 * @return A snapshot of the game, which must be released.
+	 */
+	private WorldSnapshot takeSnapshot(Game game, int tick) {
+		game.setLastLocalTick(tick);
+		game.getSnapshots().publish(game);
+		return game.getSnapshots().acquire();
+	}
+
+	/**
+	 * @param asteroids The number of asteroids.
+	 * @return A game with a spaceship and the given number of asteroids.
+	 */
+	private Game createGame(int asteroids) {
+		Game game = new Game();
+		for (int i = 0; i < asteroids; i++) {
+			game.getAsteroids().add(new Asteroid(new Point.Double(5.0 * i, 10.0), new Point.Double(1.0, -1.0),
+					AsteroidSize.SMALL));
+		}
+		return game;
+	}
+}
@@ -0,0 +1,47 @@
+package aoop.asteroids.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the hash map from int keys to objects, which should behave as a HashMap with Integer keys would.
+ */
+class IntObjectMapTest {
+	/**
+	 * Keys that are put should be found with their latest value, also after the map grew, and keys that were not put
+	 * should not be found.
+	 */
+	@Test
+	void testPutAndGet() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		for (int key = -100; key < 1000; key++) map.put(key, "value " + key);
+		map.put(7, "seven");
+		assertEquals(1100, map.size());
+		assertEquals("seven", map.get(7));
+		assertEquals("value -100", map.get(-100));
+		assertEquals("value 999", map.get(999));
+		assertNull(map.get(1000));
+		assertNull(map.get(Integer.MIN_VALUE));
+	}
+
+	/**
+	 * Removing keys should leave every other key findable, even keys that were put after the removed ones in the same
+	 * run of slots.
+	 */
+	@Test
+	void testRemove() {
+		IntObjectMap<Integer> map = new IntObjectMap<>();
+		for (int key = 0; key < 500; key++) map.put(key * 64, key);
+		for (int key = 0; key < 500; key += 3) assertEquals(Integer.valueOf(key), map.remove(key * 64));
+		assertNull(map.remove(3 * 64));
+		for (int key = 0; key < 500; key++) {
+			if (key % 3 == 0) assertNull(map.get(key * 64));
+			else assertEquals(Integer.valueOf(key), map.get(key * 64));
+		}
+		assertEquals(333, map.size());
+		map.clear();
+		assertEquals(0, map.size());
+		assertNull(map.get(128));
+	}
+}
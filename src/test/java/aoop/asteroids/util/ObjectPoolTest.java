@@ -0,0 +1,47 @@
+package aoop.asteroids.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the object pool, which should only create new objects when it has no free ones left.
+ */
+class ObjectPoolTest {
+	/**
+	 * Released objects should be handed out again, and new objects should only be created if the pool is empty.
+	 */
+	@Test
+	void testReuse() {
+		AtomicInteger created = new AtomicInteger();
+		ObjectPool<Object> pool = new ObjectPool<>(() -> {
+			created.incrementAndGet();
+			return new Object();
+		}, 10);
+		Object first = pool.acquire();
+		Object second = pool.acquire();
+		assertEquals(2, created.get());
+		pool.release(first);
+		pool.release(second);
+		assertEquals(2, pool.getFreeCount());
+		// The pool works like a stack, so the last released object is handed out first.
+		assertSame(second, pool.acquire());
+		assertSame(first, pool.acquire());
+		assertEquals(0, pool.getFreeCount());
+		assertEquals(2, created.get());
+	}
+
+	/**
+	 * The pool should not keep more free objects than its maximum size.
+	 */
+	@Test
+	void testMaxSize() {
+		ObjectPool<Object> pool = new ObjectPool<>(Object::new, 100);
+		for (int i = 0; i < 200; i++) {
+			pool.release(new Object());
+		}
+		assertEquals(100, pool.getFreeCount());
+	}
+}
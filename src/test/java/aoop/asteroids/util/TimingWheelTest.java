@@ -0,0 +1,78 @@
+package aoop.asteroids.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the timing wheel, which should hand out every item at the tick it is due, no earlier and no later, also when
+ * the item is due more than a full turn of the wheel ahead.
+ */
+class TimingWheelTest {
+	/**
+	 * Items should come out in the tick they are due, and items that are not due should stay in the wheel.
+	 */
+	@Test
+	void testDue() {
+		TimingWheel<String> wheel = new TimingWheel<>(4, 10);
+		wheel.schedule("a", 11);
+		wheel.schedule("b", 13);
+		wheel.schedule("c", 19);
+		List<String> due = new ArrayList<>();
+		wheel.advance(11, due::add);
+		assertEquals(1, due.size());
+		assertEquals("a", due.get(0));
+		wheel.advance(12, due::add);
+		assertEquals(1, due.size());
+		wheel.advance(13, due::add);
+		assertEquals("b", due.get(1));
+		// "c" shares its slot with "b" and "a" in earlier turns, but is only due two turns later.
+		wheel.advance(18, due::add);
+		assertEquals(2, due.size());
+		assertEquals(1, wheel.size());
+		wheel.advance(19, due::add);
+		assertEquals("c", due.get(2));
+		assertEquals(0, wheel.size());
+	}
+
+	/**
+	 * Moving the wheel forward by more than a full turn should hand out every item that is due by then, and items
+	 * scheduled in the past should be due in the next tick.
+	 */
+	@Test
+	void testJumpAndPast() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(4, 0);
+		for (int i = 1; i <= 20; i++) wheel.schedule(i, i);
+		List<Integer> due = new ArrayList<>();
+		wheel.advance(15, due::add);
+		assertEquals(15, due.size());
+		assertEquals(5, wheel.size());
+		wheel.schedule(99, 3);
+		wheel.advance(16, due::add);
+		assertTrue(due.contains(99));
+		assertTrue(due.contains(16));
+		assertEquals(17, due.size());
+	}
+
+	/**
+	 * Items handed out may be scheduled again right away, even into the slot that is being emptied.
+	 */
+	@Test
+	void testRescheduleWhileDue() {
+		TimingWheel<String> wheel = new TimingWheel<>(4, 0);
+		wheel.schedule("a", 1);
+		wheel.schedule("b", 1);
+		List<String> due = new ArrayList<>();
+		wheel.advance(1, item -> {
+			due.add(item);
+			wheel.schedule(item, 5);
+		});
+		assertEquals(2, due.size());
+		assertEquals(2, wheel.size());
+		wheel.advance(5, due::add);
+		assertEquals(4, due.size());
+	}
+}